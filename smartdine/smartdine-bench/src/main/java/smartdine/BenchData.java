@@ -0,0 +1,91 @@
+package smartdine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Synthetic menus and order histories for the benchmarks.
+// Everything is generated from a fixed seed, so two runs (or two commits) measure the same data.
+final class BenchData {
+    static final long SEED = 42;
+    static final String[] CATEGORIES = {"Appetizers", "Main Course", "Drinks", "Dessert"};
+
+    private static final String[] STYLES = {"Spicy", "Grilled", "Crispy", "Classic", "Smoked", "Garlic", "Honey", "Vegan",
+            "Double", "Mini", "Royal", "Fresh", "Hot", "Iced", "Loaded", "House"};
+    private static final String[] DISHES = {"Burger", "Fries", "Pizza", "Salad", "Wings", "Soup", "Pasta", "Taco",
+            "Lemonade", "Coke", "Tea", "Coffee", "Shake", "Cheesecake", "Brownie", "Ice Cream", "Chicken", "Noodles"};
+    private static final String[] CUSTOMERS = {"Alice", "Bob", "Chen", "Divya", "Emma", "Farid", "Grace", "Hiro",
+            "Ines", "Jonas", "Kofi", "Lena", "Mateo", "Nia", "Omar", "Priya"};
+    private static final LocalDateTime FIRST_ORDER_TIME = LocalDateTime.of(2024, 1, 1, 11, 0);
+
+    private BenchData() {
+    }
+
+    // Menu with unique names like "Spicy Chicken Burger 12", spread over the four categories
+    static List<MainFrame.MenuItem> menu(int size) {
+        Random random = new Random(SEED);
+        List<MainFrame.MenuItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = STYLES[random.nextInt(STYLES.length)] + " " + DISHES[random.nextInt(DISHES.length)]
+                    + " " + DISHES[random.nextInt(DISHES.length)] + " " + i;
+            long priceCents = 99 + random.nextInt(2400);
+            items.add(new MainFrame.MenuItem(name, CATEGORIES[i % CATEGORIES.length], priceCents));
+        }
+        return items;
+    }
+
+    // History of consecutive orders starting at #1000, one to six items each, about one order a minute
+    static List<MainFrame.Order> orders(int count, List<MainFrame.MenuItem> menu) {
+        Random random = new Random(SEED + 1);
+        List<MainFrame.Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(1000 + i, menu, random, FIRST_ORDER_TIME.plusMinutes(i)));
+        }
+        return orders;
+    }
+
+    static MainFrame.Order order(int orderNumber, List<MainFrame.MenuItem> menu, Random random, LocalDateTime time) {
+        int lines = 1 + random.nextInt(6);
+        List<MainFrame.CartItem> items = new ArrayList<>(lines);
+        long totalCents = 0;
+        for (int j = 0; j < lines; j++) {
+            MainFrame.CartItem item = new MainFrame.CartItem(menu.get(random.nextInt(menu.size())), 1 + random.nextInt(4));
+            items.add(item);
+            totalCents += item.getTotalCents();
+        }
+        return new MainFrame.Order(orderNumber, CUSTOMERS[random.nextInt(CUSTOMERS.length)],
+                "T" + (1 + random.nextInt(20)), items, totalCents, time);
+    }
+
+    // Cart of the given number of distinct lines
+    static List<MainFrame.CartItem> cart(int lines, List<MainFrame.MenuItem> menu) {
+        Random random = new Random(SEED + 2);
+        List<MainFrame.CartItem> cart = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            cart.add(new MainFrame.CartItem(menu.get(i % menu.size()), 1 + random.nextInt(4)));
+        }
+        return cart;
+    }
+
+    static File tempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void deleteRecursively(File directory) throws IOException {
+        if (directory == null || !directory.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path); // Children before their directory
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package smartdine;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Runs the benchmarks and writes a report meant to be committed or diffed between commits:
+// one tab-separated line per benchmark and parameter combination, sorted, with fixed number formatting.
+//
+//   BenchReport <report.tsv> [JMH options, e.g. -prof gc BillRender]
+//   BenchReport compare <before.tsv> <after.tsv>
+//
+// Columns: benchmark, params, mode, score, error, unit, p50, p99 (sample mode only) and bytes allocated
+// per operation (only with -prof gc). Lines starting with # describe the run and are ignored by compare.
+public final class BenchReport {
+    private static final String HEADER = "benchmark\tparams\tmode\tscore\terror\tunit\tp50\tp99\talloc_bytes_per_op";
+    private static final String NONE = "-";
+
+    private BenchReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("compare")) {
+            compare(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        if (args.length == 0) {
+            System.err.println("Usage: BenchReport <report.tsv> [JMH options]");
+            System.err.println("       BenchReport compare <before.tsv> <after.tsv>");
+            System.exit(2);
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length)))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        List<String> rows = new ArrayList<>();
+        for (RunResult result : results) {
+            rows.add(row(result));
+        }
+        Collections.sort(rows);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# jvm=" + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + ", os=" + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + ", cpus=" + Runtime.getRuntime().availableProcessors());
+        lines.add(HEADER);
+        lines.addAll(rows);
+        Files.write(Paths.get(args[0]), lines, StandardCharsets.UTF_8);
+        System.out.println("Wrote " + rows.size() + " results to " + args[0]);
+    }
+
+    private static String row(RunResult result) {
+        BenchmarkParams params = result.getParams();
+        String benchmark = params.getBenchmark();
+        benchmark = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1); // Class.method
+
+        StringJoiner paramText = new StringJoiner(",");
+        for (String key : new TreeSet<>(params.getParamsKeys())) {
+            paramText.add(key + "=" + params.getParam(key));
+        }
+
+        Result primary = result.getPrimaryResult();
+        String p50 = NONE;
+        String p99 = NONE;
+        if (params.getMode().shortLabel().equals("sample")) {
+            Statistics statistics = primary.getStatistics();
+            p50 = number(statistics.getPercentile(50.0));
+            p99 = number(statistics.getPercentile(99.0));
+        }
+        String allocated = NONE;
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                allocated = number(secondary.getValue().getScore());
+            }
+        }
+        return String.join("\t", benchmark, paramText.length() == 0 ? NONE : paramText.toString(),
+                params.getMode().shortLabel(), number(primary.getScore()), number(primary.getScoreError()),
+                primary.getScoreUnit(), p50, p99, allocated);
+    }
+
+    // Prints the change of every result present in both reports; positive means better
+    private static void compare(Path before, Path after) throws IOException {
+        Map<String, String[]> old = read(before);
+        Map<String, String[]> current = read(after);
+        System.out.printf(Locale.ROOT, "%-60s %-40s %14s %14s %9s %9s%n", "benchmark", "params", "before", "after", "change", "alloc");
+        for (Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] was = old.get(entry.getKey());
+            String[] now = entry.getValue();
+            if (was == null) {
+                System.out.printf(Locale.ROOT, "%-60s %-40s %14s %14s %9s%n", now[0], now[1], "new", now[3] + " " + now[5], "");
+                continue;
+            }
+            double oldScore = Double.parseDouble(was[3]);
+            double newScore = Double.parseDouble(now[3]);
+            // Throughput is better when higher, every other mode measures time and is better when lower
+            double change = now[2].equals("thrpt") ? newScore / oldScore - 1 : oldScore / newScore - 1;
+            String allocChange = was[8].equals(NONE) || now[8].equals(NONE) ? ""
+                    : percent(Double.parseDouble(was[8]) == 0 ? 0 : Double.parseDouble(now[8]) / Double.parseDouble(was[8]) - 1);
+            System.out.printf(Locale.ROOT, "%-60s %-40s %14s %14s %9s %9s%n", now[0] + " (" + now[2] + ")", now[1],
+                    was[3], now[3] + " " + now[5], percent(change), allocChange);
+        }
+        for (String key : old.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-60s %-40s %14s%n", old.get(key)[0], old.get(key)[1], "removed");
+            }
+        }
+    }
+
+    // Rows keyed by benchmark, params and mode, in report order
+    private static Map<String, String[]> read(Path report) throws IOException {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(report, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.equals(HEADER) || line.isBlank()) {
+                continue;
+            }
+            String[] columns = line.split("\t", -1);
+            rows.put(columns[0] + "\t" + columns[1] + "\t" + columns[2], columns);
+        }
+        return rows;
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? NONE : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String percent(double change) {
+        return String.format(Locale.ROOT, "%+.1f%%", change * 100);
+    }
+}
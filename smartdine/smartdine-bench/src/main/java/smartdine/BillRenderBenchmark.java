@@ -0,0 +1,64 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bill text rendering: the original String.format code path against BillRenderer.
+// Run with -prof gc to compare the bytes allocated per bill (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillRenderBenchmark {
+    private MainFrame.Order order;
+
+    @Setup
+    public void setUp() {
+        List<MainFrame.MenuItem> menu = BenchData.menu(100);
+        order = BenchData.orders(7, menu).get(6); // A six-line order
+    }
+
+    // The Generate Bill code before BillRenderer, including its per-bill formatter
+    @Benchmark
+    public String stringFormat() {
+        StringBuilder bill = new StringBuilder();
+        bill.append("--- SmartDine Bill ---\n\n");
+        bill.append("Order Number: ").append(order.getOrderNumber()).append("\n");
+        bill.append("Table: ").append(order.getTableName()).append("\n");
+        bill.append("Customer: ").append(order.getCustomerName()).append("\n");
+        bill.append("Date: ").append(order.getOrderDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n\n");
+        bill.append("Items:\n");
+        for (MainFrame.CartItem item : order.getItems()) {
+            bill.append(String.format("- %-25s x %-3d $%.2f\n", item.getMenuItem().getName(), item.getQuantity(), item.getTotalCents() / 100.0));
+        }
+        bill.append("\n-----------------------------------\n");
+        bill.append(String.format("Total: $%.2f\n", order.getTotalCents() / 100.0));
+        bill.append("-----------------------------------\n");
+        bill.append("Thank you for dining with SmartDine!\n");
+        return bill.toString();
+    }
+
+    // Old text plus the getBytes the archive needed before it took a ByteBuffer
+    @Benchmark
+    public byte[] stringFormatBytes() {
+        return stringFormat().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String renderer() {
+        return BillRenderer.RECEIPT.render(order);
+    }
+
+    // What the bill archive receives
+    @Benchmark
+    public ByteBuffer rendererEncode() {
+        return BillRenderer.RECEIPT.encode(order);
+    }
+}
@@ -0,0 +1,153 @@
+package smartdine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Bill archive durability at several BillSpooler batch windows, in two settings:
+// - closed loop: terminals wait until each bill is on disk, so throughput is what counts; also run with
+//   every bill written and forced on the billing thread, as before the spooler
+// - open loop: terminals bill at a fixed total rate without waiting, as the engine does, so what counts
+//   is how many fsyncs the bills cost and how long until each one is on disk
+// Each run starts from an empty archive in a temporary directory on the default file system, so the
+// numbers depend on how fast that disk syncs:
+//     java -cp target/benchmarks.jar smartdine.BillSpoolerThroughput [terminals] [seconds] [billsPerSecond]
+public final class BillSpoolerThroughput {
+    private static final long[] WINDOWS_MICROS = {0, 500, 1000, 2000, 5000, 10000};
+    private static final int MAX_BATCH = 256;
+
+    private BillSpoolerThroughput() {
+    }
+
+    // Writes one bill durably and returns once it is on disk
+    private interface Terminal {
+        void bill(int orderNumber, ByteBuffer bill) throws IOException, InterruptedException, ExecutionException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int billsPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        List<MainFrame.Order> orders = BenchData.orders(10_000, BenchData.menu(200));
+        System.out.printf("Closed loop: %d terminals waiting for each bill to be on disk, %d s per run%n", terminals, seconds);
+        System.out.printf("%-16s %10s %8s %10s %10s %10s%n", "mode", "bills/s", "fsyncs", "bills/sync", "p50 ms", "p99 ms");
+
+        File directory = BenchData.tempDirectory("smartdine-spooler");
+        try {
+            BillArchive direct = new BillArchive(new File(directory, "direct").getPath());
+            direct.open();
+            run("fsync per bill", terminals, seconds, orders, (orderNumber, bill) -> {
+                synchronized (direct) {
+                    direct.append(orderNumber, bill);
+                    direct.force();
+                }
+            }, null);
+            direct.close();
+
+            for (long window : WINDOWS_MICROS) {
+                BillArchive archive = new BillArchive(new File(directory, "window-" + window).getPath());
+                archive.open();
+                BillSpooler spooler = new BillSpooler(archive, window, TimeUnit.MICROSECONDS, MAX_BATCH);
+                run(String.format("window %.1f ms", window / 1000.0), terminals, seconds, orders,
+                        (orderNumber, bill) -> spooler.submit(orderNumber, bill).get(), spooler);
+                spooler.close();
+                archive.close();
+            }
+
+            System.out.printf("%nOpen loop: %d terminals billing %,d bills/s in all without waiting, %d s per run%n",
+                    terminals, billsPerSecond, seconds);
+            System.out.printf("%-16s %10s %8s %10s %10s %10s%n", "mode", "bills/s", "fsyncs/s", "bills/sync", "p50 ms", "p99 ms");
+            for (long window : WINDOWS_MICROS) {
+                BillArchive archive = new BillArchive(new File(directory, "open-" + window).getPath());
+                archive.open();
+                BillSpooler spooler = new BillSpooler(archive, window, TimeUnit.MICROSECONDS, MAX_BATCH);
+                runOpen(String.format("window %.1f ms", window / 1000.0), terminals, seconds, billsPerSecond, orders, spooler);
+                spooler.close();
+                archive.close();
+            }
+        } finally {
+            BenchData.deleteRecursively(directory);
+        }
+    }
+
+    // Terminals hand bills over at a fixed rate; latency is until each bill is on disk
+    private static void runOpen(String mode, int terminals, int seconds, int billsPerSecond, List<MainFrame.Order> orders,
+                                BillSpooler spooler) throws InterruptedException {
+        Metrics.Histogram latency = new Metrics.Histogram();
+        LongAdder billed = new LongAdder();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) * terminals / billsPerSecond;
+        long begin = System.nanoTime();
+        long end = begin + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < terminals; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                int orderNumber = seed;
+                long next = begin + intervalNanos * seed / terminals; // Terminals spread over the interval
+                while (next < end) {
+                    LockSupport.parkNanos(next - System.nanoTime());
+                    ByteBuffer bill = BillRenderer.RECEIPT.encode(orders.get(random.nextInt(orders.size())));
+                    long start = System.nanoTime();
+                    spooler.submit(orderNumber, bill).thenRun(() -> latency.recordSince(start));
+                    billed.increment();
+                    orderNumber += terminals;
+                    next += intervalNanos;
+                }
+            }, "terminal-" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        spooler.sync().join();
+        long bills = billed.sum();
+        long syncs = spooler.getBatches() - 1; // Without the batch of the final sync
+        System.out.printf("%-16s %,10d %,8d %10.1f %10.3f %10.3f%n", mode, bills / seconds, syncs / seconds,
+                (double) bills / Math.max(1, syncs), latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6);
+    }
+
+    private static void run(String mode, int terminals, int seconds, List<MainFrame.Order> orders, Terminal terminal,
+                            BillSpooler spooler) throws InterruptedException {
+        Metrics.Histogram latency = new Metrics.Histogram();
+        LongAdder billed = new LongAdder();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < terminals; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                int orderNumber = seed;
+                try {
+                    while (System.nanoTime() < end) {
+                        ByteBuffer bill = BillRenderer.RECEIPT.encode(orders.get(random.nextInt(orders.size())));
+                        long start = System.nanoTime();
+                        terminal.bill(orderNumber, bill);
+                        latency.recordSince(start);
+                        billed.increment();
+                        orderNumber += terminals; // Unique across terminals
+                    }
+                } catch (IOException | InterruptedException | ExecutionException e) {
+                    System.err.println("Terminal failed: " + e);
+                }
+            }, "terminal-" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long bills = billed.sum();
+        long syncs = spooler == null ? bills : spooler.getBatches();
+        System.out.printf("%-16s %,10d %,8d %10.1f %10.3f %10.3f%n", mode, bills / seconds, syncs, (double) bills / Math.max(1, syncs),
+                latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6);
+    }
+}
@@ -0,0 +1,75 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.DefaultListModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cart total as updateBillTotal used to compute it by rescanning the cart list model, and the running total
+// the engine keeps under the table's lock, up to large-party carts. changeQuantity is the cost of one
+// cart change including the new total; run with -prof gc to see that none of them allocate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalBenchmark {
+    private static final String TABLE = "T1";
+
+    @Param({"3", "12", "50", "200", "1000"})
+    int cartLines;
+
+    private DefaultListModel<MainFrame.CartItem> cartModel;
+    private OrderEngine engine;
+    private File dataDirectory;
+    private int changedQuantity;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<MainFrame.MenuItem> menu = BenchData.menu(1000);
+        List<MainFrame.CartItem> cart = BenchData.cart(cartLines, menu);
+        cartModel = new DefaultListModel<>();
+        for (MainFrame.CartItem item : cart) {
+            cartModel.addElement(item);
+        }
+        // Reserving a table schedules a save, so keep the engine's files out of the working directory
+        dataDirectory = BenchData.tempDirectory("smartdine-cart");
+        engine = new OrderEngine(dataDirectory);
+        engine.reserveTable(TABLE);
+        for (MainFrame.CartItem item : cart) {
+            engine.addToCart(TABLE, item.getMenuItem(), item.getQuantity());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.close();
+        BenchData.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public long listModel() {
+        long totalCents = 0;
+        for (int i = 0; i < cartModel.size(); i++) {
+            totalCents += cartModel.getElementAt(i).getTotalCents();
+        }
+        return totalCents;
+    }
+
+    @Benchmark
+    public long engine() {
+        return engine.getCartTotal(TABLE);
+    }
+
+    // Alternates the middle line between two quantities
+    @Benchmark
+    public long changeQuantity() {
+        changedQuantity = changedQuantity == 1 ? 2 : 1;
+        engine.setCartQuantity(TABLE, cartLines / 2, changedQuantity);
+        return engine.getCartTotal(TABLE);
+    }
+}
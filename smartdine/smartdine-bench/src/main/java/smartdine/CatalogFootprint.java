@@ -0,0 +1,63 @@
+package smartdine;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+// Heap and file size of an order history with menu items embedded in every cart item, against
+// cart items referring to the MenuCatalog. Run with a fixed heap so GC noise stays small:
+//     java -Xmx4g -cp target/benchmarks.jar smartdine.CatalogFootprint [orders]
+public final class CatalogFootprint {
+    private CatalogFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File directory = BenchData.tempDirectory("smartdine-footprint");
+        try {
+            File embedded = new File(directory, "orders.dat");
+            File referenced = new File(directory, "orders-catalog.dat");
+            MenuCatalog catalog = new MenuCatalog(new File(directory, "catalog.dat").getPath());
+            catalog.open();
+            List<MainFrame.Order> orders = BenchData.orders(count, BenchData.menu(200));
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(embedded))) {
+                OrderCodec.writeOrders(orders, out);
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(referenced))) {
+                OrderCodec.writeOrders(orders, out, catalog);
+            }
+            orders = null;
+
+            long embeddedHeap = retainedHeap(embedded, null);
+            long referencedHeap = retainedHeap(referenced, catalog);
+            File catalogFile = new File(directory, "catalog.dat");
+            System.out.printf("%,d orders%n", count);
+            System.out.printf("file  embedded %,15d bytes   catalog %,15d bytes (+%,d catalog)   %5.1f%% smaller%n",
+                    embedded.length(), referenced.length(), catalogFile.length(),
+                    100.0 * (embedded.length() - referenced.length() - catalogFile.length()) / embedded.length());
+            System.out.printf("heap  embedded %,15d bytes   catalog %,15d bytes   %5.1f%% smaller%n",
+                    embeddedHeap, referencedHeap, 100.0 * (embeddedHeap - referencedHeap) / embeddedHeap);
+            catalog.close();
+        } finally {
+            BenchData.deleteRecursively(directory);
+        }
+    }
+
+    // Heap still used by the decoded history after a full GC
+    private static long retainedHeap(File file, MenuCatalog catalog) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        List<MainFrame.Order> orders;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            orders = OrderCodec.readOrders(in, catalog);
+        }
+        System.gc();
+        long used = memory.getHeapMemoryUsage().getUsed() - before;
+        if (orders.isEmpty() && used < 0) {
+            throw new IllegalStateException(); // Keeps the orders reachable until measured
+        }
+        return used;
+    }
+}
@@ -0,0 +1,105 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Full order cycle on the shared OrderEngine (reserve, three cart lines, bill) with one table per thread,
+// at 1, 4 and 8 threads to show how billing scales with the striped table locks. The table cycle
+// (reserve, two cart lines, free) leaves out billing's shared history append, so only the table locks
+// and the coalesced save requests are shared between threads.
+// Bills are journaled and archived in a temporary data directory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+    private File dataDirectory;
+    private OrderEngine engine;
+    private List<MainFrame.MenuItem> menu;
+    private final AtomicInteger tableNumbers = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        String table;
+        int nextItem;
+
+        @Setup
+        public void setUp(EngineBenchmark benchmark) {
+            table = "Bench" + benchmark.tableNumbers.incrementAndGet();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = BenchData.tempDirectory("smartdine-engine");
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllData();
+        menu = BenchData.menu(100);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.close();
+        BenchData.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MainFrame.Order orderCycle1Thread(Terminal terminal) {
+        return orderCycle(terminal);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MainFrame.Order orderCycle4Threads(Terminal terminal) {
+        return orderCycle(terminal);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public MainFrame.Order orderCycle8Threads(Terminal terminal) {
+        return orderCycle(terminal);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long tableCycle1Thread(Terminal terminal) {
+        return tableCycle(terminal);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tableCycle4Threads(Terminal terminal) {
+        return tableCycle(terminal);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long tableCycle8Threads(Terminal terminal) {
+        return tableCycle(terminal);
+    }
+
+    private long tableCycle(Terminal terminal) {
+        engine.reserveTable(terminal.table);
+        engine.addToCart(terminal.table, menu.get(terminal.nextItem++ % menu.size()), 2);
+        engine.addToCart(terminal.table, menu.get(terminal.nextItem++ % menu.size()), 1);
+        long total = engine.getCartTotal(terminal.table);
+        engine.freeTable(terminal.table);
+        return total;
+    }
+
+    private MainFrame.Order orderCycle(Terminal terminal) {
+        engine.reserveTable(terminal.table);
+        for (int i = 0; i < 3; i++) {
+            engine.addToCart(terminal.table, menu.get(terminal.nextItem++ % menu.size()), 1 + i);
+        }
+        return engine.generateBill(terminal.table, "Bench");
+    }
+}
@@ -0,0 +1,115 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Order journal: the cost of saving one billed order as the engine does (history append, journal append and,
+// every CHECKPOINT_INTERVAL orders, a checkpoint into the history file) against a history of historySize orders,
+// and startup opening the history plus replaying the journal tail. Both should stay flat as the history grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JournalBenchmark {
+    private static final int JOURNAL_TAIL = OrderJournal.CHECKPOINT_INTERVAL / 2; // Records since the last checkpoint
+
+    @Param({"1000", "100000", "1000000"})
+    int historySize;
+
+    private List<MainFrame.MenuItem> menu;
+    private File directory;
+    private OrderJournal replayJournal;
+    private OrderHistory replayHistory;
+    private MenuCatalog catalog;
+    private OrderJournal appendJournal;
+    private OrderHistory appendHistory;
+    private final Random random = new Random(BenchData.SEED);
+    private int nextOrderNumber;
+
+    @Setup
+    public void setUp() throws IOException {
+        menu = BenchData.menu(200);
+        List<MainFrame.Order> orders = BenchData.orders(historySize, menu);
+        directory = BenchData.tempDirectory("smartdine-journal");
+        catalog = new MenuCatalog(file("catalog.dat").getPath());
+        catalog.open();
+
+        // Same layout the engine leaves behind: most orders checkpointed into the history and a short journal tail
+        int checkpointed = Math.max(0, historySize - JOURNAL_TAIL);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file("replay.dat")))) {
+            OrderCodec.writeOrders(orders.subList(0, checkpointed), out, catalog);
+        }
+        replayHistory = history("replay");
+        replayHistory.open(); // Builds the index once, like the first start after an upgrade
+        replayHistory.close();
+        OrderJournal journal = journal("replay");
+        journal.replay();
+        for (MainFrame.Order order : orders.subList(checkpointed, historySize)) {
+            journal.append(order);
+        }
+        journal.close();
+        replayJournal = journal("replay");
+
+        // A separate history of the same size that grows while append runs
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file("append.dat")))) {
+            OrderCodec.writeOrders(orders, out, catalog);
+        }
+        appendHistory = history("append");
+        appendHistory.open();
+        appendJournal = journal("append");
+        appendJournal.replay();
+        nextOrderNumber = 1000 + historySize;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        replayJournal.close();
+        replayHistory.close();
+        appendJournal.close();
+        appendHistory.close();
+        catalog.close();
+        BenchData.deleteRecursively(directory);
+    }
+
+    // One billed order saved like OrderEngine.recordOrder does: the periodic checkpoint is part of the average
+    @Benchmark
+    public void append() throws IOException {
+        MainFrame.Order order = BenchData.order(nextOrderNumber++, menu, random, LocalDateTime.now());
+        appendHistory.append(order);
+        appendJournal.append(order);
+        if (appendJournal.isCheckpointDue()) {
+            appendJournal.checkpoint(appendHistory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public int[] replay() throws IOException {
+        // What OrderEngine.loadAllData reads of the history: header, journal tail and the index tail to dedupe against
+        replayHistory.open();
+        List<MainFrame.Order> tail = replayJournal.replay();
+        return replayHistory.tailNumbers(tail.size() + 2 * OrderJournal.CHECKPOINT_INTERVAL);
+    }
+
+    private OrderJournal journal(String name) {
+        return new OrderJournal(file(name + ".journal").getPath(), catalog);
+    }
+
+    private OrderHistory history(String name) {
+        return new OrderHistory(file(name + ".dat").getPath(), file(name + ".idx").getPath(), file(name + ".ser").getPath(), catalog);
+    }
+
+    private File file(String name) {
+        return new File(directory, name);
+    }
+}
@@ -0,0 +1,132 @@
+package smartdine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Ticket latency from billing an order to its station taking the ticket, under a synthetic rush:
+// several waiters bill orders at a fixed total rate while one cook per station works through its queue.
+// A cook spends a setup time per batch plus a time per ticket, so taking tickets one by one falls behind
+// where batches keep up. Runs once with batches of one ticket and once with batches of up to 16:
+//     java -cp target/benchmarks.jar smartdine.KitchenRush [ordersPerSecond] [seconds]
+public final class KitchenRush {
+    private static final int WAITERS = 8;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long SUBMIT_TIMEOUT_MS = 1000;
+    private static final long BATCH_SETUP_MICROS = 2000; // Firing up the grill, pouring a round...
+    private static final long TICKET_MICROS = 300;
+    private static final int[] BATCH_SIZES = {1, 16};
+
+    private KitchenRush() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int ordersPerSecond = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<MainFrame.MenuItem> menu = BenchData.menu(200);
+        System.out.printf("%,d orders/s for %d s, %d waiters, %d tickets per station queue%n",
+                ordersPerSecond, seconds, WAITERS, QUEUE_CAPACITY);
+        for (int batchSize : BATCH_SIZES) {
+            rush(menu, ordersPerSecond, seconds, batchSize);
+        }
+    }
+
+    private static void rush(List<MainFrame.MenuItem> menu, int ordersPerSecond, int seconds, int batchSize) throws InterruptedException {
+        KitchenPipeline kitchen = new KitchenPipeline(KitchenPipeline.DEFAULT_STATIONS, QUEUE_CAPACITY);
+        List<String> stations = kitchen.getStations();
+        long[][] latencies = new long[stations.size()][];
+        int[] counts = new int[stations.size()];
+        int expected = ordersPerSecond * seconds;
+        AtomicInteger fullStations = new AtomicInteger();
+        CountDownLatch waitersDone = new CountDownLatch(WAITERS);
+
+        List<Thread> cooks = new ArrayList<>();
+        for (int s = 0; s < stations.size(); s++) {
+            int station = s;
+            latencies[s] = new long[expected];
+            Thread cook = new Thread(() -> {
+                try {
+                    while (true) {
+                        KitchenPipeline.Batch batch = kitchen.takeBatch(stations.get(station), batchSize, 50, TimeUnit.MILLISECONDS);
+                        if (batch == null) {
+                            if (waitersDone.getCount() == 0) {
+                                return;
+                            }
+                            continue;
+                        }
+                        long now = System.nanoTime();
+                        for (KitchenPipeline.Ticket ticket : batch.getTickets()) {
+                            latencies[station][counts[station]++] = now - ticket.getCreatedNanos();
+                        }
+                        busy(TimeUnit.MICROSECONDS.toNanos(BATCH_SETUP_MICROS + TICKET_MICROS * batch.getTickets().size()));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "cook-" + stations.get(s));
+            cook.start();
+            cooks.add(cook);
+        }
+
+        long interval = TimeUnit.SECONDS.toNanos(1) * WAITERS / ordersPerSecond;
+        long start = System.nanoTime();
+        for (int w = 0; w < WAITERS; w++) {
+            int waiter = w;
+            new Thread(() -> {
+                Random random = new Random(BenchData.SEED + waiter);
+                LocalDateTime time = LocalDateTime.of(2024, 1, 1, 19, 0);
+                long next = start + waiter * interval / WAITERS;
+                try {
+                    for (int i = waiter; i < expected; i += WAITERS) {
+                        LockSupport.parkNanos(next - System.nanoTime());
+                        next += interval;
+                        MainFrame.Order order = BenchData.order(1000 + i, menu, random, time);
+                        fullStations.addAndGet(kitchen.submit(order, SUBMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS).size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waitersDone.countDown();
+                }
+            }, "waiter-" + w).start();
+        }
+        waitersDone.await();
+        long billingNanos = System.nanoTime() - start;
+        for (Thread cook : cooks) {
+            cook.join();
+        }
+
+        System.out.printf("%nbatches of up to %d: billing took %.1f s (%.1f s planned), %d tickets not sent%n",
+                batchSize, billingNanos / 1e9, (double) seconds, fullStations.get());
+        System.out.printf("%-12s %9s %10s %10s %10s %10s%n", "station", "tickets", "p50 ms", "p99 ms", "max ms", "avg ms");
+        for (int s = 0; s < stations.size(); s++) {
+            long[] sorted = Arrays.copyOf(latencies[s], counts[s]);
+            if (sorted.length == 0) {
+                continue;
+            }
+            Arrays.sort(sorted);
+            KitchenPipeline.StationStats stats = kitchen.getStats(stations.get(s));
+            System.out.printf("%-12s %,9d %10.2f %10.2f %10.2f %10.2f%n", stations.get(s), sorted.length,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6,
+                    stats.getAverageLatencyNanos() / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))] / 1e6;
+    }
+
+    // Works instead of sleeping, so the cook's time is not rounded up to the timer resolution
+    private static void busy(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
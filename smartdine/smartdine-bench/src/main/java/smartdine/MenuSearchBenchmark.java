@@ -0,0 +1,65 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// filterMenu's matching: the original linear scan over every item against the n-gram MenuSearchIndex
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuSearchBenchmark {
+    @Param({"50", "500", "5000"})
+    int menuSize;
+
+    private List<MainFrame.MenuItem> menu;
+    private MenuSearchIndex index;
+
+    // Kept out of the outer state so indexBuild only varies with the menu size
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"", "bur", "chicken burger"})
+        String text;
+
+        @Param({"All", "Main Course"})
+        String category;
+    }
+
+    @Setup
+    public void setUp() {
+        menu = BenchData.menu(menuSize);
+        index = new MenuSearchIndex(menu, 1);
+    }
+
+    // The matching loop filterMenu ran on the EDT before the index existed
+    @Benchmark
+    public int linearScan(Query query) {
+        String category = query.category;
+        String searchText = query.text.trim().toLowerCase();
+        int matches = 0;
+        for (MainFrame.MenuItem item : menu) {
+            boolean categoryMatch = category.equals("All") || item.getCategory().equals(category);
+            boolean searchMatch = searchText.isEmpty() || item.getName().toLowerCase().contains(searchText);
+            if (categoryMatch && searchMatch) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int[] indexQuery(Query query) {
+        return index.query(query.text, query.category);
+    }
+
+    // Paid once per menu change
+    @Benchmark
+    public MenuSearchIndex indexBuild() {
+        return new MenuSearchIndex(menu, 1);
+    }
+}
@@ -0,0 +1,94 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Menu lookups by name as the admin handlers and terminals make them: the linear scans the engine used
+// before MenuSnapshot against its hash indexes. The readWrite group has three threads reading the whole
+// menu from the published snapshot while one replaces an item over and over, as an admin editing prices
+// at rush hour would; readers never lock and never wait for the editor.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuSnapshotBenchmark {
+    @Param({"50", "500", "5000"})
+    int menuSize;
+
+    private List<MainFrame.MenuItem> menu;
+    private MenuSnapshot snapshot;
+    private final AtomicReference<MenuSnapshot> published = new AtomicReference<>();
+    private String lastName;
+    private String lastNameUpper;
+
+    @Setup
+    public void setUp() {
+        menu = BenchData.menu(menuSize);
+        snapshot = MenuSnapshot.EMPTY.replacingAll(menu);
+        published.set(snapshot);
+        lastName = menu.get(menuSize - 1).getName(); // Worst case for a scan
+        lastNameUpper = lastName.toUpperCase();
+    }
+
+    @Benchmark
+    public MainFrame.MenuItem findLinear() {
+        for (MainFrame.MenuItem item : menu) {
+            if (item.getName().equals(lastName)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public MainFrame.MenuItem findSnapshot() {
+        return snapshot.find(lastName);
+    }
+
+    // The duplicate-name check of add and update
+    @Benchmark
+    public boolean duplicateLinear() {
+        for (MainFrame.MenuItem item : menu) {
+            if (item.getName().equalsIgnoreCase(lastNameUpper)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean duplicateSnapshot() {
+        return snapshot.containsIgnoreCase(lastNameUpper, null);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public long readMenu() {
+        long totalCents = 0;
+        for (MainFrame.MenuItem item : published.get().getItems()) {
+            totalCents += item.getPriceCents();
+        }
+        return totalCents;
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public MenuSnapshot editPrice() {
+        while (true) {
+            MenuSnapshot current = published.get();
+            MainFrame.MenuItem item = current.find(lastName);
+            MenuSnapshot next = current.replacing(lastName,
+                    new MainFrame.MenuItem(lastName, item.getCategory(), item.getPriceCents() % 2000 + 1));
+            if (published.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+}
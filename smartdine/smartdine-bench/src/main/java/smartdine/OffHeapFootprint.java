@@ -0,0 +1,133 @@
+package smartdine;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Heap and GC cost of keeping the order history as an ArrayList<Order> against the OffHeapOrderStore,
+// in memory and mapped to a scratch file. With each one retained, a billing-like workload renders the bills
+// of random past orders and keeps the most recent ones, while every GC pause is recorded; then one full GC
+// is timed, which has to mark everything still on the heap. Run with a fixed heap:
+//     java -Xms4g -Xmx4g -XX:+UseG1GC -cp target/benchmarks.jar smartdine.OffHeapFootprint [orders] [bills]
+public final class OffHeapFootprint {
+    private static final int RECENT_BILLS = 20_000; // Bills kept alive by the workload, so some get promoted
+
+    private OffHeapFootprint() {
+    }
+
+    // GC pauses seen by the notification listener
+    private static final class Pauses {
+        long count;
+        long totalMillis;
+        long maxMillis;
+
+        synchronized void add(long millis) {
+            count++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+        }
+
+        synchronized void reset() {
+            count = 0;
+            totalMillis = 0;
+            maxMillis = 0;
+        }
+
+        synchronized String summary() {
+            return String.format("%,6d pauses %,8d ms total %,6d ms max", count, totalMillis, maxMillis);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int bills = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        Pauses pauses = new Pauses();
+        listen(pauses);
+        List<MainFrame.MenuItem> menu = BenchData.menu(200);
+        System.out.printf("%,d orders, %,d bills rendered per run%n", count, bills);
+
+        long before = usedAfterGc();
+        List<MainFrame.Order> orders = BenchData.orders(count, menu);
+        long listHeap = usedAfterGc() - before;
+        report("ArrayList<Order>", listHeap, 0, count, pauses, bills, orders::get);
+
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        for (MainFrame.Order order : orders) {
+            store.add(order);
+        }
+        orders = null;
+        long storeHeap = usedAfterGc() - before;
+        report("off-heap store", storeHeap, store.offHeapBytes(), count, pauses, bills, position -> store.view(position).toOrder());
+        store.close();
+
+        File directory = BenchData.tempDirectory("smartdine-offheap");
+        try (OffHeapOrderStore mapped = new OffHeapOrderStore(new File(directory, "orders.offheap").toPath())) {
+            List<MainFrame.Order> source = BenchData.orders(count, menu);
+            for (MainFrame.Order order : source) {
+                mapped.add(order);
+            }
+            source = null;
+            long mappedHeap = usedAfterGc() - before;
+            report("mapped store", mappedHeap, mapped.offHeapBytes(), count, pauses, bills, position -> mapped.view(position).toOrder());
+        } finally {
+            BenchData.deleteRecursively(directory);
+        }
+    }
+
+    // Runs the workload against one history, then times a full GC with it still reachable
+    private static void report(String name, long heap, long offHeap, int size, Pauses pauses, int bills,
+                               IntFunction<MainFrame.Order> history) {
+        pauses.reset();
+        Random random = new Random(BenchData.SEED);
+        String[] recent = new String[RECENT_BILLS];
+        long rendered = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < bills; i++) {
+            String bill = BillRenderer.RECEIPT.render(history.apply(random.nextInt(size)));
+            recent[i % RECENT_BILLS] = bill;
+            rendered += bill.length();
+        }
+        long workloadMillis = (System.nanoTime() - start) / 1_000_000;
+        String workload = pauses.summary();
+        long fullStart = System.nanoTime();
+        System.gc();
+        long fullMillis = (System.nanoTime() - fullStart) / 1_000_000;
+        System.out.printf("%-18s heap %,15d bytes  off-heap %,15d bytes%n", name, heap, offHeap);
+        System.out.printf("%-18s workload %,6d ms: %s; full GC %,d ms (%,d chars rendered, %d kept)%n", "", workloadMillis,
+                workload, fullMillis, rendered, recent.length);
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void listen(Pauses pauses) {
+        NotificationListener listener = (notification, handback) -> {
+            if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // Stop-the-world collections only; concurrent cycles run alongside the workload
+                boolean pause = info.getGcAction().equals("end of minor GC") || info.getGcAction().equals("end of major GC");
+                if (pause && !info.getGcCause().equals("System.gc()")) {
+                    pauses.add(info.getGcInfo().getDuration());
+                }
+            }
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+}
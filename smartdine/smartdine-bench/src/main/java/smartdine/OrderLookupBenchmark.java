@@ -0,0 +1,69 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Order lookup by number: the original scan of the history list against OrderIndex, which maps the
+// number to the order's position in the list as OrderHistory does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderLookupBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int historySize;
+
+    private List<MainFrame.Order> orders;
+    private OrderIndex index;
+    private final SplittableRandom random = new SplittableRandom(BenchData.SEED);
+
+    @Setup
+    public void setUp() {
+        orders = BenchData.orders(historySize, BenchData.menu(100));
+        index = build();
+    }
+
+    private int nextOrderNumber() {
+        return 1000 + random.nextInt(historySize);
+    }
+
+    @Benchmark
+    public MainFrame.Order linearScan() {
+        int orderNumber = nextOrderNumber();
+        for (MainFrame.Order order : orders) {
+            if (order.getOrderNumber() == orderNumber) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public MainFrame.Order index() {
+        int position = index.get(nextOrderNumber());
+        return position < 0 ? null : orders.get(position);
+    }
+
+    // Paid once at startup
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public OrderIndex indexBuild() {
+        return build();
+    }
+
+    private OrderIndex build() {
+        OrderIndex built = new OrderIndex(historySize);
+        for (int position = 0; position < orders.size(); position++) {
+            built.put(orders.get(position).getOrderNumber(), position);
+        }
+        return built;
+    }
+}
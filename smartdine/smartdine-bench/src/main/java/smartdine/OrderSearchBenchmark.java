@@ -0,0 +1,70 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Past-order searches against the history size, with about one order a minute so a million orders span
+// almost two years. customerWeek is "all orders of one customer last week", itemTable "every order of one
+// dish at one table", combined uses customer, table, item and a month. linearScan answers customerWeek
+// by reading every order, as the search did without indexes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderSearchBenchmark {
+    private static final int LIMIT = 1000;
+
+    @Param({"100000", "1000000"})
+    int historySize;
+
+    private List<MainFrame.Order> orders;
+    private OrderSearchIndex index;
+    private String item;
+    private LocalDate lastDay;
+
+    @Setup
+    public void setUp() {
+        List<MainFrame.MenuItem> menu = BenchData.menu(200);
+        orders = BenchData.orders(historySize, menu);
+        index = new OrderSearchIndex();
+        for (MainFrame.Order order : orders) {
+            index.add(order);
+        }
+        item = menu.get(7).getName();
+        lastDay = orders.get(orders.size() - 1).getOrderDateTime().toLocalDate();
+    }
+
+    @Benchmark
+    public int[] customerWeek() {
+        return index.search("Alice", null, null, lastDay.minusDays(6), lastDay, LIMIT);
+    }
+
+    @Benchmark
+    public int[] itemTable() {
+        return index.search(null, "T3", item, null, null, LIMIT);
+    }
+
+    @Benchmark
+    public int[] combined() {
+        return index.search("Bob", "T7", item, lastDay.minusDays(29), lastDay, LIMIT);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int linearScan() {
+        LocalDate from = lastDay.minusDays(6);
+        int found = 0;
+        for (MainFrame.Order order : orders) {
+            LocalDate day = order.getOrderDateTime().toLocalDate();
+            if (order.getCustomerName().equalsIgnoreCase("Alice") && !day.isBefore(from) && !day.isAfter(lastDay)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,109 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading the order history and the menu: Java serialization, as FileManager.saveToFile and
+// loadFromFile did before, against the OrderCodec files with embedded menu items and with MenuCatalog references
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+    @Param({"1000", "100000", "500000"})
+    int historySize;
+
+    private List<MainFrame.MenuItem> menu;
+    private List<MainFrame.Order> orders;
+    private File directory;
+    private File serializedOrders;
+    private File codecOrders;
+    private File catalogOrders;
+    private MenuCatalog catalog;
+    private File menuFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        menu = BenchData.menu(200);
+        orders = BenchData.orders(historySize, menu);
+        directory = BenchData.tempDirectory("smartdine-persistence");
+        serializedOrders = new File(directory, "orders.ser");
+        codecOrders = new File(directory, "orders.dat");
+        catalogOrders = new File(directory, "orders-catalog.dat");
+        catalog = new MenuCatalog(new File(directory, "catalog.dat").getPath());
+        catalog.open();
+        menuFile = new File(directory, "menu.dat");
+        saveSerialized();
+        saveCodec();
+        saveCatalog();
+        MainFrame.FileManager.saveMenuToFile(menu, menuFile.getPath());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        catalog.close();
+        BenchData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void saveSerialized() throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(serializedOrders))) {
+            oos.writeObject(new ArrayList<>(orders));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<MainFrame.Order> loadSerialized() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(serializedOrders))) {
+            return (List<MainFrame.Order>) ois.readObject();
+        }
+    }
+
+    @Benchmark
+    public void saveCodec() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(codecOrders))) {
+            OrderCodec.writeOrders(orders, out);
+        }
+    }
+
+    @Benchmark
+    public List<MainFrame.Order> loadCodec() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(codecOrders))) {
+            return OrderCodec.readOrders(in);
+        }
+    }
+
+    @Benchmark
+    public void saveCatalog() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(catalogOrders))) {
+            OrderCodec.writeOrders(orders, out, catalog);
+        }
+    }
+
+    @Benchmark
+    public List<MainFrame.Order> loadCatalog() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(catalogOrders))) {
+            return OrderCodec.readOrders(in, catalog);
+        }
+    }
+
+    // Menu files, as written by OrderEngine.saveAllData; they do not depend on historySize
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean saveMenu() {
+        return MainFrame.FileManager.saveMenuToFile(menu, menuFile.getPath());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<MainFrame.MenuItem> loadMenu() {
+        return MainFrame.FileManager.loadMenuFromFile(menuFile.getPath(), new File(directory, "menu.ser").getPath());
+    }
+}
@@ -0,0 +1,96 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Booking queries against the number of tables and how far ahead the book is filled: three evening
+// bookings per table and day. conflictCheck and bookingAt look at one table; freeTables answers
+// "which tables are free from 19:00 to 21:00 for 4 people". linearScan is the same conflict check
+// over a flat list of all bookings, as a book without the per-table interval index would do it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReservationBenchmark {
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int[] SEATS = {2, 4, 4, 6, 8};
+
+    @Param({"100", "2000"})
+    int tables;
+
+    @Param({"7", "90"})
+    int days;
+
+    private ReservationBook book;
+    private List<ReservationBook.Booking> flat;
+    private LocalDateTime[] slotStarts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        book = new ReservationBook();
+        for (int t = 0; t < tables; t++) {
+            book.addTable("T" + t, SEATS[t % SEATS.length]);
+        }
+        flat = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            LocalDateTime evening = FIRST_DAY.plusDays(day).withHour(17);
+            for (int t = 0; t < tables; t++) {
+                for (int slot = 0; slot < 3; slot++) {
+                    LocalDateTime start = evening.plusHours(2L * slot);
+                    flat.add(book.book("T" + t, "Guest", 2, start, start.plusMinutes(105)));
+                }
+            }
+        }
+        // Query slots spread over the whole period, so no query hits only cached tree paths
+        Random random = new Random(BenchData.SEED);
+        slotStarts = new LocalDateTime[1024];
+        for (int i = 0; i < slotStarts.length; i++) {
+            slotStarts[i] = FIRST_DAY.plusDays(random.nextInt(days)).withHour(17 + random.nextInt(6)).withMinute(15 * random.nextInt(4));
+        }
+    }
+
+    private LocalDateTime nextSlot() {
+        next = (next + 1) & (slotStarts.length - 1);
+        return slotStarts[next];
+    }
+
+    @Benchmark
+    public ReservationBook.Booking conflictCheck() {
+        LocalDateTime start = nextSlot();
+        return book.findConflict("T" + (next % tables), start, start.plusHours(2));
+    }
+
+    @Benchmark
+    public ReservationBook.Booking bookingAt() {
+        return book.bookingAt("T" + (next % tables), nextSlot());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> freeTables() {
+        LocalDateTime start = nextSlot().withHour(19).withMinute(0);
+        return book.findFreeTables(4, start, start.plusHours(2));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ReservationBook.Booking linearScan() {
+        LocalDateTime start = nextSlot();
+        LocalDateTime end = start.plusHours(2);
+        String table = "T" + (next % tables);
+        for (ReservationBook.Booking booking : flat) {
+            if (booking.getTableName().equals(table) && booking.getStart().isBefore(end) && booking.getEnd().isAfter(start)) {
+                return booking;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Revenue of one category: rescanning the history and every cart line against the running totals,
+// plus the parallel rebuild paid at startup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SalesAnalyticsBenchmark {
+    private static final String CATEGORY = "Drinks";
+
+    @Param({"1000", "100000", "1000000"})
+    int historySize;
+
+    private List<MainFrame.Order> orders;
+    private SalesAnalytics analytics;
+
+    @Setup
+    public void setUp() {
+        orders = BenchData.orders(historySize, BenchData.menu(200));
+        analytics = SalesAnalytics.rebuild(orders);
+    }
+
+    @Benchmark
+    public long rescan() {
+        long revenue = 0;
+        for (MainFrame.Order order : orders) {
+            for (MainFrame.CartItem item : order.getItems()) {
+                if (item.getMenuItem().getCategory().equals(CATEGORY)) {
+                    revenue += item.getTotalCents();
+                }
+            }
+        }
+        return revenue;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long query() {
+        return analytics.getCategory(CATEGORY).getRevenueCents();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public SalesAnalytics rebuild() {
+        return SalesAnalytics.rebuild(orders);
+    }
+}
@@ -0,0 +1,87 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loopback load on the OrderServer from 8 client threads. Sample mode records every call, so the report
+// shows p50 and p99 latency next to the mean. ServerLoadTest covers thousands of tablets at once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ServerBenchmark {
+    private File dataDirectory;
+    private OrderEngine engine;
+    private OrderServer server;
+    private HttpClient client;
+    private String baseUri;
+    private final AtomicInteger tableNumbers = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Tablet {
+        String table;
+
+        @Setup
+        public void setUp(ServerBenchmark benchmark) {
+            table = "Tablet" + benchmark.tableNumbers.incrementAndGet();
+            benchmark.engine.addTable(table); // The server only reserves known tables
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = BenchData.tempDirectory("smartdine-server");
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllData();
+        server = new OrderServer(engine, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+        baseUri = "http://localhost:" + server.getPort();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.stop();
+        engine.close();
+        BenchData.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public String menu() throws IOException, InterruptedException {
+        return send("GET", "/menu");
+    }
+
+    // Reserve, add two items and bill: four round trips per order
+    @Benchmark
+    public String orderCycle(Tablet tablet) throws IOException, InterruptedException {
+        String table = URLEncoder.encode(tablet.table, StandardCharsets.UTF_8);
+        send("POST", "/tables/reserve?table=" + table);
+        send("POST", "/cart/add?table=" + table + "&item=Burger&qty=2");
+        send("POST", "/cart/add?table=" + table + "&item=Coke&qty=1");
+        return send("POST", "/bill?table=" + table + "&customer=Bench");
+    }
+
+    private String send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,207 @@
+package smartdine;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Loopback load test of the OrderServer with thousands of simulated tablets at once. Every tablet is a
+// virtual thread with its own keep-alive connection, as a tablet on the floor would have, and runs order
+// cycles on its own table: reserve, read the menu, add two items, bill, with a think time between requests.
+// Tablets start spread over the ramp-up second; latencies are recorded from then on, per request type:
+//     java -cp target/benchmarks.jar smartdine.ServerLoadTest [tablets] [seconds] [thinkMillis]
+public final class ServerLoadTest {
+    private static final String[] OPERATIONS = {"reserve", "cart/add", "bill", "menu"};
+    private static final long RAMP_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private ServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tablets = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        File dataDirectory = BenchData.tempDirectory("smartdine-server-load");
+        OrderEngine engine = new OrderEngine(dataDirectory);
+        engine.loadAllData();
+        for (int t = 0; t < tablets; t++) {
+            engine.addTable("Tablet" + t); // The server only reserves known tables
+        }
+        OrderServer server = new OrderServer(engine, 0);
+        server.start();
+        try {
+            run(server.getPort(), tablets, seconds, thinkMillis);
+        } finally {
+            server.stop();
+            engine.close();
+            BenchData.deleteRecursively(dataDirectory);
+        }
+    }
+
+    private static void run(int port, int tablets, int seconds, int thinkMillis) throws InterruptedException {
+        Metrics.Histogram[] latencies = new Metrics.Histogram[OPERATIONS.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Metrics.Histogram();
+        }
+        Metrics.Histogram all = new Metrics.Histogram();
+        LongAdder orders = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder reconnects = new LongAdder();
+        long begin = System.nanoTime();
+        long measureFrom = begin + RAMP_UP_NANOS;
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Thread> threads = new ArrayList<>(tablets);
+        for (int t = 0; t < tablets; t++) {
+            int tablet = t;
+            threads.add(Thread.ofVirtual().name("tablet-" + t).start(() -> {
+                sleepUntil(begin + RAMP_UP_NANOS * tablet / tablets);
+                String table = URLEncoder.encode("Tablet" + tablet, StandardCharsets.UTF_8);
+                // Reserve, look at the menu, add two items, bill; operations[i] says which histogram paths[i] goes to
+                String[] paths = {
+                        "/tables/reserve?table=" + table,
+                        "/menu",
+                        "/cart/add?table=" + table + "&item=Burger&qty=2",
+                        "/cart/add?table=" + table + "&item=Coke&qty=1",
+                        "/bill?table=" + table + "&customer=Load"};
+                int[] operations = {0, 3, 1, 1, 2};
+                try (Connection connection = new Connection(port, reconnects)) {
+                    while (System.nanoTime() < end) {
+                        for (int i = 0; i < paths.length; i++) {
+                            long start = System.nanoTime();
+                            connection.send(operations[i] == 3 ? "GET" : "POST", paths[i]);
+                            if (start >= measureFrom) {
+                                latencies[operations[i]].recordSince(start);
+                                all.recordSince(start);
+                            }
+                            Thread.sleep(thinkMillis);
+                        }
+                        if (System.nanoTime() >= measureFrom) {
+                            orders.increment();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    errors.increment();
+                    System.err.println("Tablet " + tablet + " failed: " + e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%,d tablets, %d ms think time, %d s measured after %d ms ramp-up: %,d orders (%,.0f/s), %,d requests (%,.0f/s), %,d reconnects, %d tablets failed%n",
+                tablets, thinkMillis, seconds, TimeUnit.NANOSECONDS.toMillis(RAMP_UP_NANOS), orders.sum(), orders.sum() / (double) seconds,
+                all.getCount(), all.getCount() / (double) seconds, reconnects.sum(), errors.sum());
+        System.out.printf("%-10s %10s %10s %10s %10s%n", "request", "count", "p50 ms", "p99 ms", "max ms");
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            print(OPERATIONS[i], latencies[i]);
+        }
+        print("all", all);
+    }
+
+    private static void print(String name, Metrics.Histogram latency) {
+        System.out.printf(Locale.ROOT, "%-10s %,10d %10.3f %10.3f %10.3f%n", name, latency.getCount(),
+                latency.getMedianMillis(), latency.get99thPercentileMillis(), latency.getMaxMillis());
+    }
+
+    private static void sleepUntil(long deadline) {
+        long wait = deadline - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // One keep-alive HTTP/1.1 connection; the server always sends a Content-Length.
+    // The JDK server closes idle connections beyond its sun.net.httpserver.maxIdleConnections during the
+    // think time; like any HTTP client, the tablet then reconnects and sends the request again.
+    private static final class Connection implements AutoCloseable {
+        private final int port;
+        private final LongAdder reconnects;
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+
+        Connection(int port, LongAdder reconnects) throws IOException {
+            this.port = port;
+            this.reconnects = reconnects;
+            connect();
+        }
+
+        private void connect() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        // Sends the request and reads the whole response; fails on any status but 200
+        void send(String method, String path) throws IOException {
+            byte[] request = (method + " " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            String status;
+            try {
+                out.write(request);
+                out.flush();
+                status = readLine();
+            } catch (IOException e) {
+                // Closed while idle, so the server never saw the request
+                socket.close();
+                reconnects.increment();
+                connect();
+                out.write(request);
+                out.flush();
+                status = readLine();
+            }
+            int length = 0;
+            for (String header = readLine(); !header.isEmpty(); header = readLine()) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+            byte[] body = in.readNBytes(length);
+            if (body.length < length) {
+                throw new EOFException("Response to " + path + " cut short");
+            }
+            if (!status.startsWith("HTTP/1.1 200")) {
+                throw new IOException(method + " " + path + " returned " + status + ": " + new String(body, StandardCharsets.UTF_8));
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int c = in.read(); c != '\n'; c = in.read()) {
+                if (c < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
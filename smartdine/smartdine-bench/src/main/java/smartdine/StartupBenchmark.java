@@ -0,0 +1,112 @@
+package smartdine;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.SwingUtilities;
+import java.awt.GraphicsEnvironment;
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time to first interactive frame against history size: loading the engine from disk, loading it and then
+// showing the main window, and showing the window at once while the engine loads in the background:
+// frameShown is until the window is on screen, timeToInteractive until it takes input with the data shown.
+// The history is only opened, never read, so all should stay flat.
+// The frame benchmarks need a display; run them with -Djava.awt.headless=false on a desktop session.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StartupBenchmark {
+    @Param({"0", "10000", "100000", "1000000"})
+    int historySize;
+
+    private File dataDirectory;
+    private OrderEngine engine;
+    private MainFrame frame;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<MainFrame.MenuItem> menu = BenchData.menu(200);
+        dataDirectory = BenchData.tempDirectory("smartdine-startup");
+        // Files of a restaurant that has been running for a while: a checkpointed history and its index
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file(OrderEngine.ORDERS_FILE)))) {
+            OrderCodec.writeOrders(BenchData.orders(historySize, menu), out);
+        }
+        OrderEngine setupEngine = new OrderEngine(dataDirectory);
+        setupEngine.loadAllData(); // Builds the order index and saves the table list
+        for (MainFrame.MenuItem item : menu) {
+            setupEngine.addMenuItem(item);
+        }
+        setupEngine.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeEngine() throws Exception {
+        if (frame != null) {
+            MainFrame shown = frame;
+            SwingUtilities.invokeAndWait(shown::dispose);
+            frame = null;
+        }
+        if (engine != null) {
+            engine.close();
+            engine = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public int engineLoad() {
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllData();
+        return engine.getOrderCount();
+    }
+
+    // Until the frame is visible and every event queued while building it has been handled
+    @Benchmark
+    public MainFrame firstFrame() throws Exception {
+        requireDisplay();
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllData();
+        SwingUtilities.invokeAndWait(() -> frame = new MainFrame(engine));
+        SwingUtilities.invokeAndWait(() -> { });
+        return frame;
+    }
+
+    @Benchmark
+    public MainFrame frameShown() throws Exception {
+        requireDisplay();
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllDataAsync();
+        SwingUtilities.invokeAndWait(() -> frame = new MainFrame(engine));
+        return frame;
+    }
+
+    // Until the window has re-populated itself after the background load and every queued event has been handled
+    @Benchmark
+    public MainFrame timeToInteractive() throws Exception {
+        requireDisplay();
+        engine = new OrderEngine(dataDirectory);
+        engine.loadAllDataAsync();
+        SwingUtilities.invokeAndWait(() -> frame = new MainFrame(engine));
+        frame.whenInteractive().join();
+        SwingUtilities.invokeAndWait(() -> { });
+        return frame;
+    }
+
+    private static void requireDisplay() {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new IllegalStateException("The frame benchmarks need a display");
+        }
+    }
+
+    private File file(String name) {
+        return new File(dataDirectory, name);
+    }
+}
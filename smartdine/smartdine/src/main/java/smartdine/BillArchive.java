@@ -0,0 +1,285 @@
+package smartdine;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Archive of bill texts stored in a few large append-only segment files instead of one file per order.
+// Each segment record is [int orderNumber][int length][UTF-8 bill text].
+// A compact index file holds one fixed-size entry per bill: [int orderNumber][int segment][long offset][int length],
+// loaded into primitive arrays at startup. Bills are read back through memory-mapped segments.
+public class BillArchive implements Closeable {
+    static final long SEGMENT_SIZE_LIMIT = 64L * 1024 * 1024; // Start a new segment after 64 MiB
+    private static final String INDEX_FILE = "bills.idx";
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = 3 * Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private FileChannel indexChannel;
+    private FileChannel activeChannel;
+    private int activeSegment;
+
+    // Index entries in primitive arrays, plus a table from order number to entry
+    private int size;
+    private int[] orderNumbers = new int[1024];
+    private int[] segments = new int[1024];
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private final OrderIndex entries = new OrderIndex(1024);
+
+    // Read-only mappings per segment, remapped when the active segment has grown past the mapping
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(INDEX_ENTRY_SIZE); // Record headers and index entries
+
+    public BillArchive(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public synchronized void open() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        size = 0;
+        entries.clear();
+
+        Path indexPath = directory.resolve(INDEX_FILE);
+        boolean rebuild = !Files.exists(indexPath) && Files.exists(segmentPath(0));
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (rebuild) {
+            rebuildIndex();
+        } else {
+            loadIndex();
+        }
+
+        activeSegment = 0;
+        while (Files.exists(segmentPath(activeSegment + 1))) {
+            activeSegment++;
+        }
+        activeChannel = FileChannel.open(segmentPath(activeSegment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Drop bytes after the last indexed record, e.g. a torn write; appending after them would
+        // leave garbage between records that a later rebuildIndex() stops at
+        long validEnd = 0;
+        for (int i = 0; i < size; i++) {
+            if (segments[i] == activeSegment) {
+                validEnd = Math.max(validEnd, offsets[i] + lengths[i]);
+            }
+        }
+        long segmentSize = activeChannel.size();
+        if (validEnd < segmentSize) {
+            System.err.println("Discarding " + (segmentSize - validEnd) + " trailing bytes from " + segmentPath(activeSegment));
+            activeChannel.truncate(validEnd);
+            activeChannel.force(true);
+        }
+        activeChannel.position(validEnd);
+        System.out.println("Bill archive opened with " + size + " bills in " + (activeSegment + 1) + " segment(s)");
+    }
+
+    // Appends a bill to the active segment and records it in the index
+    public synchronized void append(int orderNumber, String billText) throws IOException {
+        append(orderNumber, ByteBuffer.wrap(billText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Appends a bill already encoded as UTF-8, e.g. by BillRenderer.encode; consumes the buffer
+    public synchronized void append(int orderNumber, ByteBuffer billText) throws IOException {
+        ensureOpen();
+        int length = billText.remaining();
+        if (activeChannel.size() > 0 && activeChannel.size() + RECORD_HEADER_SIZE + length > SEGMENT_SIZE_LIMIT) {
+            activeChannel.force(false); // force() only reaches the new segment
+            activeChannel.close();
+            activeSegment++;
+            activeChannel = FileChannel.open(segmentPath(activeSegment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        long recordOffset = activeChannel.size();
+        scratch.clear();
+        scratch.putInt(orderNumber).putInt(length).flip();
+        writeFully(activeChannel, scratch, recordOffset);
+        writeFully(activeChannel, billText, recordOffset + RECORD_HEADER_SIZE);
+
+        // The index entry is written last, so a crash in between only leaves unreferenced bytes in the segment
+        scratch.clear();
+        scratch.putInt(orderNumber).putInt(activeSegment).putLong(recordOffset + RECORD_HEADER_SIZE).putInt(length).flip();
+        writeFully(indexChannel, scratch, indexChannel.size());
+        put(orderNumber, activeSegment, recordOffset + RECORD_HEADER_SIZE, length);
+    }
+
+    // Forces the bills appended so far to disk: the active segment first, then the index entries pointing into it
+    public synchronized void force() throws IOException {
+        ensureOpen();
+        activeChannel.force(false);
+        indexChannel.force(false);
+    }
+
+    // Returns the bill text for an order, or null if it is not archived
+    public synchronized String read(int orderNumber) throws IOException {
+        ensureOpen();
+        int entry = entries.get(orderNumber);
+        if (entry < 0) {
+            return null;
+        }
+        ByteBuffer mapped = mapping(segments[entry], offsets[entry] + lengths[entry]).duplicate();
+        mapped.position((int) offsets[entry]);
+        mapped.limit((int) offsets[entry] + lengths[entry]);
+        return StandardCharsets.UTF_8.decode(mapped).toString();
+    }
+
+    public synchronized boolean contains(int orderNumber) {
+        return entries.get(orderNumber) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mappings.clear();
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+            indexChannel = null;
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        long[] segmentLengths = segmentLengths();
+        long indexSize = indexChannel.size();
+        int entries = (int) (indexSize / INDEX_ENTRY_SIZE);
+        boolean dirty = indexSize % INDEX_ENTRY_SIZE != 0; // Torn entry at the tail
+        ByteBuffer index = ByteBuffer.allocate(entries * INDEX_ENTRY_SIZE);
+        while (index.hasRemaining()) {
+            if (indexChannel.read(index, index.position()) < 0) {
+                throw new EOFException("Unexpected end of bill index");
+            }
+        }
+        index.flip();
+        for (int i = 0; i < entries; i++) {
+            int orderNumber = index.getInt();
+            int segment = index.getInt();
+            long offset = index.getLong();
+            int length = index.getInt();
+            // Entries pointing past the end of their segment were never fully written
+            if (segment < 0 || segment >= segmentLengths.length || offset + length > segmentLengths[segment]) {
+                dirty = true;
+                continue;
+            }
+            put(orderNumber, segment, offset, length);
+        }
+        if (dirty) {
+            rewriteIndex();
+        }
+    }
+
+    // Recreates a lost index by scanning the record headers of every segment
+    private void rebuildIndex() throws IOException {
+        for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                long position = 0;
+                long length = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+                while (position + RECORD_HEADER_SIZE <= length) {
+                    header.clear();
+                    channel.read(header, position);
+                    header.flip();
+                    int orderNumber = header.getInt();
+                    int textLength = header.getInt();
+                    if (textLength < 0 || position + RECORD_HEADER_SIZE + textLength > length) {
+                        break;
+                    }
+                    put(orderNumber, segment, position + RECORD_HEADER_SIZE, textLength);
+                    position += RECORD_HEADER_SIZE + textLength;
+                }
+            }
+        }
+        rewriteIndex();
+        System.out.println("Rebuilt bill index from segments (" + size + " bills)");
+    }
+
+    private void rewriteIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size * INDEX_ENTRY_SIZE);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(orderNumbers[i]).putInt(segments[i]).putLong(offsets[i]).putInt(lengths[i]);
+        }
+        buffer.flip();
+        indexChannel.truncate(0);
+        writeFully(indexChannel, buffer, 0);
+        indexChannel.force(true);
+    }
+
+    // Adds an entry; a later entry for the same order number replaces the earlier one
+    private void put(int orderNumber, int segment, long offset, int length) {
+        int existing = entries.get(orderNumber);
+        if (existing >= 0) {
+            segments[existing] = segment;
+            offsets[existing] = offset;
+            lengths[existing] = length;
+            return;
+        }
+        if (size == orderNumbers.length) {
+            int capacity = size * 2;
+            orderNumbers = Arrays.copyOf(orderNumbers, capacity);
+            segments = Arrays.copyOf(segments, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        orderNumbers[size] = orderNumber;
+        segments[size] = segment;
+        offsets[size] = offset;
+        lengths[size] = length;
+        entries.put(orderNumber, size);
+        size++;
+    }
+
+    private MappedByteBuffer mapping(int segment, long requiredLength) throws IOException {
+        while (mappings.size() <= segment) {
+            mappings.add(null);
+        }
+        MappedByteBuffer mapped = mappings.get(segment);
+        if (mapped == null || mapped.capacity() < requiredLength) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappings.set(segment, mapped);
+        }
+        return mapped;
+    }
+
+    private long[] segmentLengths() throws IOException {
+        int count = 0;
+        while (Files.exists(segmentPath(count))) {
+            count++;
+        }
+        long[] lengths = new long[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = Files.size(segmentPath(i));
+        }
+        return lengths;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment_%05d.dat", segment));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (indexChannel == null) {
+            throw new IOException("Bill archive " + directory + " has not been opened");
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package smartdine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Command-line tool that folds the old one-file-per-order bills/order_<n>.txt files into the BillArchive.
+// Usage: java smartdine.BillArchiveMigrator [billsDirectory] [--keep]
+// The files are deleted once all their bills are in the archive and forced to disk, unless --keep is given.
+public class BillArchiveMigrator {
+    private static final Pattern BILL_FILE = Pattern.compile("order_(\\d{1,9})\\.txt");
+
+    public static void main(String[] args) throws IOException {
+        String directory = "bills";
+        boolean keepFiles = false;
+        for (String arg : args) {
+            if (arg.equals("--keep")) {
+                keepFiles = true;
+            } else {
+                directory = arg;
+            }
+        }
+
+        try (BillArchive archive = new BillArchive(directory)) {
+            archive.open();
+            int[] counts = migrate(new File(directory), archive, keepFiles);
+            System.out.println("Migrated " + counts[0] + " bills, skipped " + counts[1] + " already archived.");
+        }
+    }
+
+    // Returns {migrated, skipped}
+    static int[] migrate(File directory, BillArchive archive, boolean keepFiles) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> BILL_FILE.matcher(name).matches());
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        // Oldest orders first, so the archive stays in order-number order
+        Arrays.sort(files, (a, b) -> Integer.compare(orderNumberOf(a), orderNumberOf(b)));
+
+        int migrated = 0;
+        int skipped = 0;
+        for (File file : files) {
+            int orderNumber = orderNumberOf(file);
+            if (archive.contains(orderNumber)) {
+                skipped++;
+            } else {
+                archive.append(orderNumber, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+                migrated++;
+            }
+        }
+        // Only delete files once their bills are on disk, so a crash never loses a bill from both places
+        archive.force();
+        if (!keepFiles) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    System.err.println("Could not delete migrated bill file " + file);
+                }
+            }
+        }
+        return new int[]{migrated, skipped};
+    }
+
+    private static int orderNumberOf(File file) {
+        Matcher matcher = BILL_FILE.matcher(file.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
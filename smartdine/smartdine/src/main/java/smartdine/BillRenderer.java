@@ -0,0 +1,193 @@
+package smartdine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Renders orders as text from a template compiled once into a list of literal and field parts.
+// Placeholders are {order}, {table}, {customer}, {date}, {items} and {total}; {items} expands to one
+// fixed-width line per cart item. Padding and money are written straight into the output without
+// String.format, and each thread renders into its own reusable StringBuilder and byte buffer.
+public final class BillRenderer {
+    private static final int ITEM_NAME_WIDTH = 25;
+    private static final int ITEM_QUANTITY_WIDTH = 3;
+
+    // Receipt handed to the customer and stored in the bill archive
+    public static final BillRenderer RECEIPT = new BillRenderer(
+            "--- SmartDine Bill ---\n\n"
+                    + "Order Number: {order}\n"
+                    + "Table: {table}\n"
+                    + "Customer: {customer}\n"
+                    + "Date: {date}\n\n"
+                    + "Items:\n"
+                    + "{items}"
+                    + "\n-----------------------------------\n"
+                    + "Total: ${total}\n"
+                    + "-----------------------------------\n"
+                    + "Thank you for dining with SmartDine!\n",
+            "- ", DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+    // Order summary shown in the admin order history
+    public static final BillRenderer ORDER_DETAILS = new BillRenderer(
+            "Order Details for #{order}\n"
+                    + "Customer: {customer}\n"
+                    + "Table: {table}\n"
+                    + "Date/Time: {date}\n\n"
+                    + "Items:\n"
+                    + "{items}"
+                    + "\nTotal Amount: ${total}\n",
+            "  - ", DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+
+    private static final int LITERAL = 0;
+    private static final int ORDER_NUMBER = 1;
+    private static final int TABLE = 2;
+    private static final int CUSTOMER = 3;
+    private static final int DATE = 4;
+    private static final int ITEMS = 5;
+    private static final int TOTAL = 6;
+
+    private static final ThreadLocal<StringBuilder> TEXT = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private static final ThreadLocal<ByteBuffer> BYTES = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+    // Replaces malformed text like String.getBytes does instead of failing the bill
+    private static final ThreadLocal<CharsetEncoder> ENCODER = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private final int[] parts;        // Part kinds in output order
+    private final String[] literals;  // Text of the LITERAL parts, null for fields
+    private final String itemPrefix;
+    private final DateTimeFormatter dateFormat;
+
+    public BillRenderer(String template, String itemPrefix, DateTimeFormatter dateFormat) {
+        this.itemPrefix = itemPrefix;
+        this.dateFormat = dateFormat;
+        List<Integer> kinds = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        int start = 0;
+        while (start < template.length()) {
+            int open = template.indexOf('{', start);
+            int close = open < 0 ? -1 : template.indexOf('}', open);
+            int field = close < 0 ? LITERAL : fieldFor(template.substring(open + 1, close));
+            if (field == LITERAL) {
+                // No placeholder left, or braces that are not one of ours: keep the rest as text
+                int end = close < 0 ? template.length() : close + 1;
+                kinds.add(LITERAL);
+                texts.add(template.substring(start, end));
+                start = end;
+                continue;
+            }
+            if (open > start) {
+                kinds.add(LITERAL);
+                texts.add(template.substring(start, open));
+            }
+            kinds.add(field);
+            texts.add(null);
+            start = close + 1;
+        }
+        parts = new int[kinds.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = kinds.get(i);
+        }
+        literals = texts.toArray(new String[0]);
+    }
+
+    // Renders the order into a new String
+    public String render(MainFrame.Order order) {
+        StringBuilder out = TEXT.get();
+        out.setLength(0);
+        render(order, out);
+        return out.toString();
+    }
+
+    // Appends the rendered order to the given builder
+    public void render(MainFrame.Order order, StringBuilder out) {
+        for (int i = 0; i < parts.length; i++) {
+            switch (parts[i]) {
+                case ORDER_NUMBER -> out.append(order.getOrderNumber());
+                case TABLE -> out.append(order.getTableName());
+                case CUSTOMER -> out.append(order.getCustomerName());
+                case DATE -> dateFormat.formatTo(order.getOrderDateTime(), out);
+                case TOTAL -> Money.append(out, order.getTotalCents());
+                case ITEMS -> {
+                    for (MainFrame.CartItem item : order.getItems()) {
+                        out.append(itemPrefix);
+                        appendPadded(out, item.getMenuItem().getName(), ITEM_NAME_WIDTH);
+                        out.append(" x ");
+                        int lineStart = out.length();
+                        out.append(item.getQuantity());
+                        pad(out, ITEM_QUANTITY_WIDTH - (out.length() - lineStart));
+                        out.append(" $");
+                        Money.append(out, item.getTotalCents());
+                        out.append('\n');
+                    }
+                }
+                default -> out.append(literals[i]);
+            }
+        }
+    }
+
+    // Renders the order as UTF-8 into this thread's reusable buffer, flipped for reading.
+    // The buffer is overwritten by the next call on the same thread.
+    public ByteBuffer encode(MainFrame.Order order) {
+        StringBuilder text = TEXT.get();
+        text.setLength(0);
+        render(order, text);
+
+        CharsetEncoder encoder = ENCODER.get();
+        ByteBuffer bytes = BYTES.get();
+        int needed = (int) Math.ceil(text.length() * (double) encoder.maxBytesPerChar());
+        if (bytes.capacity() < needed) {
+            bytes = ByteBuffer.allocate(Math.max(needed, bytes.capacity() * 2));
+            BYTES.set(bytes);
+        }
+        bytes.clear();
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(text);
+        CoderResult result = encoder.encode(chars, bytes, true);
+        if (!result.isUnderflow() || !encoder.flush(bytes).isUnderflow()) {
+            throw new IllegalStateException("Could not encode bill for order #" + order.getOrderNumber());
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    // Writes the rendered order as UTF-8 to the channel
+    public void writeTo(MainFrame.Order order, WritableByteChannel channel) throws IOException {
+        ByteBuffer bytes = encode(order);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    // Left-aligned like %-<width>s; longer values are not cut off
+    private static void appendPadded(StringBuilder out, String value, int width) {
+        out.append(value);
+        pad(out, width - value.length());
+    }
+
+    private static void pad(StringBuilder out, int count) {
+        for (int i = 0; i < count; i++) {
+            out.append(' ');
+        }
+    }
+
+    private static int fieldFor(String name) {
+        return switch (name) {
+            case "order" -> ORDER_NUMBER;
+            case "table" -> TABLE;
+            case "customer" -> CUSTOMER;
+            case "date" -> DATE;
+            case "items" -> ITEMS;
+            case "total" -> TOTAL;
+            default -> LITERAL;
+        };
+    }
+}
@@ -0,0 +1,229 @@
+package smartdine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Writes bills to the BillArchive on a background thread with group commit.
+// Billing hands the encoded bill over and returns at once; the writer takes the first pending bill, waits
+// up to the batch window for more (at most maxBatch in all), appends them together and forces the archive
+// to disk once for the whole batch. So a bill is durable at most one window plus one batch write after it
+// was billed, and a rush of bills costs one fsync per batch instead of one per bill.
+// With no window a batch is just what queued up during the previous fsync, which is all the batching
+// callers that wait for durability can use; a window only pays off when bills arrive without waiting.
+// Every submit returns a future completed once its bill is on disk; sync() waits for all bills so far.
+// Bills still waiting to be written are read from the spool, so a bill is readable right after billing.
+public class BillSpooler implements Closeable {
+    static final int QUEUE_CAPACITY = 4096; // Billing waits when this many bills are pending
+
+    private static final Metrics.Histogram COMMIT_TIME = Metrics.histogram("billBatchCommit");
+
+    // A bill waiting to be written; a sync marker has no bill
+    private static final class Pending {
+        final int orderNumber;
+        final ByteBuffer bill;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        Pending(int orderNumber, ByteBuffer bill) {
+            this.orderNumber = orderNumber;
+            this.bill = bill;
+        }
+    }
+
+    private static final Pending CLOSE = new Pending(0, null); // Tells the writer to stop
+
+    private final BillArchive archive;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<Integer, ByteBuffer> unwritten = new ConcurrentHashMap<>(); // Not yet appended, for reads right after billing
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder spooledBills = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public BillSpooler(BillArchive archive, long window, TimeUnit unit, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("A batch holds at least one bill.");
+        }
+        this.archive = archive;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "smartdine-bill-spooler");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Queues a bill encoded as UTF-8 (e.g. by BillRenderer.encode) and takes over the buffer.
+    // Waits only while QUEUE_CAPACITY bills are pending. The future fails if the bill could not be written.
+    public CompletableFuture<Void> submit(int orderNumber, ByteBuffer bill) {
+        Pending pending = new Pending(orderNumber, bill);
+        if (closed) {
+            throw new IllegalStateException("The bill spooler is closed.");
+        }
+        unwritten.put(orderNumber, bill);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unwritten.remove(orderNumber, bill);
+            pending.durable.completeExceptionally(e);
+            return pending.durable;
+        }
+        spooledBills.increment();
+        return pending.durable;
+    }
+
+    // Completes once every bill submitted before the call is on disk
+    public CompletableFuture<Void> sync() {
+        Pending marker = new Pending(0, null);
+        if (closed) {
+            marker.durable.complete(null); // close() has written everything
+            return marker.durable;
+        }
+        try {
+            queue.put(marker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            marker.durable.completeExceptionally(e);
+        }
+        return marker.durable;
+    }
+
+    // The bill text of an order still in the spool, or null
+    public String readUnwritten(int orderNumber) {
+        ByteBuffer bill = unwritten.get(orderNumber);
+        return bill == null ? null : StandardCharsets.UTF_8.decode(bill.duplicate()).toString();
+    }
+
+    // Writes all pending bills, then stops the writer; waits up to the timeout
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.put(CLOSE);
+        writer.join(unit.toMillis(timeout));
+    }
+
+    @Override
+    public void close() {
+        try {
+            close(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch && !batch.contains(CLOSE)) {
+                    // Whatever is queued already joins at once; then wait out the window for more
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                stop = true; // Write what was taken, then stop
+            }
+            if (batch.remove(CLOSE)) {
+                stop = true;
+                queue.drainTo(batch); // Submits racing with close
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    // Appends the bills of a batch and forces the archive once
+    private void commit(List<Pending> batch) {
+        long start = System.nanoTime();
+        int bills = 0;
+        long bytes = 0;
+        IOException failure = null;
+        DiningEvents.BillSyncEvent syncEvent = new DiningEvents.BillSyncEvent();
+        try {
+            for (Pending pending : batch) {
+                if (pending.bill == null) {
+                    continue; // Sync marker
+                }
+                DiningEvents.BillWriteEvent event = new DiningEvents.BillWriteEvent();
+                event.begin();
+                int length = pending.bill.remaining();
+                archive.append(pending.orderNumber, pending.bill.duplicate());
+                if (event.shouldCommit()) {
+                    event.orderNumber = pending.orderNumber;
+                    event.bytes = length;
+                    event.commit();
+                }
+                bills++;
+                bytes += length;
+            }
+            syncEvent.begin();
+            if (bills > 0) {
+                archive.force();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (bills > 0 && syncEvent.shouldCommit()) {
+            syncEvent.bills = bills;
+            syncEvent.bytes = bytes;
+            syncEvent.commit();
+        }
+        COMMIT_TIME.recordSince(start);
+        (failure == null ? batches : failedBatches).increment();
+        for (Pending pending : batch) {
+            if (pending.bill != null) {
+                unwritten.remove(pending.orderNumber, pending.bill);
+            }
+            if (failure == null) {
+                pending.durable.complete(null);
+            } else {
+                pending.durable.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // ---- Metrics ----
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSpooledBills() {
+        return spooledBills.sum();
+    }
+
+    // Batches written and forced; each cost one fsync
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+}
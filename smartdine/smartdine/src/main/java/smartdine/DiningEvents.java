@@ -0,0 +1,155 @@
+package smartdine;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.File;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Java Flight Recorder events of the order lifecycle and persistence, so one recording of a dinner service
+// lines up billing, file I/O, GC and lock contention on a single timeline. Enabled by the smartdine.jfc
+// profile (see Main); when no recording asks for them they cost no more than an untaken branch.
+// JfrAnalyzer summarizes them from a .jfr file.
+public final class DiningEvents {
+    static final String PREFIX = "smartdine.";
+
+    private DiningEvents() {
+    }
+
+    @Name(PREFIX + "Table")
+    @Label("Table Reserve/Free")
+    @Category({"SmartDine", "Tables"})
+    @StackTrace(false)
+    static final class TableEvent extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Action")
+        @Description("reserve or free")
+        String action;
+
+        @Label("Changed")
+        @Description("False if the table already was reserved or free")
+        boolean changed;
+    }
+
+    @Name(PREFIX + "AddToCart")
+    @Label("Add to Cart")
+    @Category({"SmartDine", "Orders"})
+    @StackTrace(false)
+    static final class AddToCartEvent extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Item")
+        String item;
+
+        @Label("Quantity")
+        int quantity;
+    }
+
+    @Name(PREFIX + "GenerateBill")
+    @Label("Generate Bill")
+    @Category({"SmartDine", "Orders"})
+    static final class GenerateBillEvent extends Event {
+        @Label("Order Number")
+        int orderNumber;
+
+        @Label("Table")
+        String table;
+
+        @Label("Item Count")
+        @Description("Sum of the quantities of all cart lines")
+        int itemCount;
+
+        @Label("Total Cents")
+        long totalCents;
+    }
+
+    @Name(PREFIX + "FileIO")
+    @Label("Data File Save/Load")
+    @Category({"SmartDine", "Persistence"})
+    static final class FileEvent extends Event {
+        @Label("Operation")
+        @Description("save or load")
+        String operation;
+
+        @Label("Path")
+        String path;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Success")
+        @Description("False if the file could not be written or did not exist")
+        boolean success;
+    }
+
+    @Name(PREFIX + "BillWrite")
+    @Label("Bill Write")
+    @Category({"SmartDine", "Persistence"})
+    static final class BillWriteEvent extends Event {
+        @Label("Order Number")
+        int orderNumber;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name(PREFIX + "BillSync")
+    @Label("Bill Batch Sync")
+    @Description("One fsync of the bill archive covering a batch of bills")
+    @Category({"SmartDine", "Persistence"})
+    @StackTrace(false)
+    static final class BillSyncEvent extends Event {
+        @Label("Bills")
+        int bills;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    // Runs a FileManager save and records it with the size of the written file
+    static boolean save(String filename, BooleanSupplier save) {
+        FileEvent event = new FileEvent();
+        event.begin();
+        boolean saved = save.getAsBoolean();
+        if (event.shouldCommit()) {
+            event.operation = "save";
+            event.path = filename;
+            event.bytes = saved ? new File(filename).length() : 0;
+            event.success = saved;
+            event.commit();
+        }
+        return saved;
+    }
+
+    // Runs a FileManager load and records it with the size of the file read: the file, or the legacy file
+    // when the file does not exist yet
+    static <T> T load(String filename, String legacyFilename, Supplier<T> load) {
+        FileEvent event = new FileEvent();
+        event.begin();
+        T loaded = load.get();
+        if (event.shouldCommit()) {
+            File file = new File(filename);
+            if (!file.exists() && legacyFilename != null) {
+                file = new File(legacyFilename);
+            }
+            event.operation = "load";
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.success = file.exists();
+            event.commit();
+        }
+        return loaded;
+    }
+}
@@ -6,18 +6,28 @@ package smartdine;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.List;
 
 public class FileManager {
 
+    // menu.dat uses the binary OrderCodec menu format instead of Java serialization
     public static void saveMenu(ArrayList<MenuItem> menu) throws IOException {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("menu.dat"))) {
-            out.writeObject(menu);
+        List<MainFrame.MenuItem> items = new ArrayList<>(menu.size());
+        for (MenuItem item : menu) {
+            items.add(new MainFrame.MenuItem(item.getName(), item.getCategory(), Money.fromDouble(item.getPrice())));
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream("menu.dat"))) {
+            OrderCodec.writeMenu(items, out);
         }
     }
 
-    public static ArrayList<MenuItem> loadMenu() throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream("menu.dat"))) {
-            return (ArrayList<MenuItem>) in.readObject();
+    public static ArrayList<MenuItem> loadMenu() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream("menu.dat"))) {
+            ArrayList<MenuItem> menu = new ArrayList<>();
+            for (MainFrame.MenuItem item : OrderCodec.readMenu(in)) {
+                menu.add(new MenuItem(item.getName(), item.getCategory(), Money.toDouble(item.getPriceCents())));
+            }
+            return menu;
         }
     }
 }
@@ -0,0 +1,142 @@
+package smartdine;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// Base for table models that read cells straight from a backing collection on demand.
+// Rows map to backing positions through an int[] view; no view at all means the identity mapping,
+// so showing a million-row collection costs nothing until the user sorts or filters it.
+public abstract class IndexedTableModel extends AbstractTableModel {
+    private final String[] columnNames;
+    private int[] view; // Backing positions in display order, or null for the identity mapping
+    private int sortColumn = -1;
+    private boolean sortAscending = true;
+
+    protected IndexedTableModel(String[] columnNames) {
+        this.columnNames = columnNames;
+    }
+
+    // Number of rows in the backing collection
+    protected abstract int backingSize();
+
+    // Cell value for a backing position; called only for cells that are actually rendered
+    protected abstract Object valueAt(int position, int column);
+
+    // Compares two backing positions by a column
+    protected abstract int compare(int positionA, int positionB, int column);
+
+    // Whether compare() is cheap enough to sort on the EDT right now; header clicks are ignored otherwise
+    public boolean canSort() {
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return view == null ? backingSize() : view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return valueAt(positionAt(row), column);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Tables built on these models are read-only
+    }
+
+    public int positionAt(int row) {
+        return view == null ? row : view[row];
+    }
+
+    // Shows every backing row in backing order (keeping the current sort, if any)
+    public void showAll() {
+        view = null;
+        applySort();
+        fireTableDataChanged();
+    }
+
+    // Shows the given backing positions (keeping the current sort, if any)
+    public void showPositions(int[] positions) {
+        view = positions;
+        applySort();
+        fireTableDataChanged();
+    }
+
+    // Sorts by the column, or flips the direction when it is already the sort column
+    public void toggleSort(int column) {
+        sortAscending = column != sortColumn || !sortAscending;
+        sortColumn = column;
+        applySort();
+        fireTableDataChanged();
+    }
+
+    // Sorts the table when a column header is clicked
+    public static void installHeaderSorting(JTable table, IndexedTableModel model) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column != -1 && model.canSort()) {
+                    table.clearSelection();
+                    model.toggleSort(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+    }
+
+    private void applySort() {
+        if (sortColumn < 0) {
+            return;
+        }
+        if (view == null) {
+            int size = backingSize();
+            view = new int[size];
+            for (int i = 0; i < size; i++) {
+                view[i] = i;
+            }
+        }
+        mergeSort(view, new int[view.length], 0, view.length);
+    }
+
+    // Stable merge sort over primitive positions, so sorting never boxes
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid);
+        mergeSort(a, tmp, mid, to);
+        if (compareDirected(a[mid - 1], a[mid]) <= 0) {
+            return; // Already in order
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = compareDirected(tmp[i], tmp[j]) <= 0 ? tmp[i++] : tmp[j++];
+        }
+        while (i < mid) {
+            a[k++] = tmp[i++];
+        }
+        while (j < to) {
+            a[k++] = tmp[j++];
+        }
+    }
+
+    private int compareDirected(int positionA, int positionB) {
+        int result = compare(positionA, positionB, sortColumn);
+        return sortAscending ? result : -result;
+    }
+}
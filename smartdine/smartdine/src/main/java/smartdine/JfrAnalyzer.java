@@ -0,0 +1,180 @@
+package smartdine;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Summarizes the SmartDine events of a flight recording: how often each operation ran and how long it took,
+// the file I/O per data file, the bills, how many bills overlapped a GC pause and how many shared an fsync.
+//     java -cp smartdine.jar smartdine.JfrAnalyzer dinner.jfr
+public final class JfrAnalyzer {
+    private static final String GC_PAUSE_EVENT = "jdk.GCPhasePause";
+
+    private JfrAnalyzer() {
+    }
+
+    // Durations of one event type, in nanoseconds
+    private static final class Durations {
+        long[] nanos = new long[64];
+        int count;
+
+        void add(long duration) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = duration;
+        }
+
+        String summary() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long duration : sorted) {
+                total += duration;
+            }
+            return String.format("%,8d %12.2f %10.3f %10.3f %10.3f %10.3f", count, total / 1e6, total / 1e6 / count,
+                    percentile(sorted, 50), percentile(sorted, 99), sorted[count - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            return sorted[(int) Math.max(0, Math.ceil(p / 100 * sorted.length) - 1)] / 1e6;
+        }
+    }
+
+    // Saves and loads of one data file
+    private static final class FileUse {
+        int saves;
+        int loads;
+        int failures;
+        long bytes;
+        long nanos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java -cp smartdine.jar smartdine.JfrAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        Map<String, Durations> durations = new TreeMap<>();
+        Map<String, FileUse> files = new TreeMap<>();
+        Map<String, Integer> tableActions = new TreeMap<>();
+        List<Instant[]> gcPauses = new ArrayList<>();
+        List<Instant[]> bills = new ArrayList<>();
+        int billItems = 0;
+        int maxBillItems = 0;
+        long revenueCents = 0;
+        int billSyncs = 0;
+        int syncedBills = 0;
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            String name = event.getEventType().getName();
+            if (name.equals(GC_PAUSE_EVENT)) {
+                gcPauses.add(new Instant[] {event.getStartTime(), event.getEndTime()});
+                continue;
+            }
+            if (!name.startsWith(DiningEvents.PREFIX)) {
+                continue;
+            }
+            String type = name.substring(DiningEvents.PREFIX.length());
+            long nanos = event.getDuration().toNanos();
+            switch (type) {
+                case "Table" -> {
+                    String action = event.getString("action") + (event.getBoolean("changed") ? "" : " (no change)");
+                    tableActions.merge(action, 1, Integer::sum);
+                    type += " " + event.getString("action");
+                }
+                case "GenerateBill" -> {
+                    int items = event.getInt("itemCount");
+                    billItems += items;
+                    maxBillItems = Math.max(maxBillItems, items);
+                    revenueCents += event.getLong("totalCents");
+                    bills.add(new Instant[] {event.getStartTime(), event.getEndTime()});
+                }
+                case "BillSync" -> {
+                    billSyncs++;
+                    syncedBills += event.getInt("bills");
+                }
+                case "FileIO" -> {
+                    FileUse use = files.computeIfAbsent(Path.of(event.getString("path")).getFileName().toString(), p -> new FileUse());
+                    if (event.getString("operation").equals("save")) {
+                        use.saves++;
+                    } else {
+                        use.loads++;
+                    }
+                    if (!event.getBoolean("success")) {
+                        use.failures++;
+                    }
+                    use.bytes += event.getLong("bytes");
+                    use.nanos += nanos;
+                    type += " " + event.getString("operation");
+                }
+                default -> {
+                }
+            }
+            durations.computeIfAbsent(type, t -> new Durations()).add(nanos);
+        }
+
+        if (durations.isEmpty()) {
+            System.out.println("No SmartDine events in " + args[0] + ". Was it recorded with the smartdine.jfc profile?");
+            return;
+        }
+        System.out.printf("%-20s %8s %12s %10s %10s %10s %10s%n", "event", "count", "total ms", "avg ms", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Durations> entry : durations.entrySet()) {
+            System.out.printf("%-20s %s%n", entry.getKey(), entry.getValue().summary());
+        }
+
+        if (!files.isEmpty()) {
+            System.out.printf("%n%-32s %6s %6s %8s %14s %10s%n", "file", "saves", "loads", "failed", "bytes", "total ms");
+            for (Map.Entry<String, FileUse> entry : files.entrySet()) {
+                FileUse use = entry.getValue();
+                System.out.printf("%-32s %6d %6d %8d %,14d %10.2f%n", entry.getKey(), use.saves, use.loads, use.failures,
+                        use.bytes, use.nanos / 1e6);
+            }
+        }
+
+        if (!tableActions.isEmpty()) {
+            System.out.println();
+            tableActions.forEach((action, count) -> System.out.printf("tables %-20s %,d%n", action, count));
+        }
+
+        if (!bills.isEmpty()) {
+            System.out.printf("%nbills: %,d, %.1f items on average, at most %d, revenue $%s%n", bills.size(),
+                    (double) billItems / bills.size(), maxBillItems, Money.format(revenueCents));
+            System.out.printf("GC pauses: %,d; bills overlapping one: %,d%n", gcPauses.size(), overlapping(bills, gcPauses));
+        }
+        if (billSyncs > 0) {
+            System.out.printf("bill archive syncs: %,d, %.1f bills per sync%n", billSyncs, (double) syncedBills / billSyncs);
+        }
+    }
+
+    // Intervals of the first list that overlap any interval of the second
+    private static int overlapping(List<Instant[]> intervals, List<Instant[]> pauses) {
+        pauses.sort((a, b) -> a[0].compareTo(b[0]));
+        Instant[] starts = new Instant[pauses.size()];
+        Instant[] latestEnds = new Instant[pauses.size()]; // Latest end of the pauses up to each index
+        Instant latest = Instant.MIN;
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = pauses.get(i)[0];
+            latest = pauses.get(i)[1].isAfter(latest) ? pauses.get(i)[1] : latest;
+            latestEnds[i] = latest;
+        }
+        int count = 0;
+        for (Instant[] interval : intervals) {
+            // Last pause starting before the interval ends; any overlap means some pause up to it ends after the start
+            int i = Arrays.binarySearch(starts, interval[1]);
+            int last = i >= 0 ? i : -i - 2;
+            if (last >= 0 && latestEnds[last].isAfter(interval[0])) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
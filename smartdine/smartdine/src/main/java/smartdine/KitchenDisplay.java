@@ -0,0 +1,102 @@
+package smartdine;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Kitchen screen with one column per station. A consumer thread per station takes ticket batches from
+// the KitchenPipeline and adds them to the column; "Done" clears the selected tickets. The header of each
+// column adds up the open items, so a cook sees "5x Burger" instead of five separate tickets.
+public class KitchenDisplay extends JFrame {
+    private static final int BATCH_SIZE = 16; // Most tickets taken from a station at once
+    private static final int POLL_MS = 500; // How long a consumer waits before checking whether to stop
+
+    private final KitchenPipeline kitchen;
+    private final List<Thread> consumers = new ArrayList<>();
+
+    public KitchenDisplay(KitchenPipeline kitchen) {
+        this.kitchen = kitchen;
+        setTitle("SmartDine – Kitchen");
+        setSize(1000, 500);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        List<String> stations = kitchen.getStations();
+        JPanel columns = new JPanel(new GridLayout(1, stations.size(), 5, 5));
+        for (String station : stations) {
+            columns.add(createStationColumn(station));
+        }
+        add(columns, BorderLayout.CENTER);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private JPanel createStationColumn(String station) {
+        DefaultListModel<KitchenPipeline.Ticket> openTickets = new DefaultListModel<>();
+        JList<KitchenPipeline.Ticket> ticketList = new JList<>(openTickets);
+        JTextArea openItems = new JTextArea(4, 15);
+        openItems.setEditable(false);
+        JButton doneButton = new JButton("Done");
+
+        Runnable updateOpenItems = () -> {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            for (int i = 0; i < openTickets.size(); i++) {
+                for (MainFrame.CartItem item : openTickets.get(i).getItems()) {
+                    quantities.merge(item.getMenuItem().getName(), item.getQuantity(), Integer::sum);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                text.append(entry.getValue()).append("x ").append(entry.getKey()).append('\n');
+            }
+            openItems.setText(text.toString());
+        };
+
+        doneButton.addActionListener(e -> {
+            int[] selected = ticketList.getSelectedIndices();
+            for (int i = selected.length - 1; i >= 0; i--) {
+                openTickets.remove(selected[i]);
+            }
+            updateOpenItems.run();
+        });
+
+        Thread consumer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    KitchenPipeline.Batch batch = kitchen.takeBatch(station, BATCH_SIZE, POLL_MS, TimeUnit.MILLISECONDS);
+                    if (batch != null) {
+                        SwingUtilities.invokeLater(() -> {
+                            openTickets.addAll(batch.getTickets());
+                            updateOpenItems.run();
+                        });
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Display closed
+            }
+        }, "smartdine-kitchen-" + station);
+        consumer.setDaemon(true);
+        consumer.start();
+        consumers.add(consumer);
+
+        JPanel column = new JPanel(new BorderLayout(5, 5));
+        column.setBorder(BorderFactory.createTitledBorder(station));
+        column.add(new JScrollPane(openItems), BorderLayout.NORTH);
+        column.add(new JScrollPane(ticketList), BorderLayout.CENTER);
+        column.add(doneButton, BorderLayout.SOUTH);
+        return column;
+    }
+
+    // Stops taking tickets; tickets still queued stay in the pipeline for the next display
+    @Override
+    public void dispose() {
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+        }
+        consumers.clear();
+        super.dispose();
+    }
+}
@@ -0,0 +1,233 @@
+package smartdine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sends the items of every billed order to the kitchen stations that prepare them.
+// Each order is split by menu category into one ticket per station, and every station has its own
+// bounded queue: a slow station fills up and pushes back on billing instead of piling up tickets
+// without limit, while the other stations keep flowing. Station consumers (the kitchen display or
+// any headless worker) take tickets in batches, with the quantities of equal items added up.
+// Only stations with a consumer push back: a station nobody has polled for a while just keeps its
+// oldest tickets for when a display opens, so billing never stalls on a kitchen screen that is closed.
+// Once its queue is full it misses new tickets at once, and those are reported like any other.
+public class KitchenPipeline {
+    public static final String DEFAULT_STATION = "Kitchen"; // Prepares categories without a station of their own
+    static final List<String> DEFAULT_STATIONS = List.of("Appetizers", "Main Course", "Dessert", "Drinks", DEFAULT_STATION);
+    static final int DEFAULT_CAPACITY = 256; // Tickets per station
+    static final long UNATTENDED_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5); // No poll for this long: nobody is consuming
+
+    // The items of one order that one station prepares
+    public static final class Ticket {
+        private final int orderNumber;
+        private final String tableName;
+        private final String station;
+        private final List<MainFrame.CartItem> items;
+        private final LocalDateTime orderDateTime;
+        private final long createdNanos; // System.nanoTime() when the order was submitted
+
+        Ticket(int orderNumber, String tableName, String station, List<MainFrame.CartItem> items, LocalDateTime orderDateTime, long createdNanos) {
+            this.orderNumber = orderNumber;
+            this.tableName = tableName;
+            this.station = station;
+            this.items = items;
+            this.orderDateTime = orderDateTime;
+            this.createdNanos = createdNanos;
+        }
+
+        public int getOrderNumber() { return orderNumber; }
+        public String getTableName() { return tableName; }
+        public String getStation() { return station; }
+        public List<MainFrame.CartItem> getItems() { return Collections.unmodifiableList(items); }
+        public LocalDateTime getOrderDateTime() { return orderDateTime; }
+        public long getCreatedNanos() { return createdNanos; }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append('#').append(orderNumber).append(' ').append(tableName).append(':');
+            for (MainFrame.CartItem item : items) {
+                text.append(' ').append(item.getQuantity()).append("x ").append(item.getMenuItem().getName()).append(',');
+            }
+            text.setLength(text.length() - 1);
+            return text.toString();
+        }
+    }
+
+    // Tickets taken from a station at once, and how many of each item they need together
+    public static final class Batch {
+        private final String station;
+        private final List<Ticket> tickets;
+        private final Map<String, Integer> quantities = new LinkedHashMap<>();
+
+        Batch(String station, List<Ticket> tickets) {
+            this.station = station;
+            this.tickets = tickets;
+            for (Ticket ticket : tickets) {
+                for (MainFrame.CartItem item : ticket.items) {
+                    quantities.merge(item.getMenuItem().getName(), item.getQuantity(), Integer::sum);
+                }
+            }
+        }
+
+        public String getStation() { return station; }
+        public List<Ticket> getTickets() { return Collections.unmodifiableList(tickets); }
+        // Item name to total quantity, in the order the items first appear
+        public Map<String, Integer> getQuantities() { return Collections.unmodifiableMap(quantities); }
+    }
+
+    // Counters of one station; latency is from submitting the order to taking its ticket
+    public static final class StationStats {
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final ArrayBlockingQueue<Ticket> queue;
+
+        StationStats(ArrayBlockingQueue<Ticket> queue) {
+            this.queue = queue;
+        }
+
+        public long getSubmitted() { return submitted.sum(); }
+        public long getDelivered() { return delivered.sum(); }
+        public long getRejected() { return rejected.sum(); }
+        public int getQueued() { return queue.size(); }
+        public long getMaxLatencyNanos() { return maxLatencyNanos.get(); }
+
+        public long getAverageLatencyNanos() {
+            long count = delivered.sum();
+            return count == 0 ? 0 : totalLatencyNanos.sum() / count;
+        }
+    }
+
+    private static final class Station {
+        final String name;
+        final ArrayBlockingQueue<Ticket> queue;
+        final StationStats stats;
+        volatile boolean polled; // Set by takeBatch, together with lastPollNanos
+        volatile long lastPollNanos;
+
+        Station(String name, int capacity) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.stats = new StationStats(queue);
+        }
+    }
+
+    private final Map<String, Station> stations = new LinkedHashMap<>(); // Fixed after construction
+
+    public KitchenPipeline() {
+        this(DEFAULT_STATIONS, DEFAULT_CAPACITY);
+    }
+
+    // Categories named like a station go to it, all others to the last station
+    public KitchenPipeline(List<String> stationNames, int capacity) {
+        if (stationNames.isEmpty()) {
+            throw new IllegalArgumentException("The kitchen needs at least one station.");
+        }
+        for (String name : stationNames) {
+            stations.put(name, new Station(name, capacity));
+        }
+    }
+
+    public List<String> getStations() {
+        return new ArrayList<>(stations.keySet());
+    }
+
+    public String stationFor(String category) {
+        return stationOf(category).name;
+    }
+
+    // Queues one ticket per station for the order, waiting while the queue of an attended station is full.
+    // Returns the stations whose tickets were not queued: attended stations that stayed full for the whole
+    // timeout, and unattended stations that were full, which are not waited for.
+    public List<String> submit(MainFrame.Order order, long timeout, TimeUnit unit) throws InterruptedException {
+        long now = System.nanoTime();
+        Map<Station, List<MainFrame.CartItem>> split = new LinkedHashMap<>();
+        for (MainFrame.CartItem item : order.getItems()) {
+            split.computeIfAbsent(stationOf(item.getMenuItem().getCategory()), s -> new ArrayList<>(4)).add(item);
+        }
+        List<String> full = new ArrayList<>(0);
+        long deadline = now + unit.toNanos(timeout);
+        for (Map.Entry<Station, List<MainFrame.CartItem>> entry : split.entrySet()) {
+            Station station = entry.getKey();
+            Ticket ticket = new Ticket(order.getOrderNumber(), order.getTableName(), station.name, entry.getValue(),
+                    order.getOrderDateTime(), now);
+            station.stats.submitted.increment();
+            boolean attended = isAttended(station, now);
+            long wait = attended ? Math.max(0, deadline - System.nanoTime()) : 0;
+            if (station.queue.offer(ticket, wait, TimeUnit.NANOSECONDS)) {
+                continue;
+            }
+            station.stats.rejected.increment();
+            full.add(station.name);
+        }
+        return full;
+    }
+
+    // Waits up to the timeout for a ticket of the station, then also takes whatever else is queued there,
+    // up to maxTickets in all. Returns null if no ticket arrived in time.
+    public Batch takeBatch(String stationName, int maxTickets, long timeout, TimeUnit unit) throws InterruptedException {
+        Station station = stations.get(stationName);
+        if (station == null) {
+            throw new IllegalArgumentException("No kitchen station " + stationName + ".");
+        }
+        station.lastPollNanos = System.nanoTime();
+        station.polled = true;
+        Ticket first = station.queue.poll(timeout, unit);
+        if (first == null) {
+            return null;
+        }
+        List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, station.queue.size() + 1));
+        tickets.add(first);
+        station.queue.drainTo(tickets, maxTickets - 1);
+        long now = System.nanoTime();
+        for (Ticket ticket : tickets) {
+            long latency = now - ticket.createdNanos;
+            station.stats.delivered.increment();
+            station.stats.totalLatencyNanos.add(latency);
+            station.stats.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        return new Batch(station.name, tickets);
+    }
+
+    // Whether a consumer has polled the station recently
+    public boolean isAttended(String stationName) {
+        Station station = stations.get(stationName);
+        return station != null && isAttended(station, System.nanoTime());
+    }
+
+    private static boolean isAttended(Station station, long now) {
+        return station.polled && now - station.lastPollNanos < UNATTENDED_AFTER_NANOS;
+    }
+
+    public StationStats getStats(String stationName) {
+        Station station = stations.get(stationName);
+        return station == null ? null : station.stats;
+    }
+
+    private Station stationOf(String category) {
+        Station station = category == null ? null : stations.get(category);
+        if (station == null) {
+            station = stations.get(DEFAULT_STATION);
+        }
+        if (station == null) {
+            // Custom station lists fall back to their last station
+            Station last = null;
+            for (Station s : stations.values()) {
+                last = s;
+            }
+            station = last;
+        }
+        return station;
+    }
+}
@@ -2,9 +2,42 @@ package smartdine;
 
 import javax.swing.UIManager;
 import javax.swing.SwingUtilities;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Main {
+    static final String RECORDING_PROPERTY = "smartdine.jfr";
+    static final String RECORDING_PROFILE = "/smartdine.jfc";
+    static final String USAGE = "Usage: smartdine [--server [port]]";
+
     public static void main(String[] args) {
+        // -Dsmartdine.jfr=dinner.jfr records the whole session to that file, for JfrAnalyzer or JDK Mission Control
+        String recordingFile = System.getProperty(RECORDING_PROPERTY);
+        if (recordingFile != null) {
+            startRecording(Path.of(recordingFile));
+        }
+
+        // "--server [port]" runs the headless order server for network terminals instead of the Swing UI
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? parsePort(args[1]) : OrderServer.DEFAULT_PORT;
+            if (port < 0) {
+                System.err.println("Invalid port: " + args[1] + ". The port must be a number from 1 to 65535.");
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+            startServer(port);
+            return;
+        }
+
         try {
             // Modern look and feel (Nimbus)
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
@@ -20,4 +53,53 @@ public class Main {
 
         SwingUtilities.invokeLater(MainFrame::new);
     }
+
+    // Returns -1 unless the text is a port number
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            return port >= 1 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void startServer(int port) {
+        OrderEngine engine = OrderEngine.shared();
+        try {
+            OrderServer server = new OrderServer(engine, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                engine.close(); // Writes the final state before closing the files
+            }));
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Could not start order server on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // The JDK's default profile with the SmartDine events and thresholds of smartdine.jfc on top;
+    // the recording is written when the JVM exits
+    private static void startRecording(Path file) {
+        try (InputStream in = Main.class.getResourceAsStream(RECORDING_PROFILE)) {
+            if (in == null) {
+                System.err.println("Recording profile " + RECORDING_PROFILE + " not found; not recording.");
+                return;
+            }
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            try (Reader profile = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(profile).getSettings());
+            }
+            Recording recording = new Recording(settings);
+            recording.setName("SmartDine");
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.setDumpOnExit(true);
+            recording.start();
+            System.out.println("Recording to " + file.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("Could not start flight recording: " + e.getMessage());
+        }
+    }
 }
@@ -2,20 +2,32 @@ package smartdine;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
@@ -25,59 +37,102 @@ public class MainFrame extends JFrame {
     private JTable menuTable;
     private JTextField searchField, customerNameField;
     private JComboBox<String> categoryComboBox;
-    private DefaultTableModel menuModel;
+    private MenuTableModel menuModel;
 
     private DefaultListModel<CartItem> cartModel;
     private JList<CartItem> cartList;
 
-    private Set<String> reservedTables = new HashSet<>();
     private String currentReservedTable = null;
 
-    private AtomicInteger orderCounter = new AtomicInteger(1000); // Starting order number
-
     private JButton addToCartButton;
     private JLabel totalBillLabel;
 
-    // List to hold all menu items
-    private List<MenuItem> allMenuItems = new ArrayList<>();
-    // List to hold all past orders
-    private List<Order> allOrders = new ArrayList<>();
+    // Menu search runs off the EDT; keystrokes are debounced and a newer query cancels the running one
+    private static final int SEARCH_DEBOUNCE_MS = 150;
+    private static final Metrics.Histogram FILTER_MENU_TIME = Metrics.histogram("filterMenu");
+    private static final Metrics.Histogram TIME_TO_INTERACTIVE = Metrics.histogram("timeToInteractive"); // From starting or reloading until the window takes input
+    private CompletableFuture<Void> interactive = CompletableFuture.completedFuture(null);
+    private Timer searchDebounceTimer;
+    private SwingWorker<int[], Void> menuSearchWorker;
+    private long filteredMenuVersion = -1; // Menu version the last engine refresh filtered; none yet
+
+    // Shared ordering engine holding menu, tables, carts and order history; this frame is one terminal on it
+    private final OrderEngine engine;
+    private final Runnable engineChangeListener = () -> SwingUtilities.invokeLater(this::refreshFromEngine);
+    private final OrderEngine.ErrorListener engineErrorListener = (title, message) -> SwingUtilities.invokeLater(() ->
+            JOptionPane.showMessageDialog(this, message, title, JOptionPane.ERROR_MESSAGE));
+    // Background saves report here instead of interrupting the waiter with a dialog
+    private final Consumer<PersistenceScheduler.SaveResult> saveResultListener = result ->
+            SwingUtilities.invokeLater(() -> showSaveResult(result));
+    private JLabel statusLabel;
+    private static final DateTimeFormatter STATUS_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     // List to hold all available tables
     private DefaultListModel<String> tableListModel;
     private JList<String> tableList;
-
-    // File paths for persistence
-    private static final String MENU_FILE = "smartdine_menu.ser";
-    private static final String TABLES_FILE = "smartdine_tables.ser";
-    private static final String ORDERS_FILE = "smartdine_orders.ser";
-    private static final String ORDER_COUNTER_FILE = "smartdine_order_counter.ser";
-    private static final String BILLS_DIRECTORY = "bills"; // Directory to save individual bills
-
-    // Custom class to represent a menu item (now Serializable)
+    // Bookings start and end with the clock, so the table colors are refreshed periodically
+    private static final int OCCUPANCY_REFRESH_MS = 30_000;
+    private static final int UPCOMING_BOOKING_DAYS = 7;
+    private static final int UPCOMING_BOOKING_PAST_HOURS = 12; // Long bookings that started earlier and are still running
+    private Timer occupancyTimer;
+    private KitchenDisplay kitchenDisplay; // Open kitchen screen, if any
+    // Past order search
+    private static final int ORDER_SEARCH_LIMIT = 1000; // Orders listed per search
+    private static final int ORDER_SEARCH_DEFAULT_DAYS = 7; // The date range starts out as the last week
+
+    // Custom class to represent a menu item (now Serializable).
+    // Immutable: a changed item is a new instance, so menu snapshots can be shared by readers without locking.
     static class MenuItem implements Serializable {
         private static final long serialVersionUID = 1L; // For serialization versioning
+        // Older versions serialized the price as a double; the stream layout is kept so their files still load
+        private static final ObjectStreamField[] serialPersistentFields = {
+                new ObjectStreamField("name", String.class),
+                new ObjectStreamField("category", String.class),
+                new ObjectStreamField("price", double.class)
+        };
         private String name;
         private String category;
-        private double price;
+        private long priceCents;
+        // Set for the shared instances handed out by MenuCatalog, 0 for items built elsewhere
+        private transient int itemId;
+        private transient int priceVersion;
 
-        public MenuItem(String name, String category, double price) {
+        public MenuItem(String name, String category, long priceCents) {
             this.name = name;
             this.category = category;
-            this.price = price;
+            this.priceCents = priceCents;
+        }
+
+        MenuItem(String name, String category, long priceCents, int itemId, int priceVersion) {
+            this(name, category, priceCents);
+            this.itemId = itemId;
+            this.priceVersion = priceVersion;
         }
 
         public String getName() { return name; }
         public String getCategory() { return category; }
-        public double getPrice() { return price; }
+        public long getPriceCents() { return priceCents; }
+        public int getItemId() { return itemId; }
+        public int getPriceVersion() { return priceVersion; }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("name", name);
+            fields.put("category", category);
+            fields.put("price", Money.toDouble(priceCents));
+            out.writeFields();
+        }
 
-        public void setName(String name) { this.name = name; }
-        public void setCategory(String category) { this.category = category; }
-        public void setPrice(double price) { this.price = price; }
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            name = (String) fields.get("name", null);
+            category = (String) fields.get("category", null);
+            priceCents = Money.fromDouble(fields.get("price", 0.0));
+        }
 
         @Override
         public String toString() {
-            return name + " (" + category + ") - $" + String.format("%.2f", price);
+            return name + " (" + category + ") - $" + Money.format(priceCents);
         }
     }
 
@@ -97,32 +152,41 @@ public class MainFrame extends JFrame {
 
         public void setQuantity(int quantity) { this.quantity = quantity; }
 
-        public double getTotalPrice() {
-            return menuItem.getPrice() * quantity;
+        public long getTotalCents() {
+            return Money.times(menuItem.getPriceCents(), quantity);
         }
 
         @Override
         public String toString() {
-            return menuItem.getName() + " - $" + String.format("%.2f", menuItem.getPrice()) + " x " + quantity + " = $" + String.format("%.2f", getTotalPrice());
+            return menuItem.getName() + " - $" + Money.format(menuItem.getPriceCents()) + " x " + quantity + " = $" + Money.format(getTotalCents());
         }
     }
 
     // Custom class to represent a completed order (new, Serializable)
     static class Order implements Serializable {
         private static final long serialVersionUID = 1L; // For serialization versioning
+        // Same stream layout as older versions, which serialized the total as a double
+        private static final ObjectStreamField[] serialPersistentFields = {
+                new ObjectStreamField("orderNumber", int.class),
+                new ObjectStreamField("customerName", String.class),
+                new ObjectStreamField("tableName", String.class),
+                new ObjectStreamField("items", List.class),
+                new ObjectStreamField("totalAmount", double.class),
+                new ObjectStreamField("orderDateTime", LocalDateTime.class)
+        };
         private int orderNumber;
         private String customerName;
         private String tableName;
         private List<CartItem> items;
-        private double totalAmount;
+        private long totalCents;
         private LocalDateTime orderDateTime;
 
-        public Order(int orderNumber, String customerName, String tableName, List<CartItem> items, double totalAmount, LocalDateTime orderDateTime) {
+        public Order(int orderNumber, String customerName, String tableName, List<CartItem> items, long totalCents, LocalDateTime orderDateTime) {
             this.orderNumber = orderNumber;
             this.customerName = customerName;
             this.tableName = tableName;
             this.items = new ArrayList<>(items); // Create a new list to avoid reference issues
-            this.totalAmount = totalAmount;
+            this.totalCents = totalCents;
             this.orderDateTime = orderDateTime;
         }
 
@@ -130,21 +194,43 @@ public class MainFrame extends JFrame {
         public String getCustomerName() { return customerName; }
         public String getTableName() { return tableName; }
         public List<CartItem> getItems() { return items; }
-        public double getTotalAmount() { return totalAmount; }
+        public long getTotalCents() { return totalCents; }
         public LocalDateTime getOrderDateTime() { return orderDateTime; }
 
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("orderNumber", orderNumber);
+            fields.put("customerName", customerName);
+            fields.put("tableName", tableName);
+            fields.put("items", items);
+            fields.put("totalAmount", Money.toDouble(totalCents));
+            fields.put("orderDateTime", orderDateTime);
+            out.writeFields();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            orderNumber = fields.get("orderNumber", 0);
+            customerName = (String) fields.get("customerName", null);
+            tableName = (String) fields.get("tableName", null);
+            items = (List<CartItem>) fields.get("items", null);
+            totalCents = Money.fromDouble(fields.get("totalAmount", 0.0));
+            orderDateTime = (LocalDateTime) fields.get("orderDateTime", null);
+        }
+
         @Override
         public String toString() {
-            return "Order #" + orderNumber + " - " + customerName + " (Table: " + tableName + ") - $" + String.format("%.2f", totalAmount);
+            return "Order #" + orderNumber + " - " + customerName + " (Table: " + tableName + ") - $" + Money.format(totalCents);
         }
     }
 
-    // Custom cell renderer for the tableList to show reserved tables
+    // Custom cell renderer for the tableList to show seated and booked tables
     static class TableStatusCellRenderer extends DefaultListCellRenderer {
-        private Set<String> reservedTables;
+        private final OrderEngine engine;
 
-        public TableStatusCellRenderer(Set<String> reservedTables) {
-            this.reservedTables = reservedTables;
+        public TableStatusCellRenderer(OrderEngine engine) {
+            this.engine = engine;
         }
 
         @Override
@@ -152,11 +238,18 @@ public class MainFrame extends JFrame {
             Component c = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
             if (value instanceof String) {
                 String tableName = (String) value;
-                if (reservedTables.contains(tableName)) {
+                ReservationBook.Booking booking = engine.getBookingAt(tableName, LocalDateTime.now());
+                if (engine.isReserved(tableName)) {
                     c.setBackground(new Color(255, 200, 200)); // Light red for reserved
+                } else if (booking != null) {
+                    c.setBackground(new Color(255, 225, 170)); // Light orange for booked right now
                 } else {
                     c.setBackground(new Color(200, 230, 255)); // Light blue for free
                 }
+                if (booking != null) {
+                    setText(tableName + " - " + booking.getCustomerName() + " (" + booking.getPartySize() + ") until "
+                            + ReservationBook.TIME_FORMAT.format(booking.getEnd()));
+                }
                 if (isSelected) {
                     // Darken the background color if selected, while preserving the reserved/free color
                     Color currentBg = c.getBackground();
@@ -170,19 +263,135 @@ public class MainFrame extends JFrame {
     }
 
     // FileManager class for handling data persistence
+    // Every save and load is recorded as a DiningEvents file event with its duration and size.
+    // Files are written with the binary OrderCodec format; the old Java-serialized .ser files are only read,
+    // as a fallback when the new file does not exist yet
     static class FileManager {
 
-        // Saves a list of objects to a specified file using serialization
-        public static <T> void saveToFile(List<T> data, String filename) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-                oos.writeObject(data);
-                System.out.println("Data saved to " + filename);
-            } catch (IOException e) {
-                System.err.println("Error saving data to " + filename + ": " + e.getMessage());
+        // Saves the menu items to a specified file; returns false if the file could not be written
+        public static boolean saveMenuToFile(List<MenuItem> data, String filename) {
+            return DiningEvents.save(filename, () -> {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+                    OrderCodec.writeMenu(data, out);
+                    System.out.println("Data saved to " + filename);
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Error saving data to " + filename + ": " + e.getMessage());
+                    return false;
+                }
+            });
+        }
+
+        // Loads the menu items from a specified file, falling back to the legacy file
+        public static List<MenuItem> loadMenuFromFile(String filename, String legacyFilename) {
+            return DiningEvents.load(filename, legacyFilename, () -> {
+                if (!new File(filename).exists()) {
+                    return loadFromFile(legacyFilename);
+                }
+                try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+                    return OrderCodec.readMenu(in);
+                } catch (IOException e) {
+                    System.err.println("Error loading data from " + filename + ": " + e.getMessage());
+                    return new ArrayList<>();
+                }
+            });
+        }
+
+        // Saves a Set of strings to a specified file
+        public static boolean saveSetToFile(Set<String> data, String filename) {
+            return DiningEvents.save(filename, () -> {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+                    OrderCodec.writeStrings(data, out);
+                    System.out.println("Set data saved to " + filename);
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Error saving set data to " + filename + ": " + e.getMessage());
+                    return false;
+                }
+            });
+        }
+
+        // Loads a Set of strings from a specified file, falling back to the legacy file
+        public static Set<String> loadSetFromFile(String filename, String legacyFilename) {
+            if (!new File(filename).exists()) {
+                return DiningEvents.load(legacyFilename, null, () -> loadLegacySetFromFile(legacyFilename));
             }
+            return loadSetFromFile(filename);
         }
 
-        // Loads a list of objects from a specified file using deserialization
+        // Loads a set saved by saveSetToFile, for files that have no legacy format
+        public static Set<String> loadSetFromFile(String filename) {
+            return DiningEvents.load(filename, null, () -> {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+                    return OrderCodec.readStrings(in);
+                } catch (IOException e) {
+                    System.err.println("Error loading set data from " + filename + ": " + e.getMessage());
+                    return new HashSet<>();
+                }
+            });
+        }
+
+        // Saves table seats and bookings; returns false if the file could not be written
+        public static boolean saveReservationsToFile(ReservationBook.Snapshot reservations, String filename) {
+            return DiningEvents.save(filename, () -> {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+                    OrderCodec.writeReservations(reservations, out);
+                    System.out.println("Reservations saved to " + filename);
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Error saving reservations to " + filename + ": " + e.getMessage());
+                    return false;
+                }
+            });
+        }
+
+        // Loads table seats and bookings; a missing or unreadable file gives an empty book
+        public static ReservationBook.Snapshot loadReservationsFromFile(String filename) {
+            return DiningEvents.load(filename, null, () -> {
+                if (!new File(filename).exists()) {
+                    return new ReservationBook.Snapshot(new HashMap<>(), new ArrayList<>());
+                }
+                try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+                    return OrderCodec.readReservations(in);
+                } catch (IOException e) {
+                    System.err.println("Error loading reservations from " + filename + ": " + e.getMessage());
+                    return new ReservationBook.Snapshot(new HashMap<>(), new ArrayList<>());
+                }
+            });
+        }
+
+        // Saves an AtomicInteger to a file
+        public static boolean saveAtomicInteger(AtomicInteger counter, String filename) {
+            return DiningEvents.save(filename, () -> {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+                    OrderCodec.writeCounter(counter.get(), out); // Save the integer value
+                    System.out.println("AtomicInteger saved to " + filename);
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Error saving AtomicInteger to " + filename + ": " + e.getMessage());
+                    return false;
+                }
+            });
+        }
+
+        // Loads an AtomicInteger from a file, falling back to the legacy file
+        public static AtomicInteger loadAtomicInteger(String filename, String legacyFilename, int defaultValue) {
+            return DiningEvents.load(filename, legacyFilename, () -> {
+                if (!new File(filename).exists()) {
+                    return loadLegacyAtomicInteger(legacyFilename, defaultValue);
+                }
+                try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+                    AtomicInteger counter = new AtomicInteger(OrderCodec.readCounter(in));
+                    System.out.println("AtomicInteger loaded from " + filename);
+                    return counter;
+                } catch (IOException e) {
+                    System.err.println("Error loading AtomicInteger from " + filename + ": " + e.getMessage());
+                    return new AtomicInteger(defaultValue);
+                }
+            });
+        }
+
+        // Loads a list of objects from a legacy file using deserialization
         @SuppressWarnings("unchecked") // Suppress unchecked cast warning
         public static <T> List<T> loadFromFile(String filename) {
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
@@ -196,19 +405,9 @@ public class MainFrame extends JFrame {
             }
         }
 
-        // Saves a Set of strings to a specified file
-        public static void saveSetToFile(Set<String> data, String filename) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-                oos.writeObject(data);
-                System.out.println("Set data saved to " + filename);
-            } catch (IOException e) {
-                System.err.println("Error saving set data to " + filename + ": " + e.getMessage());
-            }
-        }
-
-        // Loads a Set of strings from a specified file
+        // Loads a Set of strings from a legacy file
         @SuppressWarnings("unchecked")
-        public static Set<String> loadSetFromFile(String filename) {
+        private static Set<String> loadLegacySetFromFile(String filename) {
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
                 return (Set<String>) ois.readObject();
             } catch (FileNotFoundException e) {
@@ -220,18 +419,8 @@ public class MainFrame extends JFrame {
             }
         }
 
-        // Saves an AtomicInteger to a file
-        public static void saveAtomicInteger(AtomicInteger counter, String filename) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-                oos.writeObject(counter.get()); // Save the integer value
-                System.out.println("AtomicInteger saved to " + filename);
-            } catch (IOException e) {
-                System.err.println("Error saving AtomicInteger to " + filename + ": " + e.getMessage());
-            }
-        }
-
-        // Loads an AtomicInteger from a file
-        public static AtomicInteger loadAtomicInteger(String filename, int defaultValue) {
+        // Loads an AtomicInteger from a legacy file
+        private static AtomicInteger loadLegacyAtomicInteger(String filename, int defaultValue) {
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
                 Integer loadedValue = (Integer) ois.readObject();
                 System.out.println("AtomicInteger loaded from " + filename);
@@ -247,7 +436,14 @@ public class MainFrame extends JFrame {
     }
 
 
+    // Shows the window at once while the shared engine loads in the background
     public MainFrame() {
+        this(OrderEngine.startShared());
+    }
+
+    public MainFrame(OrderEngine engine) {
+        long start = System.nanoTime();
+        this.engine = engine;
         setTitle("SmartDine – Restaurant Order and Table Management System");
         setSize(1200, 700); // Increased size for more content
         setDefaultCloseOperation(EXIT_ON_CLOSE); // Changed to DO_NOTHING_ON_CLOSE to handle saving
@@ -257,25 +453,33 @@ public class MainFrame extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                saveAllData();
+                occupancyTimer.stop();
+                if (kitchenDisplay != null) {
+                    kitchenDisplay.dispose();
+                }
+                engine.removeChangeListener(engineChangeListener);
+                engine.removeErrorListener(engineErrorListener);
+                engine.getPersistenceScheduler().removeListener(saveResultListener);
+                engine.close(); // Writes the final state before closing the files
                 dispose(); // Close the frame after saving
             }
         });
 
         initUI(); // Initialize UI components first
-        loadAllData(); // Then load data, which will populate the initialized components
-
-        // Ensure the bills directory exists
-        File billsDir = new File(BILLS_DIRECTORY);
-        if (!billsDir.exists()) {
-            billsDir.mkdirs();
-        }
+        engine.addChangeListener(engineChangeListener); // Follow changes made by other terminals
+        engine.addErrorListener(engineErrorListener);
+        engine.getPersistenceScheduler().addListener(saveResultListener);
+        refreshFromEngine(); // Then populate the initialized components from the engine
 
         setVisible(true);
+        if (!engine.whenLoaded().isDone()) {
+            awaitLoad(engine.whenLoaded(), start); // Takes input once the engine's data is in
+        }
     }
 
     private void initUI() {
         setLayout(new BorderLayout());
+        setGlassPane(createLoadingPane());
 
         JMenuBar menuBar = new JMenuBar();
         JMenu fileMenu = new JMenu("File");
@@ -283,17 +487,20 @@ public class MainFrame extends JFrame {
         JMenuItem saveData = new JMenuItem("Save Data");
         JMenuItem loadData = new JMenuItem("Load Data"); // New menu item for loading
         JMenuItem viewPastOrders = new JMenuItem("View Past Orders"); // New menu item for viewing past orders
+        JMenuItem kitchenScreen = new JMenuItem("Kitchen Display");
 
         adminSettings.addActionListener(e -> showAdminSettings());
         saveData.addActionListener(e -> saveAllData());
         loadData.addActionListener(e -> loadAllData()); // Add action listener for loading
         viewPastOrders.addActionListener(e -> showPastOrdersSearchDialog()); // Action listener for new menu item
+        kitchenScreen.addActionListener(e -> showKitchenDisplay());
 
         fileMenu.add(adminSettings);
         fileMenu.addSeparator(); // Separator for better organization
         fileMenu.add(saveData);
         fileMenu.add(loadData);
         fileMenu.add(viewPastOrders); // Add the new menu item
+        fileMenu.add(kitchenScreen);
         menuBar.add(fileMenu);
         setJMenuBar(menuBar);
 
@@ -310,9 +517,11 @@ public class MainFrame extends JFrame {
         leftPanel.add(tableLabel, BorderLayout.NORTH);
 
         tableListModel = new DefaultListModel<>();
-        // Table list will be populated by loadAllData()
+        // Table list will be populated once the engine has loaded
         tableList = new JList<>(tableListModel);
-        tableList.setCellRenderer(new TableStatusCellRenderer(reservedTables)); // Set custom renderer
+        tableList.setCellRenderer(new TableStatusCellRenderer(engine)); // Set custom renderer
+        occupancyTimer = new Timer(OCCUPANCY_REFRESH_MS, e -> tableList.repaint());
+        occupancyTimer.start();
         tableList.setBackground(new Color(200, 230, 255));
         tableList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // Ensure only one table can be selected
 
@@ -323,9 +532,11 @@ public class MainFrame extends JFrame {
         JButton reserveButton = new JButton("Reserve Table");
         JButton freeButton = new JButton("Free Table");
         JButton addTableButton = new JButton("Add Table"); // New button for adding tables
+        JButton bookButton = new JButton("Bookings");
         tableButtonPanel.add(reserveButton);
         tableButtonPanel.add(freeButton);
         tableButtonPanel.add(addTableButton); // Add new button
+        tableButtonPanel.add(bookButton);
         leftPanel.add(tableButtonPanel, BorderLayout.SOUTH);
 
         // On table selection, update currentReservedTable only if reserved
@@ -335,7 +546,7 @@ public class MainFrame extends JFrame {
                 if (!e.getValueIsAdjusting()) {
                     String selected = tableList.getSelectedValue();
                     if (selected != null) {
-                        if (reservedTables.contains(selected)) {
+                        if (engine.isReserved(selected)) {
                             currentReservedTable = selected;
                         } else {
                             currentReservedTable = null; // Don't allow adding to cart for unreserved tables
@@ -343,6 +554,7 @@ public class MainFrame extends JFrame {
                     } else {
                         currentReservedTable = null;
                     }
+                    refreshCart();
                     updateAddToCartButtonState();
                 }
             }
@@ -355,14 +567,14 @@ public class MainFrame extends JFrame {
                 return;
             }
 
-            if (reservedTables.contains(selectedTable)) {
+            if (!engine.reserveTable(selectedTable)) {
                 JOptionPane.showMessageDialog(this, selectedTable + " is already reserved.");
             } else {
-                reservedTables.add(selectedTable);
                 currentReservedTable = selectedTable;
                 tableList.repaint(); // Repaint to update color
                 JOptionPane.showMessageDialog(this, selectedTable + " is now reserved.");
             }
+            refreshCart();
             updateAddToCartButtonState();
         });
 
@@ -373,8 +585,7 @@ public class MainFrame extends JFrame {
                 return;
             }
 
-            if (reservedTables.contains(selectedTable)) {
-                reservedTables.remove(selectedTable);
+            if (engine.freeTable(selectedTable)) {
                 tableList.repaint(); // Repaint to update color
                 JOptionPane.showMessageDialog(this, selectedTable + " reservation has been cancelled.");
                 if (selectedTable.equals(currentReservedTable)) {
@@ -383,21 +594,38 @@ public class MainFrame extends JFrame {
             } else {
                 JOptionPane.showMessageDialog(this, selectedTable + " is not currently reserved.");
             }
+            refreshCart();
             updateAddToCartButtonState();
         });
 
         addTableButton.addActionListener(e -> {
             String newTableName = JOptionPane.showInputDialog(this, "Enter new table name:");
             if (newTableName != null && !newTableName.trim().isEmpty()) {
-                if (tableListModel.contains(newTableName.trim())) {
+                String seatsStr = JOptionPane.showInputDialog(this, "Seats at " + newTableName.trim() + ":", ReservationBook.DEFAULT_SEATS);
+                if (seatsStr == null) {
+                    return;
+                }
+                int seats;
+                try {
+                    seats = Integer.parseInt(seatsStr.trim());
+                    if (seats <= 0) {
+                        throw new NumberFormatException();
+                    }
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(this, "Seats must be a positive number.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (!engine.addTable(newTableName.trim(), seats)) {
                     JOptionPane.showMessageDialog(this, "Table with this name already exists.");
                 } else {
-                    tableListModel.addElement(newTableName.trim());
+                    refreshTables();
                     JOptionPane.showMessageDialog(this, newTableName.trim() + " added successfully.");
                 }
             }
         });
 
+        bookButton.addActionListener(e -> showBookingDialog());
+
         add(leftPanel, BorderLayout.WEST);
 
         // Center Panel: Menu
@@ -408,12 +636,14 @@ public class MainFrame extends JFrame {
         searchField = new JTextField(20);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void insertUpdate(DocumentEvent e) { filterMenu(); }
+            public void insertUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
             @Override
-            public void removeUpdate(DocumentEvent e) { filterMenu(); }
+            public void removeUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
             @Override
-            public void changedUpdate(DocumentEvent e) { filterMenu(); }
+            public void changedUpdate(DocumentEvent e) { searchDebounceTimer.restart(); }
         });
+        searchDebounceTimer = new Timer(SEARCH_DEBOUNCE_MS, e -> filterMenu()); // Search once typing pauses
+        searchDebounceTimer.setRepeats(false);
         categoryComboBox = new JComboBox<>(new String[]{"All", "Appetizers", "Main Course", "Dessert", "Drinks"});
         categoryComboBox.addActionListener(e -> filterMenu());
 
@@ -423,18 +653,13 @@ public class MainFrame extends JFrame {
         menuFilterPanel.add(categoryComboBox);
         centerPanel.add(menuFilterPanel, BorderLayout.NORTH);
 
-        String[] columns = {"Item", "Category", "Price"};
-        menuModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make menu table non-editable
-            }
-        };
+        menuModel = new MenuTableModel(engine.getMenuSearchIndex()); // Rows are read from the menu on demand
         menuTable = new JTable(menuModel);
+        IndexedTableModel.installHeaderSorting(menuTable, menuModel);
         menuTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         centerPanel.add(new JScrollPane(menuTable), BorderLayout.CENTER);
 
-        // filterMenu() will be called by loadAllData()
+        // filterMenu() will be called once the engine has loaded
 
         // Buttons for Add/Remove to/from Cart
         JPanel buttonPanel = new JPanel();
@@ -456,11 +681,8 @@ public class MainFrame extends JFrame {
 
             int selectedRow = menuTable.getSelectedRow();
             if (selectedRow != -1) {
-                String itemName = menuModel.getValueAt(selectedRow, 0).toString();
-                String itemCategory = menuModel.getValueAt(selectedRow, 1).toString();
-                double itemPrice = Double.parseDouble(menuModel.getValueAt(selectedRow, 2).toString());
-
-                MenuItem selectedMenuItem = new MenuItem(itemName, itemCategory, itemPrice);
+                MenuItem selectedMenuItem = menuModel.getItemAt(selectedRow);
+                String itemName = selectedMenuItem.getName();
 
                 String quantityStr = JOptionPane.showInputDialog(this, "Enter quantity for " + itemName + ":", "Quantity", JOptionPane.QUESTION_MESSAGE);
                 int quantity = 1; // Default quantity
@@ -477,21 +699,13 @@ public class MainFrame extends JFrame {
                     }
                 }
 
-                // Check if item already exists in cart, if so, update quantity
-                boolean found = false;
-                for (int i = 0; i < cartModel.size(); i++) {
-                    CartItem existingItem = cartModel.getElementAt(i);
-                    if (existingItem.getMenuItem().getName().equals(selectedMenuItem.getName())) {
-                        existingItem.setQuantity(existingItem.getQuantity() + quantity);
-                        cartModel.setElementAt(existingItem, i); // Update the element in the model
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    cartModel.addElement(new CartItem(selectedMenuItem, quantity));
+                // The engine merges the quantity into an existing line for the same item
+                try {
+                    engine.addToCart(currentReservedTable, selectedMenuItem, quantity);
+                } catch (IllegalStateException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage());
                 }
-                updateBillTotal(); // Call to update total
+                refreshCart(); // Also updates the total
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an item from the menu to add to cart.");
             }
@@ -499,9 +713,9 @@ public class MainFrame extends JFrame {
 
         removeFromCartButton.addActionListener(e -> {
             int selectedIndex = cartList.getSelectedIndex();
-            if (selectedIndex != -1) {
-                cartModel.remove(selectedIndex);
-                updateBillTotal(); // Call to update total
+            if (selectedIndex != -1 && currentReservedTable != null) {
+                engine.removeFromCart(currentReservedTable, selectedIndex);
+                refreshCart(); // Also updates the total
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an item from the cart to remove.");
             }
@@ -556,54 +770,56 @@ public class MainFrame extends JFrame {
                 return;
             }
 
-            int orderNumber = orderCounter.getAndIncrement();
-            double totalAmount = calculateBillTotal();
-
-            // Create a new list to hold cart items for the order
-            List<CartItem> orderItems = new ArrayList<>();
-            for (int i = 0; i < cartModel.size(); i++) {
-                orderItems.add(cartModel.getElementAt(i));
-            }
-
-            // Create a new Order object and add it to allOrders
-            Order newOrder = new Order(orderNumber, customerName, currentReservedTable,
-                    orderItems, // Use the new list of cart items
-                    totalAmount, LocalDateTime.now());
-            allOrders.add(newOrder);
-
-            StringBuilder bill = new StringBuilder();
-            bill.append("--- SmartDine Bill ---\n\n");
-            bill.append("Order Number: ").append(orderNumber).append("\n");
-            bill.append("Table: ").append(currentReservedTable).append("\n");
-            bill.append("Customer: ").append(customerName).append("\n");
-            bill.append("Date: ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n\n");
-            bill.append("Items:\n");
-            for (CartItem item : newOrder.getItems()) { // Use items from the new Order object
-                bill.append(String.format("- %-25s x %-3d $%.2f\n", item.getMenuItem().getName(), item.getQuantity(), item.getTotalPrice()));
-            }
-            bill.append("\n-----------------------------------\n");
-            bill.append(String.format("Total: $%.2f\n", totalAmount));
-            bill.append("-----------------------------------\n");
-            bill.append("Thank you for dining with SmartDine!\n");
+            // The engine creates the order from the table's cart, frees the table and saves the order and bill.
+            // That journals the order to disk and may wait for room at the kitchen, so it runs off the EDT.
+            String billedTable = currentReservedTable;
+            generateBillButton.setEnabled(false);
+            new SwingWorker<Order, Void>() {
+                @Override
+                protected Order doInBackground() {
+                    return engine.generateBill(billedTable, customerName);
+                }
 
-            // Save the bill to an individual file
-            saveBillToFile(orderNumber, bill.toString());
+                @Override
+                protected void done() {
+                    generateBillButton.setEnabled(true);
+                    Order newOrder;
+                    try {
+                        newOrder = get();
+                    } catch (ExecutionException ex) {
+                        if (ex.getCause() instanceof IllegalStateException) {
+                            JOptionPane.showMessageDialog(MainFrame.this, ex.getCause().getMessage());
+                        } else {
+                            System.err.println("Error generating the bill: " + ex.getCause());
+                            JOptionPane.showMessageDialog(MainFrame.this, "Generating the bill failed: " + ex.getCause().getMessage(),
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                        return;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
 
-            JOptionPane.showMessageDialog(this, bill.toString(), "Bill Summary", JOptionPane.INFORMATION_MESSAGE);
+                    String bill = OrderEngine.buildBillText(newOrder);
+                    JOptionPane.showMessageDialog(MainFrame.this, bill, "Bill Summary", JOptionPane.INFORMATION_MESSAGE);
 
-            // Clear cart and customer name after generating bill
-            cartModel.clear();
-            customerNameField.setText("");
+                    // Another table may have been selected while the bill was being made; leave that one alone
+                    if (currentReservedTable != null && !currentReservedTable.equals(billedTable)) {
+                        return;
+                    }
 
-            // Free the table after billing
-            reservedTables.remove(currentReservedTable);
+                    // Clear cart and customer name after generating bill
+                    cartModel.clear();
+                    customerNameField.setText("");
 
-            currentReservedTable = null; // Clear the current table selection
-            tableList.clearSelection(); // Clear table selection in the list
-            tableList.repaint(); // Repaint to update table color if currentReservedTable was freed
+                    currentReservedTable = null; // Clear the current table selection
+                    tableList.clearSelection(); // Clear table selection in the list
+                    tableList.repaint(); // Repaint to update table color if currentReservedTable was freed
 
-            updateBillTotal(); // Reset total to 0.00 after clearing cart
-            updateAddToCartButtonState(); // Disable add to cart button
+                    updateBillTotal(); // Reset total to 0.00 after clearing cart
+                    updateAddToCartButtonState(); // Disable add to cart button
+                }
+            }.execute();
         });
 
         rightPanel.add(nameLabel);
@@ -618,6 +834,11 @@ public class MainFrame extends JFrame {
 
         add(rightPanel, BorderLayout.EAST);
 
+        // --- Status Bar ---
+        statusLabel = new JLabel(" ");
+        statusLabel.setBorder(new EmptyBorder(2, 10, 2, 10));
+        add(statusLabel, BorderLayout.SOUTH);
+
         // Initial update for bill total and add to cart button state
         updateBillTotal();
         updateAddToCartButtonState();
@@ -627,137 +848,381 @@ public class MainFrame extends JFrame {
         addToCartButton.setEnabled(currentReservedTable != null);
     }
 
-    private void loadMenuItemsDefault() {
-        // Add default menu items if no data is loaded from file
-        allMenuItems.add(new MenuItem("Burger", "Main Course", 5.99));
-        allMenuItems.add(new MenuItem("Fries", "Appetizers", 2.99));
-        allMenuItems.add(new MenuItem("Coke", "Drinks", 1.50));
-        allMenuItems.add(new MenuItem("Ice Cream", "Dessert", 3.25));
-        allMenuItems.add(new MenuItem("Pizza (Large)", "Main Course", 12.50));
-        allMenuItems.add(new MenuItem("Salad (Caesar)", "Appetizers", 4.75));
-        allMenuItems.add(new MenuItem("Lemonade", "Drinks", 2.00));
-        allMenuItems.add(new MenuItem("Cheesecake", "Dessert", 4.00));
-    }
-
+    // Runs the menu query on a background thread and shows the matching positions in a single table update
     private void filterMenu() {
-        menuModel.setRowCount(0); // Clear current table
+        long start = System.nanoTime();
+        searchDebounceTimer.stop();
+        if (menuSearchWorker != null) {
+            menuSearchWorker.cancel(true); // Results of a stale query are never applied
+        }
         String selectedCategory = (String) categoryComboBox.getSelectedItem();
-        String searchText = searchField.getText().trim().toLowerCase();
+        String searchText = searchField.getText();
 
-        for (MenuItem item : allMenuItems) {
-            boolean categoryMatch = (selectedCategory.equals("All") || item.getCategory().equals(selectedCategory));
-            boolean searchMatch = (searchText.isEmpty() || item.getName().toLowerCase().contains(searchText));
+        SwingWorker<int[], Void> worker = new SwingWorker<int[], Void>() {
+            private MenuSearchIndex index;
 
-            if (categoryMatch && searchMatch) {
-                menuModel.addRow(new Object[]{item.getName(), item.getCategory(), String.format("%.2f", item.getPrice())});
+            @Override
+            protected int[] doInBackground() {
+                index = engine.getMenuSearchIndex();
+                return index.query(searchText, selectedCategory);
             }
-        }
-    }
 
-    // This method calculates the total bill and updates the totalBillLabel
-    private double updateBillTotal() {
-        double total = 0.0;
-        for (int i = 0; i < cartModel.size(); i++) {
-            CartItem item = cartModel.getElementAt(i);
-            total += item.getTotalPrice();
-        }
-        totalBillLabel.setText(String.format("Total: $%.2f", total));
-        return total;
+            @Override
+            protected void done() {
+                if (isCancelled() || menuSearchWorker != this) {
+                    return;
+                }
+                try {
+                    menuModel.setMenu(index, get()); // One table event for the whole result
+                    FILTER_MENU_TIME.recordSince(start); // Until the user sees the result
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error searching the menu: " + e.getMessage());
+                }
+            }
+        };
+        menuSearchWorker = worker;
+        worker.execute();
     }
 
-    // This method is specifically for the Generate Bill button to get the final total
-    private double calculateBillTotal() {
-        return updateBillTotal(); // Simply re-use the update method
+    // Shows the running total the engine keeps for the current table's cart
+    private long updateBillTotal() {
+        long totalCents = currentReservedTable == null ? 0 : engine.getCartTotal(currentReservedTable);
+        totalBillLabel.setText("Total: $" + Money.format(totalCents));
+        return totalCents;
     }
 
-    private void saveAllData() {
-        FileManager.saveToFile(allMenuItems, MENU_FILE);
-        FileManager.saveSetToFile(reservedTables, TABLES_FILE);
-        FileManager.saveToFile(allOrders, ORDERS_FILE);
-        FileManager.saveAtomicInteger(orderCounter, ORDER_COUNTER_FILE);
-        JOptionPane.showMessageDialog(this, "All data saved successfully!");
+    // Shows the cart of the current reserved table
+    private void refreshCart() {
+        cartModel.clear();
+        if (currentReservedTable != null) {
+            for (CartItem item : engine.getCart(currentReservedTable)) {
+                cartModel.addElement(item);
+            }
+        }
+        updateBillTotal();
     }
 
-    private void loadAllData() {
-        allMenuItems = FileManager.loadFromFile(MENU_FILE);
-        if (allMenuItems.isEmpty()) {
-            loadMenuItemsDefault(); // Load default if no data was found
-        }
-        reservedTables = FileManager.loadSetFromFile(TABLES_FILE);
-        allOrders = FileManager.loadFromFile(ORDERS_FILE);
-        orderCounter = FileManager.loadAtomicInteger(ORDER_COUNTER_FILE, 1000); // Load with default if not found
-
-        // Populate table list model
-        tableListModel.clear();
-        for (int i = 1; i <= 10; i++) { // Assuming initial tables T1 to T10, adjust as needed
-            tableListModel.addElement("T" + i);
+    // Rebuilds the table list from the engine, keeping the current selection
+    private void refreshTables() {
+        List<String> tables = engine.getTables();
+        boolean changed = tables.size() != tableListModel.size();
+        for (int i = 0; !changed && i < tables.size(); i++) {
+            changed = !tables.get(i).equals(tableListModel.getElementAt(i));
         }
-        // Add any tables loaded from file that aren't already in the model (e.g., if new tables were added via admin)
-        for (String reservedTable : reservedTables) {
-            if (!tableListModel.contains(reservedTable)) {
-                tableListModel.addElement(reservedTable);
+        if (changed) {
+            String selected = tableList.getSelectedValue();
+            tableListModel.clear();
+            for (String table : tables) {
+                tableListModel.addElement(table);
             }
-        }
-        // Also ensure all tables from previous orders are in the tableListModel in case of data corruption/manual deletion
-        for(Order order : allOrders) {
-            if (!tableListModel.contains(order.getTableName())) {
-                tableListModel.addElement(order.getTableName());
+            if (selected != null) {
+                tableList.setSelectedValue(selected, true);
             }
         }
-        // Sort the table list for better presentation
-        List<String> sortedTables = new ArrayList<>();
-        for (int i = 0; i < tableListModel.size(); i++) {
-            sortedTables.add(tableListModel.getElementAt(i));
+        tableList.repaint(); // Reservation colors may have changed
+    }
+
+    // Brings the whole window in line with the engine after this or another terminal changed it
+    private void refreshFromEngine() {
+        refreshTables();
+        if (currentReservedTable != null && !engine.isReserved(currentReservedTable)) {
+            currentReservedTable = null; // Billed or freed from another terminal
         }
-        sortedTables.sort(null); // Natural order sorting
-        tableListModel.clear();
-        for (String table : sortedTables) {
-            tableListModel.addElement(table);
+        refreshCart();
+        long menuVersion = engine.getMenuVersion();
+        if (menuVersion != filteredMenuVersion) { // Carts and tables change far more often than the menu
+            filteredMenuVersion = menuVersion;
+            filterMenu();
         }
+        updateAddToCartButtonState();
+    }
 
-        filterMenu(); // Re-populate menu table after loading menu items
-        JOptionPane.showMessageDialog(this, "All data loaded successfully!");
+    // Saving happens on the persistence thread; the status bar shows when it is done
+    private void saveAllData() {
+        engine.requestSave();
+        statusLabel.setText("Saving...");
     }
 
-    private void saveBillToFile(int orderNumber, String billContent) {
-        File billsDir = new File(BILLS_DIRECTORY);
-        if (!billsDir.exists()) {
-            billsDir.mkdirs(); // Create the directory if it doesn't exist
+    private void showSaveResult(PersistenceScheduler.SaveResult result) {
+        PersistenceScheduler scheduler = engine.getPersistenceScheduler();
+        if (result.isSuccess()) {
+            statusLabel.setForeground(Color.DARK_GRAY);
+            statusLabel.setText("All data saved at " + LocalDateTime.now().format(STATUS_TIME_FORMAT));
+        } else {
+            statusLabel.setForeground(Color.RED);
+            statusLabel.setText("Saving data failed at " + LocalDateTime.now().format(STATUS_TIME_FORMAT)
+                    + ". Check the console for details.");
         }
+        statusLabel.setToolTipText(String.format(
+                "Last write %.1f ms (avg %.1f ms, max %.1f ms), %d writes, %d failed, %d requests coalesced, %d queued",
+                result.getLatencyNanos() / 1e6, scheduler.getAverageWriteNanos() / 1e6, scheduler.getMaxWriteNanos() / 1e6,
+                scheduler.getCompletedWrites(), scheduler.getFailedWrites(), scheduler.getCoalescedRequests(),
+                scheduler.getQueueDepth()));
+    }
+
+    // Loading happens on a background thread; the window takes no input until it is done
+    private void loadAllData() {
+        awaitLoad(engine.loadAllDataAsync(), System.nanoTime());
+    }
+
+    // Blocks input with the loading pane until the load completes, then re-populates the window
+    private void awaitLoad(CompletableFuture<Void> load, long start) {
+        Component loadingPane = getGlassPane();
+        loadingPane.setVisible(true);
+        loadingPane.requestFocusInWindow(); // So keys go nowhere either
+        statusLabel.setForeground(Color.DARK_GRAY);
+        statusLabel.setText("Loading data...");
+        interactive = load.handleAsync((ignored, failure) -> {
+            loadingPane.setVisible(false);
+            refreshFromEngine(); // Re-populate tables, cart and menu after loading
+            TIME_TO_INTERACTIVE.recordSince(start);
+            if (failure == null) {
+                statusLabel.setText(String.format("All data loaded in %.0f ms", (System.nanoTime() - start) / 1e6));
+            } else {
+                System.err.println("Error loading data: " + failure.getMessage());
+                statusLabel.setForeground(Color.RED);
+                statusLabel.setText("Loading data failed. Check the console for details.");
+                JOptionPane.showMessageDialog(this, "Loading data failed: " + failure.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return null;
+        }, SwingUtilities::invokeLater);
+    }
+
+    // Completes on the EDT once the window takes input, i.e. after the latest load it waited for
+    CompletableFuture<Void> whenInteractive() {
+        return interactive;
+    }
 
-        String filename = BILLS_DIRECTORY + File.separator + "order_" + orderNumber + ".txt";
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            writer.write(billContent);
-            System.out.println("Bill for order #" + orderNumber + " saved to " + filename);
-        } catch (IOException e) {
-            System.err.println("Error saving bill to file: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, "Error saving bill to file: " + e.getMessage(), "File Save Error", JOptionPane.ERROR_MESSAGE);
+    // Covers the window while data loads: swallows mouse and key input and shows a wait cursor
+    private static JComponent createLoadingPane() {
+        JPanel pane = new JPanel(new GridBagLayout());
+        pane.setOpaque(false);
+        JLabel label = new JLabel("Loading data...");
+        label.setFont(new Font("SansSerif", Font.BOLD, 16));
+        pane.add(label);
+        pane.addMouseListener(new MouseAdapter() { }); // Any mouse listener keeps clicks from the components below
+        pane.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                e.consume();
+            }
+        });
+        pane.setFocusable(true);
+        pane.setFocusTraversalKeysEnabled(false); // Tab must not move focus out from under it
+        pane.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        return pane;
+    }
+
+    // Opens the kitchen display, or brings the open one to the front.
+    // One display takes the tickets; a second one would split them with the first
+    private void showKitchenDisplay() {
+        if (kitchenDisplay != null && kitchenDisplay.isDisplayable()) {
+            kitchenDisplay.toFront();
+            return;
         }
+        kitchenDisplay = new KitchenDisplay(engine.getKitchen());
     }
 
+    // Books tables for later: finds the tables free for a party and time slot, and lists upcoming bookings
+    private void showBookingDialog() {
+        JDialog bookingDialog = new JDialog(this, "Table Bookings", true);
+        bookingDialog.setSize(700, 450);
+        bookingDialog.setLocationRelativeTo(this);
+        bookingDialog.setLayout(new BorderLayout(10, 10));
+        ((JComponent) bookingDialog.getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        LocalDateTime nextHour = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).plusHours(1);
+        JTextField customerField = new JTextField(15);
+        JSpinner partySpinner = new JSpinner(new SpinnerNumberModel(2, 1, 100, 1));
+        JTextField dateField = new JTextField(nextHour.toLocalDate().toString(), 10);
+        JTextField fromField = new JTextField(nextHour.toLocalTime().toString(), 5);
+        JTextField toField = new JTextField(nextHour.plusHours(2).toLocalTime().toString(), 5);
+        JPanel formPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        formPanel.add(new JLabel("Customer Name:"));
+        formPanel.add(customerField);
+        formPanel.add(new JLabel("Party Size:"));
+        formPanel.add(partySpinner);
+        formPanel.add(new JLabel("Date (yyyy-mm-dd):"));
+        formPanel.add(dateField);
+        formPanel.add(new JLabel("From (hh:mm):"));
+        formPanel.add(fromField);
+        formPanel.add(new JLabel("To (hh:mm):"));
+        formPanel.add(toField);
+        bookingDialog.add(formPanel, BorderLayout.NORTH);
+
+        DefaultListModel<String> freeTablesModel = new DefaultListModel<>();
+        JList<String> freeTablesList = new JList<>(freeTablesModel);
+        freeTablesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        JButton findButton = new JButton("Find Free Tables");
+        JButton bookTableButton = new JButton("Book Selected Table");
+        JPanel freePanel = new JPanel(new BorderLayout(5, 5));
+        freePanel.setBorder(BorderFactory.createTitledBorder("Free Tables"));
+        freePanel.add(new JScrollPane(freeTablesList), BorderLayout.CENTER);
+        JPanel freeButtons = new JPanel(new FlowLayout());
+        freeButtons.add(findButton);
+        freeButtons.add(bookTableButton);
+        freePanel.add(freeButtons, BorderLayout.SOUTH);
+
+        DefaultListModel<ReservationBook.Booking> upcomingModel = new DefaultListModel<>();
+        JList<ReservationBook.Booking> upcomingList = new JList<>(upcomingModel);
+        upcomingList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        JButton cancelBookingButton = new JButton("Cancel Booking");
+        JPanel upcomingPanel = new JPanel(new BorderLayout(5, 5));
+        upcomingPanel.setBorder(BorderFactory.createTitledBorder("Upcoming Bookings (next " + UPCOMING_BOOKING_DAYS + " days)"));
+        upcomingPanel.add(new JScrollPane(upcomingList), BorderLayout.CENTER);
+        upcomingPanel.add(cancelBookingButton, BorderLayout.SOUTH);
+
+        JPanel listsPanel = new JPanel(new GridLayout(1, 2, 10, 10));
+        listsPanel.add(freePanel);
+        listsPanel.add(upcomingPanel);
+        bookingDialog.add(listsPanel, BorderLayout.CENTER);
+
+        Runnable refreshUpcoming = () -> {
+            upcomingModel.clear();
+            LocalDateTime now = LocalDateTime.now();
+            for (ReservationBook.Booking booking : engine.getBookingsStarting(now.minusHours(UPCOMING_BOOKING_PAST_HOURS), now.plusDays(UPCOMING_BOOKING_DAYS))) {
+                if (booking.getEnd().isAfter(now)) {
+                    upcomingModel.addElement(booking);
+                }
+            }
+        };
+        // Reads the slot from the form, or shows what is wrong with it and returns null
+        Supplier<LocalDateTime[]> readSlot = () -> {
+            try {
+                LocalDate date = LocalDate.parse(dateField.getText().trim());
+                LocalDateTime start = date.atTime(LocalTime.parse(fromField.getText().trim()));
+                LocalDateTime end = date.atTime(LocalTime.parse(toField.getText().trim()));
+                if (!end.isAfter(start)) {
+                    end = end.plusDays(1); // Runs past midnight
+                }
+                return new LocalDateTime[]{start, end};
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(bookingDialog, "Invalid date or time. Use yyyy-mm-dd and hh:mm.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+        };
+
+        findButton.addActionListener(e -> {
+            LocalDateTime[] slot = readSlot.get();
+            if (slot == null) {
+                return;
+            }
+            freeTablesModel.clear();
+            for (String table : engine.findFreeTables((Integer) partySpinner.getValue(), slot[0], slot[1])) {
+                freeTablesModel.addElement(table);
+            }
+            if (freeTablesModel.isEmpty()) {
+                JOptionPane.showMessageDialog(bookingDialog, "No table is free for this party and time.");
+            }
+        });
+
+        bookTableButton.addActionListener(e -> {
+            String table = freeTablesList.getSelectedValue();
+            String customerName = customerField.getText().trim();
+            if (table == null) {
+                JOptionPane.showMessageDialog(bookingDialog, "Please find and select a free table first.");
+                return;
+            }
+            if (customerName.isEmpty()) {
+                JOptionPane.showMessageDialog(bookingDialog, "Please enter a customer name.");
+                return;
+            }
+            LocalDateTime[] slot = readSlot.get();
+            if (slot == null) {
+                return;
+            }
+            try {
+                engine.bookTable(table, customerName, (Integer) partySpinner.getValue(), slot[0], slot[1]);
+            } catch (IllegalStateException | IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(bookingDialog, ex.getMessage()); // Taken by another terminal meanwhile
+                return;
+            }
+            freeTablesModel.removeElement(table);
+            refreshUpcoming.run();
+            tableList.repaint();
+            JOptionPane.showMessageDialog(bookingDialog, table + " booked for " + customerName + ".");
+        });
+
+        cancelBookingButton.addActionListener(e -> {
+            ReservationBook.Booking booking = upcomingList.getSelectedValue();
+            if (booking == null) {
+                JOptionPane.showMessageDialog(bookingDialog, "Please select a booking to cancel.");
+                return;
+            }
+            if (!engine.cancelBooking(booking.getId())) {
+                JOptionPane.showMessageDialog(bookingDialog, "This booking was already cancelled.");
+            }
+            refreshUpcoming.run();
+            tableList.repaint();
+        });
+
+        refreshUpcoming.run();
+        bookingDialog.setVisible(true);
+    }
+
+    // Looks up one bill by order number, or lists the orders matching customer, table, item and dates
+    // through the engine's search indexes; selecting a listed order shows its bill
     private void showPastOrdersSearchDialog() {
         JDialog searchDialog = new JDialog(this, "Search Past Orders", true);
-        searchDialog.setSize(400, 300);
+        searchDialog.setSize(800, 600);
         searchDialog.setLocationRelativeTo(this);
         searchDialog.setLayout(new BorderLayout(10, 10));
         ((JComponent) searchDialog.getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
 
-
-
-
         JPanel inputPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 5));
         JTextField orderNumberField = new JTextField(10);
         JButton searchButton = new JButton("Search Bill");
         inputPanel.add(new JLabel("Enter Order Number:"));
         inputPanel.add(orderNumberField);
         inputPanel.add(searchButton);
-        searchDialog.add(inputPanel, BorderLayout.NORTH);
+
+        JPanel criteriaPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JTextField customerField = new JTextField(10);
+        JTextField tableField = new JTextField(4);
+        JComboBox<String> itemComboBox = new JComboBox<>();
+        itemComboBox.setEditable(true);
+        itemComboBox.addItem("");
+        for (MenuItem item : engine.getMenuItems()) {
+            itemComboBox.addItem(item.getName());
+        }
+        JTextField fromField = new JTextField(LocalDate.now().minusDays(ORDER_SEARCH_DEFAULT_DAYS).toString(), 8);
+        JTextField toField = new JTextField(LocalDate.now().toString(), 8);
+        JButton findOrdersButton = new JButton("Find Orders");
+        criteriaPanel.add(new JLabel("Customer:"));
+        criteriaPanel.add(customerField);
+        criteriaPanel.add(new JLabel("Table:"));
+        criteriaPanel.add(tableField);
+        criteriaPanel.add(new JLabel("Item:"));
+        criteriaPanel.add(itemComboBox);
+        criteriaPanel.add(new JLabel("From:"));
+        criteriaPanel.add(fromField);
+        criteriaPanel.add(new JLabel("To:"));
+        criteriaPanel.add(toField);
+        criteriaPanel.add(findOrdersButton);
+
+        JPanel northPanel = new JPanel(new GridLayout(2, 1));
+        northPanel.add(inputPanel);
+        northPanel.add(criteriaPanel);
+        searchDialog.add(northPanel, BorderLayout.NORTH);
+
+        OrderHistoryTableModel resultsModel = new OrderHistoryTableModel(engine);
+        resultsModel.showPositions(new int[0]);
+        JTable resultsTable = new JTable(resultsModel);
+        resultsTable.getTableHeader().setReorderingAllowed(false);
+        resultsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        IndexedTableModel.installHeaderSorting(resultsTable, resultsModel);
+        JLabel resultsLabel = new JLabel("Blank fields match every order; dates are yyyy-MM-dd and may be blank.");
 
         JTextArea billDisplayArea = new JTextArea();
         billDisplayArea.setEditable(false);
         billDisplayArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        JScrollPane scrollPane = new JScrollPane(billDisplayArea);
-        searchDialog.add(scrollPane, BorderLayout.CENTER);
+
+        JPanel resultsPanel = new JPanel(new BorderLayout(5, 5));
+        resultsPanel.add(new JScrollPane(resultsTable), BorderLayout.CENTER);
+        resultsPanel.add(resultsLabel, BorderLayout.SOUTH);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, resultsPanel, new JScrollPane(billDisplayArea));
+        splitPane.setResizeWeight(0.5);
+        searchDialog.add(splitPane, BorderLayout.CENTER);
 
         searchButton.addActionListener(e -> {
             String orderNumStr = orderNumberField.getText().trim();
@@ -766,34 +1231,181 @@ public class MainFrame extends JFrame {
                 return;
             }
 
+            int orderNumber;
             try {
-                int orderNumber = Integer.parseInt(orderNumStr);
-                String filename = BILLS_DIRECTORY + File.separator + "order_" + orderNumber + ".txt";
-                File billFile = new File(filename);
-
-                if (billFile.exists()) {
-                    try (BufferedReader reader = new BufferedReader(new FileReader(billFile))) {
-                        StringBuilder billContent = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            billContent.append(line).append("\n");
+                orderNumber = Integer.parseInt(orderNumStr);
+            } catch (NumberFormatException ex) {
+                billDisplayArea.setText("Invalid order number. Please enter a numeric value.");
+                return;
+            }
+            searchButton.setEnabled(false);
+            // Both the history and the archive may have to read from disk, so the lookup runs off the EDT
+            new SwingWorker<String, Void>() {
+                @Override
+                protected String doInBackground() throws IOException {
+                    // Serve the bill from the history, the archive is only needed for orders it does not hold
+                    Order order = engine.findOrder(orderNumber);
+                    return order != null ? OrderEngine.buildBillText(order) : engine.readArchivedBill(orderNumber);
+                }
+
+                @Override
+                protected void done() {
+                    searchButton.setEnabled(true);
+                    try {
+                        String billContent = get();
+                        if (billContent != null) {
+                            billDisplayArea.setText(billContent);
+                        } else {
+                            billDisplayArea.setText("Bill for Order #" + orderNumber + " not found.");
                         }
-                        billDisplayArea.setText(billContent.toString());
-                    } catch (IOException ex) {
-                        billDisplayArea.setText("Error reading bill file: " + ex.getMessage());
-                        System.err.println("Error reading bill file: " + ex.getMessage());
+                    } catch (ExecutionException ex) {
+                        billDisplayArea.setText("Error reading bill archive: " + ex.getCause().getMessage());
+                        System.err.println("Error reading bill archive: " + ex.getCause().getMessage());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
                     }
-                } else {
-                    billDisplayArea.setText("Bill for Order #" + orderNumber + " not found.");
                 }
-            } catch (NumberFormatException ex) {
-                billDisplayArea.setText("Invalid order number. Please enter a numeric value.");
+            }.execute();
+        });
+
+        findOrdersButton.addActionListener(e -> {
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = fromField.getText().isBlank() ? null : LocalDate.parse(fromField.getText().trim());
+                to = toField.getText().isBlank() ? null : LocalDate.parse(toField.getText().trim());
+            } catch (DateTimeParseException ex) {
+                resultsLabel.setText("Invalid date. Please use yyyy-MM-dd.");
+                return;
+            }
+            String customer = customerField.getText();
+            String table = tableField.getText();
+            Object selectedItem = itemComboBox.getEditor().getItem();
+            String item = selectedItem == null ? null : selectedItem.toString();
+            findOrdersButton.setEnabled(false);
+            resultsLabel.setText("Searching...");
+            // The indexes are built from the whole history on the first search, so it runs off the EDT
+            new SwingWorker<int[], Void>() {
+                private long searchNanos;
+                private OffHeapOrderStore store;
+
+                @Override
+                protected int[] doInBackground() throws IOException {
+                    engine.getOrderSearchIndex();
+                    store = engine.getOrderStore(); // Built here too, so the results table never pages orders in
+                    long start = System.nanoTime();
+                    int[] positions = engine.searchOrders(customer, table, item, from, to, ORDER_SEARCH_LIMIT);
+                    searchNanos = System.nanoTime() - start;
+                    return positions;
+                }
+
+                @Override
+                protected void done() {
+                    findOrdersButton.setEnabled(true);
+                    try {
+                        int[] positions = get();
+                        resultsTable.clearSelection();
+                        if (resultsModel.getStore() != store) {
+                            resultsModel.setStore(store);
+                        }
+                        resultsModel.refresh();
+                        resultsModel.showPositions(positions);
+                        resultsLabel.setText(String.format("%d order(s)%s, newest first (%.2f ms)", positions.length,
+                                positions.length == ORDER_SEARCH_LIMIT ? " shown, refine the search for more" : " found",
+                                searchNanos / 1e6));
+                    } catch (InterruptedException | ExecutionException ex) {
+                        resultsLabel.setText("Error searching orders.");
+                        System.err.println("Error searching orders: " + ex.getMessage());
+                    }
+                }
+            }.execute();
+        });
+
+        resultsTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = resultsTable.getSelectedRow();
+            if (!e.getValueIsAdjusting() && row >= 0) {
+                billDisplayArea.setText(OrderEngine.buildBillText(resultsModel.getOrderAt(row)));
+                billDisplayArea.setCaretPosition(0);
             }
         });
 
         searchDialog.setVisible(true);
     }
 
+    // Copies the history off the heap in the background, then lets the model read it from there and
+    // enables the component that needs the store, e.g. a filter that would otherwise page in every order
+    private void attachOrderStore(OrderHistoryTableModel model, JComponent needsStore) {
+        needsStore.setEnabled(false);
+        needsStore.setToolTipText("Available once the order history is loaded");
+        new SwingWorker<OffHeapOrderStore, Void>() {
+            @Override
+            protected OffHeapOrderStore doInBackground() throws IOException {
+                return engine.getOrderStore();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    model.setStore(get());
+                    needsStore.setEnabled(true);
+                    needsStore.setToolTipText(null);
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error loading order store: " + e.getMessage());
+                    needsStore.setToolTipText("Loading the order history failed. Check the console for details.");
+                }
+            }
+        }.execute();
+    }
+
+    // Sales report read from the engine's running totals; switching views never rescans the history.
+    // The totals are built from the paged history on first use, so they are fetched off the EDT.
+    private JPanel createSalesPanel() {
+        JPanel salesPanel = new JPanel(new BorderLayout());
+        salesPanel.setBorder(BorderFactory.createTitledBorder("Sales"));
+
+        SalesTableModel salesModel = new SalesTableModel();
+        JTable salesTable = new JTable(salesModel);
+        salesTable.getTableHeader().setReorderingAllowed(false);
+        IndexedTableModel.installHeaderSorting(salesTable, salesModel);
+        salesPanel.add(new JScrollPane(salesTable), BorderLayout.CENTER);
+
+        JPanel salesControlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JComboBox<String> dimensionComboBox = new JComboBox<>(SalesTableModel.DIMENSIONS);
+        JButton refreshSalesButton = new JButton("Refresh");
+        JLabel salesTotalLabel = new JLabel("Loading sales...");
+        Runnable loadSales = () -> {
+            refreshSalesButton.setEnabled(false);
+            new SwingWorker<SalesAnalytics, Void>() {
+                @Override
+                protected SalesAnalytics doInBackground() throws IOException {
+                    return engine.getSalesAnalytics();
+                }
+
+                @Override
+                protected void done() {
+                    refreshSalesButton.setEnabled(true);
+                    try {
+                        SalesAnalytics analytics = get();
+                        salesModel.setAnalytics(analytics);
+                        SalesAnalytics.Totals overall = analytics.getOverall();
+                        salesTotalLabel.setText("Revenue: $" + Money.format(overall.getRevenueCents()) + " from " + overall.getOrders() + " orders");
+                    } catch (InterruptedException | ExecutionException e) {
+                        salesTotalLabel.setText("Error loading sales.");
+                        System.err.println("Error loading sales: " + e.getMessage());
+                    }
+                }
+            }.execute();
+        };
+        dimensionComboBox.addActionListener(e -> salesModel.setDimension((String) dimensionComboBox.getSelectedItem()));
+        refreshSalesButton.addActionListener(e -> loadSales.run());
+        loadSales.run();
+        salesControlPanel.add(new JLabel("By:"));
+        salesControlPanel.add(dimensionComboBox);
+        salesControlPanel.add(refreshSalesButton);
+        salesControlPanel.add(salesTotalLabel);
+        salesPanel.add(salesControlPanel, BorderLayout.NORTH);
+        return salesPanel;
+    }
 
     private void showAdminSettings() {
         JDialog adminDialog = new JDialog(this, "Admin Settings", true);
@@ -805,23 +1417,13 @@ public class MainFrame extends JFrame {
         JPanel menuPanel = new JPanel(new BorderLayout());
         menuPanel.setBorder(BorderFactory.createTitledBorder("Menu Management"));
 
-        // Table for current menu items in admin panel
-        String[] adminColumns = {"Item", "Category", "Price"};
-        DefaultTableModel adminMenuModel = new DefaultTableModel(adminColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make admin menu table non-editable
-            }
-        };
+        // Table for current menu items in admin panel, read from the engine's menu on demand
+        MenuTableModel adminMenuModel = new MenuTableModel(engine.getMenuSearchIndex());
         JTable adminMenuTable = new JTable(adminMenuModel);
         adminMenuTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        IndexedTableModel.installHeaderSorting(adminMenuTable, adminMenuModel);
         menuPanel.add(new JScrollPane(adminMenuTable), BorderLayout.CENTER);
 
-        // Populate admin menu table
-        for (MenuItem item : allMenuItems) {
-            adminMenuModel.addRow(new Object[]{item.getName(), item.getCategory(), String.format("%.2f", item.getPrice())});
-        }
-
         // Input fields for adding/editing menu items
         JPanel inputPanel = new JPanel(new GridLayout(4, 2, 5, 5));
         JTextField itemNameField = new JTextField();
@@ -869,29 +1471,25 @@ public class MainFrame extends JFrame {
                 return;
             }
             try {
-                double price = Double.parseDouble(priceStr);
+                long price = Money.parse(priceStr);
                 if (price <= 0) {
                     JOptionPane.showMessageDialog(adminDialog, "Price must be a positive number.");
                     return;
                 }
 
-                // Check for duplicate item name
-                for (MenuItem item : allMenuItems) {
-                    if (item.getName().equalsIgnoreCase(name)) {
-                        JOptionPane.showMessageDialog(adminDialog, "An item with this name already exists.");
-                        return;
-                    }
-                }
-
+                // The engine rejects duplicate item names
                 MenuItem newItem = new MenuItem(name, category, price);
-                allMenuItems.add(newItem);
-                adminMenuModel.addRow(new Object[]{newItem.getName(), newItem.getCategory(), String.format("%.2f", newItem.getPrice())});
+                if (!engine.addMenuItem(newItem)) {
+                    JOptionPane.showMessageDialog(adminDialog, "An item with this name already exists.");
+                    return;
+                }
+                adminMenuModel.setMenu(engine.getMenuSearchIndex());
                 filterMenu(); // Update main menu table
                 JOptionPane.showMessageDialog(adminDialog, "Item added successfully!");
                 itemNameField.setText("");
                 itemPriceField.setText("");
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(adminDialog, "Invalid price. Please enter a valid number.");
+                JOptionPane.showMessageDialog(adminDialog, "Invalid price. Please enter an amount with at most two decimals.");
             }
         });
 
@@ -913,39 +1511,20 @@ public class MainFrame extends JFrame {
             }
 
             try {
-                double newPrice = Double.parseDouble(newPriceStr);
+                long newPrice = Money.parse(newPriceStr);
                 if (newPrice <= 0) {
                     JOptionPane.showMessageDialog(adminDialog, "Price must be a positive number.");
                     return;
                 }
 
-                // Find the MenuItem object in allMenuItems
-                MenuItem itemToUpdate = null;
-                for (MenuItem item : allMenuItems) {
-                    if (item.getName().equals(oldName)) {
-                        itemToUpdate = item;
-                        break;
-                    }
-                }
-
-                if (itemToUpdate != null) {
-                    // Check if new name already exists and is different from old name
-                    if (!oldName.equalsIgnoreCase(newName)) {
-                        for (MenuItem item : allMenuItems) {
-                            if (item.getName().equalsIgnoreCase(newName)) {
-                                JOptionPane.showMessageDialog(adminDialog, "An item with the new name already exists.");
-                                return;
-                            }
-                        }
+                if (engine.findMenuItem(oldName) != null) {
+                    // The engine refuses a new name that already belongs to another item
+                    if (!engine.updateMenuItem(oldName, newName, newCategory, newPrice)) {
+                        JOptionPane.showMessageDialog(adminDialog, "An item with the new name already exists.");
+                        return;
                     }
 
-                    itemToUpdate.setName(newName);
-                    itemToUpdate.setCategory(newCategory);
-                    itemToUpdate.setPrice(newPrice);
-
-                    adminMenuModel.setValueAt(itemToUpdate.getName(), selectedRow, 0);
-                    adminMenuModel.setValueAt(itemToUpdate.getCategory(), selectedRow, 1);
-                    adminMenuModel.setValueAt(String.format("%.2f", itemToUpdate.getPrice()), selectedRow, 2);
+                    adminMenuModel.setMenu(engine.getMenuSearchIndex());
 
                     filterMenu(); // Update main menu table
                     JOptionPane.showMessageDialog(adminDialog, "Item updated successfully!");
@@ -954,7 +1533,7 @@ public class MainFrame extends JFrame {
                     adminMenuTable.clearSelection();
                 }
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(adminDialog, "Invalid price. Please enter a valid number.");
+                JOptionPane.showMessageDialog(adminDialog, "Invalid price. Please enter an amount with at most two decimals.");
             }
         });
 
@@ -969,9 +1548,9 @@ public class MainFrame extends JFrame {
             int confirm = JOptionPane.showConfirmDialog(adminDialog, "Are you sure you want to delete " + itemName + "?", "Confirm Deletion", JOptionPane.YES_NO_OPTION);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                // Remove from allMenuItems list
-                allMenuItems.removeIf(item -> item.getName().equals(itemName));
-                adminMenuModel.removeRow(selectedRow);
+                // Remove from the engine's menu
+                engine.removeMenuItem(itemName);
+                adminMenuModel.setMenu(engine.getMenuSearchIndex());
                 filterMenu(); // Update main menu table
                 JOptionPane.showMessageDialog(adminDialog, "Item deleted successfully!");
                 itemNameField.setText("");
@@ -989,32 +1568,65 @@ public class MainFrame extends JFrame {
         menuPanel.add(inputPanel, BorderLayout.NORTH);
         menuPanel.add(adminButtonPanel, BorderLayout.SOUTH);
 
-        // Panel for viewing past orders in admin settings (optional, can be removed if the separate dialog is sufficient)
+        // Only the menu is built up front; the history and sales tabs read the whole history, so they are
+        // built when first selected
+        JTabbedPane adminTabs = new JTabbedPane();
+        adminTabs.addTab("Menu", menuPanel);
+        addLazyTab(adminTabs, "Past Orders", () -> createOrderHistoryPanel(adminDialog));
+        addLazyTab(adminTabs, "Sales", this::createSalesPanel);
+        adminDialog.add(adminTabs, BorderLayout.CENTER);
+
+        adminDialog.setVisible(true);
+    }
+
+    // Past orders for the admin dialog, filtered by customer or table
+    private JPanel createOrderHistoryPanel(JDialog adminDialog) {
         JPanel ordersPanel = new JPanel(new BorderLayout());
         ordersPanel.setBorder(BorderFactory.createTitledBorder("Past Orders History"));
 
-        DefaultTableModel orderHistoryModel = new DefaultTableModel(new String[]{"Order #", "Customer", "Table", "Total", "Date/Time"}, 0);
-        JTable orderHistoryTable = new JTable(orderHistoryModel) {
-            // Make cells non-editable
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Rows are read from the engine's history as they are rendered, so opening is constant time
+        OrderHistoryTableModel orderHistoryModel = new OrderHistoryTableModel(engine);
+        JTable orderHistoryTable = new JTable(orderHistoryModel);
         orderHistoryTable.getTableHeader().setReorderingAllowed(false); // Prevent column reordering
         orderHistoryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // Allow single selection
+        IndexedTableModel.installHeaderSorting(orderHistoryTable, orderHistoryModel);
+
+        // Filter the history by customer or table name; the matching rows are read from the off-heap store, so it waits for it
+        JPanel orderFilterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField orderFilterField = new JTextField(15);
+        attachOrderStore(orderHistoryModel, orderFilterField);
+        orderFilterField.addActionListener(e -> {
+            String filterText = orderFilterField.getText().trim();
+            orderHistoryTable.clearSelection();
+            if (filterText.isEmpty()) {
+                orderHistoryModel.refresh();
+                return;
+            }
+            // Answered from the search index's distinct names instead of scanning every order; building the
+            // index reads the whole history the first time, so it runs off the EDT
+            orderFilterField.setEnabled(false);
+            new SwingWorker<int[], Void>() {
+                @Override
+                protected int[] doInBackground() throws IOException {
+                    return engine.searchOrdersByName(filterText);
+                }
 
-        // Populate order history table
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        for (Order order : allOrders) {
-            orderHistoryModel.addRow(new Object[]{
-                    order.getOrderNumber(),
-                    order.getCustomerName(),
-                    order.getTableName(),
-                    String.format("%.2f", order.getTotalAmount()),
-                    order.getOrderDateTime().format(formatter)
-            });
-        }
+                @Override
+                protected void done() {
+                    orderFilterField.setEnabled(true);
+                    try {
+                        orderHistoryModel.showOrders(get());
+                    } catch (ExecutionException ex) {
+                        System.err.println("Error filtering orders: " + ex.getCause());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }.execute();
+        });
+        orderFilterPanel.add(new JLabel("Filter (customer or table, Enter to apply):"));
+        orderFilterPanel.add(orderFilterField);
+        ordersPanel.add(orderFilterPanel, BorderLayout.NORTH);
 
         JScrollPane orderHistoryScrollPane = new JScrollPane(orderHistoryTable);
         ordersPanel.add(orderHistoryScrollPane, BorderLayout.CENTER);
@@ -1025,28 +1637,29 @@ public class MainFrame extends JFrame {
             int selectedRow = orderHistoryTable.getSelectedRow();
             if (selectedRow != -1) {
                 int orderNum = (int) orderHistoryModel.getValueAt(selectedRow, 0);
-                // Find the corresponding Order object
-                Order selectedOrder = null;
-                for (Order order : allOrders) {
-                    if (order.getOrderNumber() == orderNum) {
-                        selectedOrder = order;
-                        break;
+                viewOrderDetailsButton.setEnabled(false);
+                // Find the corresponding Order object; older orders are paged in from disk, so off the EDT
+                new SwingWorker<Order, Void>() {
+                    @Override
+                    protected Order doInBackground() {
+                        return engine.findOrder(orderNum);
                     }
-                }
 
-                if (selectedOrder != null) {
-                    StringBuilder details = new StringBuilder();
-                    details.append("Order Details for #").append(selectedOrder.getOrderNumber()).append("\n");
-                    details.append("Customer: ").append(selectedOrder.getCustomerName()).append("\n");
-                    details.append("Table: ").append(selectedOrder.getTableName()).append("\n");
-                    details.append("Date/Time: ").append(selectedOrder.getOrderDateTime().format(formatter)).append("\n\n");
-                    details.append("Items:\n");
-                    for (CartItem item : selectedOrder.getItems()) {
-                        details.append(String.format("  - %-25s x %-3d $%.2f\n", item.getMenuItem().getName(), item.getQuantity(), item.getTotalPrice()));
+                    @Override
+                    protected void done() {
+                        viewOrderDetailsButton.setEnabled(true);
+                        try {
+                            Order selectedOrder = get();
+                            if (selectedOrder != null) {
+                                JOptionPane.showMessageDialog(adminDialog, BillRenderer.ORDER_DETAILS.render(selectedOrder), "Order Details", JOptionPane.INFORMATION_MESSAGE);
+                            }
+                        } catch (ExecutionException ex) {
+                            System.err.println("Error reading order #" + orderNum + ": " + ex.getCause());
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
                     }
-                    details.append("\nTotal Amount: $").append(String.format("%.2f", selectedOrder.getTotalAmount())).append("\n");
-                    JOptionPane.showMessageDialog(adminDialog, details.toString(), "Order Details", JOptionPane.INFORMATION_MESSAGE);
-                }
+                }.execute();
             } else {
                 JOptionPane.showMessageDialog(adminDialog, "Please select an order to view details.");
             }
@@ -1054,12 +1667,23 @@ public class MainFrame extends JFrame {
         JPanel orderDetailsButtonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         orderDetailsButtonPanel.add(viewOrderDetailsButton);
         ordersPanel.add(orderDetailsButtonPanel, BorderLayout.SOUTH);
+        return ordersPanel;
+    }
 
-        // Split pane to divide menu management and order history
-        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, menuPanel, ordersPanel);
-        splitPane.setDividerLocation(200); // Adjust as needed
-        adminDialog.add(splitPane, BorderLayout.CENTER);
-
-        adminDialog.setVisible(true);
+    // Adds a tab whose contents are built the first time it is selected
+    private static void addLazyTab(JTabbedPane tabs, String title, Supplier<JComponent> contents) {
+        JPanel holder = new JPanel(new BorderLayout());
+        tabs.addTab(title, holder);
+        tabs.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (tabs.getSelectedComponent() == holder) {
+                    tabs.removeChangeListener(this);
+                    holder.add(contents.get(), BorderLayout.CENTER);
+                    holder.revalidate();
+                }
+            }
+        });
     }
+
 }
\ No newline at end of file
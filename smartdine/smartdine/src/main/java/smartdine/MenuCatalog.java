@@ -0,0 +1,243 @@
+package smartdine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Every menu item ever sold, as flyweights shared by the menu, the carts and all decoded orders.
+// Each item name gets a stable integer ID; each distinct (category, price) it has had is a price
+// version of that ID. Orders are encoded as (itemId, priceVersion, quantity) tuples that resolve
+// to the one shared MenuItem instance, instead of carrying their own copy of name and category.
+// Entries are appended to the catalog file and forced before they are handed out, so a journaled
+// order never refers to an entry that is not on disk. Lookups are lock-free; adding is synchronized.
+// Several processes (terminals) may share the catalog file: adding holds an exclusive file lock and
+// first reads the entries the others appended, so IDs and the append offset come from the file itself.
+public class MenuCatalog implements Closeable {
+    private final Path path;
+    private final SharedFileLock fileLock;
+    private FileChannel channel;
+    private long end; // Where the next entry is appended; only valid while holding the file lock
+
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    private volatile Entry[] byId = new Entry[64]; // Index is the item ID; 0 is never used
+    private int nextId = 1;
+    private final Map<String, String> sharedStrings = new ConcurrentHashMap<>(); // Categories and table names
+
+    // All price versions of one item; array index is priceVersion - 1
+    private static final class Entry {
+        final int id;
+        final String name;
+        volatile MainFrame.MenuItem[] versions = new MainFrame.MenuItem[0];
+
+        Entry(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public MenuCatalog(String file) {
+        this.path = Paths.get(file).toAbsolutePath().normalize();
+        this.fileLock = new SharedFileLock(path);
+    }
+
+    // Reads every entry of the catalog file, cutting off an entry torn by a crash
+    public synchronized void open() throws IOException {
+        close();
+        byName.clear();
+        byId = new Entry[64];
+        nextId = 1;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int entries = fileLock.run(channel, () -> {
+            ByteBuffer header = ByteBuffer.allocate(OrderCodec.FILE_HEADER_SIZE);
+            if (channel.size() < OrderCodec.FILE_HEADER_SIZE) {
+                header.putInt(OrderCodec.FILE_MAGIC).put(OrderCodec.KIND_CATALOG);
+                header.flip();
+                channel.truncate(0);
+                write(header, 0);
+                channel.force(true);
+                header.clear();
+            }
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read the whole header
+            }
+            header.flip();
+            if (header.getInt() != OrderCodec.FILE_MAGIC || header.get() != OrderCodec.KIND_CATALOG) {
+                throw new IOException("Not a SmartDine menu catalog: " + path);
+            }
+            end = OrderCodec.FILE_HEADER_SIZE;
+            return readNewEntries();
+        });
+        System.out.println("Loaded menu catalog " + path + " (" + entries + " price versions)");
+    }
+
+    // The shared item for this name, category and price, adding a price version when it is new.
+    // If the entry cannot be written the item is returned without an ID, so it is encoded in full.
+    public MainFrame.MenuItem intern(String name, String category, long priceCents) {
+        MainFrame.MenuItem existing = find(name, category, priceCents);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            existing = find(name, category, priceCents);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                if (channel == null) {
+                    open(); // First item of an engine that was never loaded
+                }
+                return fileLock.run(channel, () -> {
+                    // Another terminal may have added this very item, or taken the next IDs, since we last looked
+                    readNewEntries();
+                    MainFrame.MenuItem added = find(name, category, priceCents);
+                    if (added != null) {
+                        return added;
+                    }
+                    Entry entry = byName.get(name);
+                    int id = entry == null ? nextId : entry.id;
+                    int priceVersion = entry == null ? 1 : entry.versions.length + 1;
+                    append(id, priceVersion, name, category, priceCents);
+                    // Versions of one item share its name instance
+                    MainFrame.MenuItem item = new MainFrame.MenuItem(entry == null ? name : entry.name, share(category), priceCents, id, priceVersion);
+                    publish(id, priceVersion, item);
+                    return item;
+                });
+            } catch (IOException e) {
+                System.err.println("Error saving menu catalog entry for " + name + ": " + e.getMessage());
+                return new MainFrame.MenuItem(name, share(category), priceCents);
+            }
+        }
+    }
+
+    // The shared instance of an item, e.g. one built by hand or read from a legacy file
+    public MainFrame.MenuItem intern(MainFrame.MenuItem item) {
+        if (item.getItemId() != 0 && resolveOrNull(item.getItemId(), item.getPriceVersion()) == item) {
+            return item;
+        }
+        return intern(item.getName(), item.getCategory(), item.getPriceCents());
+    }
+
+    // The item an order refers to, or null if the catalog has no such entry
+    public MainFrame.MenuItem resolveOrNull(int itemId, int priceVersion) {
+        Entry[] ids = byId;
+        if (itemId <= 0 || itemId >= ids.length || ids[itemId] == null) {
+            return null;
+        }
+        MainFrame.MenuItem[] versions = ids[itemId].versions;
+        return priceVersion <= 0 || priceVersion > versions.length ? null : versions[priceVersion - 1];
+    }
+
+    // One shared instance per distinct string, for values repeated across many orders
+    public String share(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = sharedStrings.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private MainFrame.MenuItem find(String name, String category, long priceCents) {
+        Entry entry = byName.get(name);
+        if (entry == null) {
+            return null;
+        }
+        for (MainFrame.MenuItem item : entry.versions) {
+            if (item != null && item.getPriceCents() == priceCents && Objects.equals(item.getCategory(), category)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    // Publishes the entries written after end, by this process before open() or by others since;
+    // an entry torn by a crash is cut off. Callers hold the file lock.
+    private int readNewEntries() throws IOException {
+        long size = channel.size();
+        if (size <= end) {
+            return 0;
+        }
+        ByteBuffer contents = ByteBuffer.allocate((int) (size - end));
+        while (contents.hasRemaining() && channel.read(contents, end + contents.position()) >= 0) {
+            // Read the whole rest; catalogs stay small
+        }
+        byte[] bytes = contents.array();
+        OrderCodec.Decoder in = new OrderCodec.Decoder(bytes, 0, contents.position());
+        int read = 0;
+        int entries = 0;
+        while (read < contents.position()) {
+            try {
+                OrderCodec.CatalogEntry entry = OrderCodec.readCatalogEntry(in);
+                publish(entry.itemId, entry.priceVersion,
+                        new MainFrame.MenuItem(entry.name, share(entry.category), entry.priceCents, entry.itemId, entry.priceVersion));
+                read = in.position();
+                entries++;
+            } catch (IOException e) {
+                System.err.println("Discarding " + (size - end - read) + " unreadable bytes from " + path);
+                channel.truncate(end + read);
+                channel.force(true);
+                break;
+            }
+        }
+        end += read;
+        return entries;
+    }
+
+    // Callers hold the file lock, with end at the end of the file
+    private void append(int id, int priceVersion, String name, String category, long priceCents) throws IOException {
+        OrderCodec.Encoder out = new OrderCodec.Encoder(64);
+        OrderCodec.writeCatalogEntry(out, id, priceVersion, name, category, priceCents);
+        write(ByteBuffer.wrap(out.toByteArray()), end);
+        channel.force(false);
+        end += out.size();
+    }
+
+    // Makes an entry visible to lock-free readers; callers hold the monitor
+    private void publish(int id, int priceVersion, MainFrame.MenuItem item) {
+        Entry[] ids = byId;
+        if (id >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(id + 1, ids.length * 2));
+        }
+        Entry entry = ids[id];
+        if (entry == null) {
+            entry = new Entry(id, item.getName());
+            ids[id] = entry;
+            byName.put(item.getName(), entry);
+        }
+        MainFrame.MenuItem[] versions = entry.versions;
+        if (priceVersion > versions.length) {
+            versions = Arrays.copyOf(versions, priceVersion);
+        } else {
+            versions = versions.clone();
+        }
+        versions[priceVersion - 1] = item;
+        entry.versions = versions;
+        byId = ids;
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package smartdine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Immutable search index over one snapshot of the menu.
+// Every 1-, 2- and 3-character substring (n-gram) of each lowercased item name maps to a bitset of the
+// items containing it, and every category maps to a bitset of its items. A query ANDs the bitsets of
+// the query's trigrams (or of the whole query when it is shorter) with the category bitset, and only
+// the surviving candidates are checked with a real substring match.
+public final class MenuSearchIndex {
+    private static final int MAX_GRAM = 3;
+
+    private final long menuVersion;
+    private final MainFrame.MenuItem[] items;
+    private final String[] lowerNames;
+    private final Map<Long, BitSet> grams = new HashMap<>();
+    private final Map<String, BitSet> categories = new HashMap<>();
+    private final BitSet allItems;
+
+    public MenuSearchIndex(List<MainFrame.MenuItem> menu, long menuVersion) {
+        this.menuVersion = menuVersion;
+        this.items = menu.toArray(new MainFrame.MenuItem[0]);
+        this.lowerNames = new String[items.length];
+        this.allItems = new BitSet(items.length);
+        allItems.set(0, items.length);
+        for (int i = 0; i < items.length; i++) {
+            String name = items[i].getName().toLowerCase(Locale.ROOT);
+            lowerNames[i] = name;
+            for (int start = 0; start < name.length(); start++) {
+                for (int length = 1; length <= MAX_GRAM && start + length <= name.length(); length++) {
+                    grams.computeIfAbsent(gramKey(name, start, length), k -> new BitSet(items.length)).set(i);
+                }
+            }
+            categories.computeIfAbsent(items[i].getCategory(), k -> new BitSet(items.length)).set(i);
+        }
+    }
+
+    public long getMenuVersion() {
+        return menuVersion;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public MainFrame.MenuItem getItem(int position) {
+        return items[position];
+    }
+
+    // Returns the positions of the matching items in menu order.
+    // A null or "All" category matches every category; an empty search text matches every name.
+    public int[] query(String searchText, String category) {
+        BitSet candidates = (BitSet) (category == null || category.equals("All")
+                ? allItems : categories.getOrDefault(category, new BitSet())).clone();
+        String text = searchText == null ? "" : searchText.trim().toLowerCase(Locale.ROOT);
+
+        if (!text.isEmpty()) {
+            int gramLength = Math.min(MAX_GRAM, text.length());
+            for (int start = 0; start + gramLength <= text.length() && !candidates.isEmpty(); start++) {
+                BitSet postings = grams.get(gramKey(text, start, gramLength));
+                if (postings == null) {
+                    return new int[0];
+                }
+                candidates.and(postings);
+            }
+        }
+
+        int[] matches = new int[candidates.cardinality()];
+        int count = 0;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            // Trigrams only narrow the candidates; longer queries still need the real substring check
+            if (text.length() <= MAX_GRAM || lowerNames[i].contains(text)) {
+                matches[count++] = i;
+            }
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    // Packs up to three UTF-16 chars and the length into one long
+    private static long gramKey(String s, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | s.charAt(start + i);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,127 @@
+package smartdine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// One immutable version of the menu: the items in menu order plus hash indexes by exact name and by
+// name ignoring case. The engine publishes a new snapshot for every change, so readers take the current
+// one without locking and keep working on a consistent menu while admins edit.
+// Edits return a new snapshot and never touch this one; each copies the menu once and looks names up in O(1).
+// The indexes are never changed after construction either, so an edit that keeps every name at its position
+// (a new price or category) shares them, and adding or renaming an item copies them instead of rebuilding.
+public final class MenuSnapshot {
+    static final MenuSnapshot EMPTY = new MenuSnapshot(0, new ArrayList<>());
+
+    private final long version;
+    private final List<MainFrame.MenuItem> items;
+    private final Map<String, Integer> byName;      // Exact name to position
+    private final Map<String, Integer> byLowerName; // Lowercased name to position
+
+    private MenuSnapshot(long version, List<MainFrame.MenuItem> items) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(items);
+        this.byName = new HashMap<>();
+        this.byLowerName = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            String name = items.get(i).getName();
+            byName.put(name, i);
+            byLowerName.putIfAbsent(lower(name), i);
+        }
+    }
+
+    private MenuSnapshot(long version, List<MainFrame.MenuItem> items, Map<String, Integer> byName, Map<String, Integer> byLowerName) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(items);
+        this.byName = byName;
+        this.byLowerName = byLowerName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Unmodifiable; the items themselves are immutable too
+    public List<MainFrame.MenuItem> getItems() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // The item with exactly this name, or null
+    public MainFrame.MenuItem find(String name) {
+        Integer position = byName.get(name);
+        return position == null ? null : items.get(position);
+    }
+
+    // Whether an item other than exceptName (null for none) has this name, ignoring case
+    public boolean containsIgnoreCase(String name, String exceptName) {
+        Integer position = byLowerName.get(lower(name));
+        return position != null && (exceptName == null || !items.get(position).getName().equalsIgnoreCase(exceptName));
+    }
+
+    // This menu with the item appended
+    MenuSnapshot with(MainFrame.MenuItem item) {
+        List<MainFrame.MenuItem> next = new ArrayList<>(items.size() + 1);
+        next.addAll(items);
+        next.add(item);
+        Map<String, Integer> names = new HashMap<>(byName);
+        Map<String, Integer> lowerNames = new HashMap<>(byLowerName);
+        names.put(item.getName(), items.size());
+        lowerNames.putIfAbsent(lower(item.getName()), items.size());
+        return new MenuSnapshot(version + 1, next, names, lowerNames);
+    }
+
+    // This menu with the item named oldName replaced in place, or null if there is none
+    MenuSnapshot replacing(String oldName, MainFrame.MenuItem item) {
+        Integer position = byName.get(oldName);
+        if (position == null) {
+            return null;
+        }
+        List<MainFrame.MenuItem> next = new ArrayList<>(items);
+        next.set(position, item);
+        if (item.getName().equals(oldName)) {
+            return new MenuSnapshot(version + 1, next, byName, byLowerName);
+        }
+        boolean uniqueNames = byLowerName.size() == items.size();
+        if (uniqueNames && !oldName.equalsIgnoreCase(item.getName()) && !byLowerName.containsKey(lower(item.getName()))) {
+            // Names unique even ignoring case, before and after: only the entries of the two names change
+            Map<String, Integer> names = new HashMap<>(byName);
+            Map<String, Integer> lowerNames = new HashMap<>(byLowerName);
+            names.remove(oldName);
+            lowerNames.remove(lower(oldName), position);
+            names.put(item.getName(), position);
+            lowerNames.putIfAbsent(lower(item.getName()), position);
+            return new MenuSnapshot(version + 1, next, names, lowerNames);
+        }
+        return new MenuSnapshot(version + 1, next);
+    }
+
+    // This menu without the items of that name (menus from old files may repeat one), or null if there are none
+    MenuSnapshot without(String name) {
+        if (!byName.containsKey(name)) {
+            return null;
+        }
+        List<MainFrame.MenuItem> next = new ArrayList<>(items.size());
+        for (MainFrame.MenuItem item : items) {
+            if (!item.getName().equals(name)) {
+                next.add(item);
+            }
+        }
+        return new MenuSnapshot(version + 1, next);
+    }
+
+    // A whole new menu, e.g. after loading it from disk
+    MenuSnapshot replacingAll(List<MainFrame.MenuItem> menu) {
+        return new MenuSnapshot(version + 1, new ArrayList<>(menu));
+    }
+
+    private static String lower(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,56 @@
+package smartdine;
+
+// Menu table model reading straight from a MenuSearchIndex snapshot; search results are shown
+// as an array of positions into the snapshot instead of copied rows
+public class MenuTableModel extends IndexedTableModel {
+    private static final String[] COLUMNS = {"Item", "Category", "Price"};
+
+    private MenuSearchIndex menu;
+
+    public MenuTableModel(MenuSearchIndex menu) {
+        super(COLUMNS);
+        this.menu = menu;
+    }
+
+    // Shows the whole menu snapshot
+    public void setMenu(MenuSearchIndex menu) {
+        this.menu = menu;
+        showAll();
+    }
+
+    // Shows only the given positions of the menu snapshot, e.g. the result of a search
+    public void setMenu(MenuSearchIndex menu, int[] positions) {
+        this.menu = menu;
+        showPositions(positions);
+    }
+
+    public MainFrame.MenuItem getItemAt(int row) {
+        return menu.getItem(positionAt(row));
+    }
+
+    @Override
+    protected int backingSize() {
+        return menu.size();
+    }
+
+    @Override
+    protected Object valueAt(int position, int column) {
+        MainFrame.MenuItem item = menu.getItem(position);
+        switch (column) {
+            case 0: return item.getName();
+            case 1: return item.getCategory();
+            default: return Money.format(item.getPriceCents());
+        }
+    }
+
+    @Override
+    protected int compare(int positionA, int positionB, int column) {
+        MainFrame.MenuItem a = menu.getItem(positionA);
+        MainFrame.MenuItem b = menu.getItem(positionB);
+        switch (column) {
+            case 0: return a.getName().compareToIgnoreCase(b.getName());
+            case 1: return a.getCategory().compareTo(b.getCategory());
+            default: return Long.compare(a.getPriceCents(), b.getPriceCents());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package smartdine;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Process-wide counters, gauges and latency histograms, each registered as a platform MXBean named
+// smartdine:type=<Counter|Gauge|Histogram>,name=<name>, so JConsole or VisualVM can watch them.
+// Recording is a few atomic adds with no allocation or locking, cheap enough for every bill.
+// The first registration starts the platform MBean server, which takes hundreds of milliseconds, so
+// registering happens on a background thread; a metric records from the moment it is created.
+// A metric that cannot be registered is reported to the error listeners, e.g. the engine's.
+public final class Metrics {
+    static final String DOMAIN = "smartdine";
+
+    private static final ConcurrentMap<String, Object> METRICS = new ConcurrentHashMap<>();
+    private static final List<Consumer<String>> ERROR_LISTENERS = new ArrayList<>(); // Guarded by the class
+    private static final List<String> ERRORS = new ArrayList<>(); // Guarded by the class; replayed to new listeners
+    private static final ExecutorService REGISTRAR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "smartdine-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Metrics() {
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    public interface HistogramMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getMaxMillis();
+        double getMedianMillis();
+        double get90thPercentileMillis();
+        double get99thPercentileMillis();
+        double get999thPercentileMillis();
+    }
+
+    public static final class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    // Reads its value when asked, e.g. a queue length
+    public static final class Gauge implements GaugeMXBean {
+        private volatile LongSupplier value;
+
+        Gauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+
+    // Latencies in nanoseconds, counted in log-linear buckets like an HdrHistogram: 32 buckets per power
+    // of two, so every percentile is within about 3% of the recorded value from 1 ns to centuries
+    public static final class Histogram implements HistogramMXBean {
+        private static final int SUB_BUCKET_BITS = 6;
+        private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS + 2 * HALF_SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0; // nanoTime differences are never negative, but a caller's clock arithmetic might be
+            }
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        // For the common "long start = System.nanoTime(); ...; histogram.recordSince(start)"
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        // Smallest value v with at least the given percentage of the recorded values at or below v, to bucket precision
+        public long getValueAtPercentile(double percentile) {
+            long total = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(middleOf(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        @Override
+        public double getMedianMillis() {
+            return getValueAtPercentile(50) / 1e6;
+        }
+
+        @Override
+        public double get90thPercentileMillis() {
+            return getValueAtPercentile(90) / 1e6;
+        }
+
+        @Override
+        public double get99thPercentileMillis() {
+            return getValueAtPercentile(99) / 1e6;
+        }
+
+        @Override
+        public double get999thPercentileMillis() {
+            return getValueAtPercentile(99.9) / 1e6;
+        }
+
+        // Values below 64 get a bucket each; above, the top six bits of the value pick the bucket
+        static int bucketOf(long value) {
+            int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+            return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        static long middleOf(int bucket) {
+            if (bucket < 2 * HALF_SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / HALF_SUB_BUCKETS - 1;
+            long lowest = (long) (bucket - shift * HALF_SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) / 2;
+        }
+    }
+
+    public static Counter counter(String name) {
+        return register(name, "Counter", Counter.class, Counter::new);
+    }
+
+    // A gauge registered again under the same name reads from the new supplier, e.g. after a new engine was created
+    public static synchronized Gauge gauge(String name, LongSupplier value) {
+        Gauge gauge = register(name, "Gauge", Gauge.class, () -> new Gauge(value));
+        gauge.value = value;
+        return gauge;
+    }
+
+    // Unregisters the gauge if it still reads from the supplier, so nothing keeps its owner reachable
+    public static synchronized void removeGauge(String name, LongSupplier value) {
+        Object metric = METRICS.get(name);
+        if (!(metric instanceof Gauge gauge) || gauge.value != value) {
+            return;
+        }
+        METRICS.remove(name);
+        // After the registration of this gauge and before any new one under the name; the registrar runs them in order
+        REGISTRAR.execute(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName("Gauge", name));
+            } catch (InstanceNotFoundException e) {
+                // Its registration failed and was reported
+            } catch (JMException | SecurityException e) {
+                fireError("Metric " + name + " could not be removed from JMX: " + e.getMessage());
+            }
+        });
+    }
+
+    public static Histogram histogram(String name) {
+        return register(name, "Histogram", Histogram.class, Histogram::new);
+    }
+
+    // Called with a message for every metric that could not be registered, including those that failed
+    // before the listener was added; most metrics are created by static initializers, before any listener
+    public static synchronized void addErrorListener(Consumer<String> listener) {
+        ERROR_LISTENERS.add(listener);
+        for (String message : ERRORS) {
+            listener.accept(message);
+        }
+    }
+
+    public static synchronized void removeErrorListener(Consumer<String> listener) {
+        ERROR_LISTENERS.remove(listener);
+    }
+
+    private static synchronized void fireError(String message) {
+        ERRORS.add(message);
+        for (Consumer<String> listener : ERROR_LISTENERS) {
+            listener.accept(message);
+        }
+    }
+
+    private static <T> T register(String name, String type, Class<T> kind, Supplier<T> factory) {
+        Object metric = METRICS.computeIfAbsent(name, n -> {
+            T created = factory.get();
+            REGISTRAR.execute(() -> {
+                try {
+                    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                    server.registerMBean(created, objectName(type, n));
+                } catch (JMException | SecurityException e) {
+                    fireError("Metric " + n + " is recorded but not visible over JMX: " + e.getMessage());
+                }
+            });
+            return created;
+        });
+        if (!kind.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is not a " + type + ".");
+        }
+        return kind.cast(metric);
+    }
+
+    private static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN, new Hashtable<>(Map.of("type", type, "name", name)));
+    }
+}
@@ -0,0 +1,115 @@
+package smartdine;
+
+// Amounts of money as a primitive long number of cents, used by the menu, carts, orders, files and bills.
+// Cent arithmetic is exact: a bill is the sum of its lines to the cent, however many lines it has,
+// which doubles cannot promise. Overflow throws ArithmeticException instead of wrapping.
+public final class Money {
+    private Money() {
+    }
+
+    // Price of quantity units
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    public static long plus(long cents, long moreCents) {
+        return Math.addExact(cents, moreCents);
+    }
+
+    // The cents an amount read from an older file or typed as a double stands for: the same cents
+    // String.format("%.2f", amount) shows, which rounds half up on the shortest decimal form of the
+    // double, so 1.005 becomes 101 although the double is slightly below 1.005
+    public static long fromDouble(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount) || Math.abs(amount) >= Long.MAX_VALUE / 100.0) {
+            throw new ArithmeticException("Not an amount of money: " + amount);
+        }
+        boolean negative = amount < 0;
+        if (negative) {
+            amount = -amount;
+        }
+        long cents = (long) Math.floor(amount * 100);
+        // amount * 100 is itself rounded, so settle on the cent at or below amount
+        if ((cents + 1) / 100.0 <= amount) {
+            cents++;
+        } else if (cents / 100.0 > amount) {
+            cents--;
+        }
+        // (2 * cents + 1) / 200.0 is the double nearest to the half cent, so ties are exact
+        if (amount >= (2 * cents + 1) / 200.0) {
+            cents++;
+        }
+        return negative ? -cents : cents;
+    }
+
+    // For callers that still need a double, e.g. the console model, Java-serialized files and the codec's legacy price field
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    // Parses amounts like "12", "12.5", "$12.50" or "-0.75" exactly; more than two decimals are rejected
+    public static long parse(String text) {
+        String value = text.trim();
+        int start = 0;
+        boolean negative = false;
+        if (start < value.length() && (value.charAt(start) == '-' || value.charAt(start) == '+')) {
+            negative = value.charAt(start) == '-';
+            start++;
+        }
+        if (start < value.length() && value.charAt(start) == '$') {
+            start++;
+        }
+        // Negative amounts are summed as negatives, so Long.MIN_VALUE cents parses like it formats
+        int sign = negative ? -1 : 1;
+        long units = 0;
+        long fraction = 0;
+        int digits = 0;
+        int decimals = -1; // -1 until the decimal point
+        try {
+            for (int i = start; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (c >= '0' && c <= '9') {
+                    if (decimals < 0) {
+                        units = Math.addExact(Math.multiplyExact(units, 10), sign * (c - '0'));
+                    } else if (++decimals > 2) {
+                        throw new NumberFormatException("More than two decimals: " + text);
+                    } else {
+                        fraction = fraction * 10 + sign * (c - '0');
+                    }
+                    digits++;
+                } else {
+                    throw new NumberFormatException("Not an amount of money: " + text);
+                }
+            }
+            if (digits == 0) {
+                throw new NumberFormatException("Not an amount of money: " + text);
+            }
+            if (decimals == 1) {
+                fraction *= 10;
+            }
+            return Math.addExact(Math.multiplyExact(units, 100), fraction);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount too large: " + text);
+        }
+    }
+
+    // Appends the amount with two decimals and no currency sign, like "%.2f"
+    public static void append(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        out.append(Math.abs(cents / 100)).append('.');
+        long fraction = Math.abs(cents % 100);
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    public static String format(long cents) {
+        StringBuilder out = new StringBuilder(24);
+        append(out, cents);
+        return out.toString();
+    }
+}
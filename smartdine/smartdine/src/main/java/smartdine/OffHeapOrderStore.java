@@ -0,0 +1,296 @@
+package smartdine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Copy of the order history outside the Java heap, for views and reports that read many orders.
+// Every order is a fixed 48-byte header in a header chunk plus its lines in a line chunk; customers,
+// tables and menu items are stored once in small on-heap dictionaries and referred to by index, so a
+// million orders cost the GC a few thousand objects instead of tens of millions.
+// Chunks are native memory by default, or regions of a scratch file mapped into memory so the OS can page
+// out cold orders; the file is not a durable copy and is deleted on close (on Linux as soon as it is opened).
+// Orders are added in billing order by a single writer (the engine adds them under its history lock);
+// any number of threads read them through OrderView flyweights, which copy nothing until asked.
+public class OffHeapOrderStore implements Closeable {
+    // Order header layout
+    private static final long ORDER_NUMBER = 0;
+    private static final long CUSTOMER = 4;     // Index into strings
+    private static final long TABLE = 8;        // Index into strings
+    private static final long LINE_COUNT = 12;
+    private static final long TOTAL_CENTS = 16;
+    private static final long EPOCH_SECOND = 24; // Local billing time, counted as if it were UTC
+    private static final long NANO = 32;
+    private static final long LINE_CHUNK = 36;  // Chunk holding the lines of the order
+    private static final long LINE_OFFSET = 40; // Byte offset of the first line in that chunk
+    static final int HEADER_SIZE = 48;
+
+    // Line layout
+    private static final long LINE_ITEM = 0;     // Index into items
+    private static final long LINE_QUANTITY = 4;
+    static final int LINE_SIZE = 8;
+
+    static final int ORDERS_PER_CHUNK = 16384;
+    static final int LINES_PER_CHUNK = 131072;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(ORDERS_PER_CHUNK);
+
+    private final Arena arena;
+    private final FileChannel channel; // Null unless mapped to a scratch file
+    private long fileEnd;
+
+    // Published by the volatile size: the writer fills a header before counting it
+    private volatile MemorySegment[] headerChunks = new MemorySegment[0];
+    private volatile MemorySegment[] lineChunks = new MemorySegment[0];
+    private long lineChunkUsed; // Bytes used in the last line chunk, writer only
+    private volatile int size;
+
+    // Dictionaries; arrays are replaced when they grow, and entries are written before the orders using them
+    private volatile String[] strings = new String[64];
+    private final Map<String, Integer> stringIndex = new HashMap<>(); // Writer only
+    private volatile MainFrame.MenuItem[] items = new MainFrame.MenuItem[64];
+    private final Map<Object, Integer> itemIndex = new HashMap<>(); // Writer only
+    private int stringCount;
+    private int itemCount;
+
+    // Keeps the store in native memory, freed once the store and all its views are unreachable
+    public OffHeapOrderStore() {
+        this.arena = Arena.ofAuto();
+        this.channel = null;
+    }
+
+    // Maps the store to a scratch file, which is replaced if it exists and deleted on close
+    public OffHeapOrderStore(Path scratchFile) throws IOException {
+        this.channel = FileChannel.open(scratchFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        this.arena = Arena.ofShared();
+    }
+
+    // Copies the order into the store at the next position
+    public void add(MainFrame.Order order) {
+        int position = size;
+        List<MainFrame.CartItem> lines = order.getItems();
+        MemorySegment header = headerChunkFor(position);
+        int lineChunk = lineChunkFor(lines.size());
+        MemorySegment lineSegment = lineChunks[lineChunk];
+        long lineOffset = lineChunkUsed;
+        for (int i = 0; i < lines.size(); i++) {
+            MainFrame.CartItem line = lines.get(i);
+            long offset = lineOffset + (long) i * LINE_SIZE;
+            lineSegment.set(ValueLayout.JAVA_INT, offset + LINE_ITEM, itemIndexOf(line.getMenuItem()));
+            lineSegment.set(ValueLayout.JAVA_INT, offset + LINE_QUANTITY, line.getQuantity());
+        }
+        lineChunkUsed += (long) lines.size() * LINE_SIZE;
+
+        long base = headerOffset(position);
+        LocalDateTime time = order.getOrderDateTime();
+        header.set(ValueLayout.JAVA_INT, base + ORDER_NUMBER, order.getOrderNumber());
+        header.set(ValueLayout.JAVA_INT, base + CUSTOMER, stringIndexOf(order.getCustomerName()));
+        header.set(ValueLayout.JAVA_INT, base + TABLE, stringIndexOf(order.getTableName()));
+        header.set(ValueLayout.JAVA_INT, base + LINE_COUNT, lines.size());
+        header.set(ValueLayout.JAVA_LONG, base + TOTAL_CENTS, order.getTotalCents());
+        header.set(ValueLayout.JAVA_LONG, base + EPOCH_SECOND, time.toEpochSecond(ZoneOffset.UTC));
+        header.set(ValueLayout.JAVA_INT, base + NANO, time.getNano());
+        header.set(ValueLayout.JAVA_INT, base + LINE_CHUNK, lineChunk);
+        header.set(ValueLayout.JAVA_INT, base + LINE_OFFSET, (int) lineOffset);
+        size = position + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes held outside the heap
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (MemorySegment chunk : headerChunks) {
+            bytes += chunk.byteSize();
+        }
+        for (MemorySegment chunk : lineChunks) {
+            bytes += chunk.byteSize();
+        }
+        return bytes;
+    }
+
+    // A view of the order at a position
+    public OrderView view(int position) {
+        return view().moveTo(position);
+    }
+
+    // A view to be moved to an order before use, e.g. one per table model
+    public OrderView view() {
+        return new OrderView(this);
+    }
+
+    // Calls the action with one view moved along the orders before end, in billing order.
+    // The view is reused, so copy what must outlive the call.
+    public void forEach(int end, Consumer<OrderView> action) {
+        OrderView view = new OrderView(this);
+        int last = Math.min(end, size);
+        for (int position = 0; position < last; position++) {
+            action.accept(view.moveTo(position));
+        }
+    }
+
+    // Unmaps a mapped store and deletes its scratch file; views of it fail from then on.
+    // A store in native memory needs no closing.
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            arena.close();
+            channel.close();
+        }
+    }
+
+    // Read-only flyweight over one stored order; moveTo points it at another without allocating
+    public static final class OrderView {
+        private final OffHeapOrderStore store;
+        private MemorySegment header;
+        private long base;
+        private int position = -1;
+
+        private OrderView(OffHeapOrderStore store) {
+            this.store = store;
+        }
+
+        public OrderView moveTo(int position) {
+            if (position < 0 || position >= store.size) {
+                throw new IndexOutOfBoundsException("No stored order at position " + position + " of " + store.size + ".");
+            }
+            this.header = store.headerChunks[position >>> CHUNK_SHIFT];
+            this.base = headerOffset(position);
+            this.position = position;
+            return this;
+        }
+
+        public int getPosition() { return position; }
+        public int getOrderNumber() { return header.get(ValueLayout.JAVA_INT, base + ORDER_NUMBER); }
+        public String getCustomerName() { return store.strings[header.get(ValueLayout.JAVA_INT, base + CUSTOMER)]; }
+        public String getTableName() { return store.strings[header.get(ValueLayout.JAVA_INT, base + TABLE)]; }
+        public long getTotalCents() { return header.get(ValueLayout.JAVA_LONG, base + TOTAL_CENTS); }
+        public int getLineCount() { return header.get(ValueLayout.JAVA_INT, base + LINE_COUNT); }
+
+        public LocalDateTime getOrderDateTime() {
+            return LocalDateTime.ofEpochSecond(header.get(ValueLayout.JAVA_LONG, base + EPOCH_SECOND),
+                    header.get(ValueLayout.JAVA_INT, base + NANO), ZoneOffset.UTC);
+        }
+
+        public MainFrame.MenuItem getItem(int line) {
+            return store.items[lines().get(ValueLayout.JAVA_INT, lineOffset(line) + LINE_ITEM)];
+        }
+
+        public int getQuantity(int line) {
+            return lines().get(ValueLayout.JAVA_INT, lineOffset(line) + LINE_QUANTITY);
+        }
+
+        // A heap copy of the order, e.g. for rendering its bill
+        public MainFrame.Order toOrder() {
+            int lineCount = getLineCount();
+            List<MainFrame.CartItem> cart = new ArrayList<>(lineCount);
+            for (int line = 0; line < lineCount; line++) {
+                cart.add(new MainFrame.CartItem(getItem(line), getQuantity(line)));
+            }
+            return new MainFrame.Order(getOrderNumber(), getCustomerName(), getTableName(), cart, getTotalCents(), getOrderDateTime());
+        }
+
+        private MemorySegment lines() {
+            return store.lineChunks[header.get(ValueLayout.JAVA_INT, base + LINE_CHUNK)];
+        }
+
+        private long lineOffset(int line) {
+            if (line < 0 || line >= getLineCount()) {
+                throw new IndexOutOfBoundsException("Order #" + getOrderNumber() + " has no line " + line + ".");
+            }
+            return header.get(ValueLayout.JAVA_INT, base + LINE_OFFSET) + (long) line * LINE_SIZE;
+        }
+    }
+
+    private static long headerOffset(int position) {
+        return (long) (position & (ORDERS_PER_CHUNK - 1)) * HEADER_SIZE;
+    }
+
+    private MemorySegment headerChunkFor(int position) {
+        int chunk = position >>> CHUNK_SHIFT;
+        MemorySegment[] chunks = headerChunks;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunk + 1);
+            chunks[chunk] = allocate((long) ORDERS_PER_CHUNK * HEADER_SIZE);
+            headerChunks = chunks;
+        }
+        return chunks[chunk];
+    }
+
+    // Chunk with room for all lines of an order; an order's lines never span chunks
+    private int lineChunkFor(int lineCount) {
+        long bytes = (long) lineCount * LINE_SIZE;
+        MemorySegment[] chunks = lineChunks;
+        int last = chunks.length - 1;
+        if (last >= 0 && lineChunkUsed + bytes <= chunks[last].byteSize()) {
+            return last;
+        }
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[last + 1] = allocate(Math.max((long) LINES_PER_CHUNK * LINE_SIZE, bytes));
+        lineChunks = chunks;
+        lineChunkUsed = 0;
+        return last + 1;
+    }
+
+    private MemorySegment allocate(long bytes) {
+        if (channel == null) {
+            return arena.allocate(bytes, Long.BYTES);
+        }
+        try {
+            MemorySegment chunk = channel.map(FileChannel.MapMode.READ_WRITE, fileEnd, bytes, arena);
+            fileEnd += bytes;
+            return chunk;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map the order store file: " + e.getMessage(), e);
+        }
+    }
+
+    private int stringIndexOf(String value) {
+        Integer index = stringIndex.get(value);
+        if (index != null) {
+            return index;
+        }
+        String[] table = strings;
+        if (stringCount == table.length) {
+            table = Arrays.copyOf(table, stringCount * 2);
+        }
+        table[stringCount] = value;
+        strings = table;
+        stringIndex.put(value, stringCount);
+        return stringCount++;
+    }
+
+    // Catalog items are told apart by ID and price version, others by name, category and price
+    private int itemIndexOf(MainFrame.MenuItem item) {
+        Object key = item.getItemId() != 0
+                ? (Object) (((long) item.getItemId() << 32) | item.getPriceVersion())
+                : item.getName() + '\u0000' + item.getCategory() + '\u0000' + item.getPriceCents();
+        Integer index = itemIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        MainFrame.MenuItem[] table = items;
+        if (itemCount == table.length) {
+            table = Arrays.copyOf(table, itemCount * 2);
+        }
+        table[itemCount] = item;
+        items = table;
+        itemIndex.put(key, itemCount);
+        return itemCount++;
+    }
+}
@@ -0,0 +1,647 @@
+package smartdine;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Hand-written binary codec for MenuItem, CartItem and Order, replacing Java serialization.
+// Every entity is written as a record: [byte schemaVersion][int bodyLength][body].
+// Fields are only ever appended in newer schema versions, so a reader reads the fields it knows
+// and then skips to the end of the body; this keeps files written by newer versions readable.
+// One exception is cart item version 2, which replaces the embedded menu item with a reference
+// (itemId, priceVersion) into a MenuCatalog. It is only written when encoding with a catalog;
+// version 1 cart items are still read, and decoded into the catalog's shared items when one is given.
+// Prices and totals of menu items, orders and catalog entries were a double in version 1. Version 3 keeps
+// that double for older readers and appends the exact amount as long cents at the end of the body.
+// Version 2 put the long cents in place of the double, which older readers took for a double; such
+// records are still read, but never written again. Version 1 doubles are converted with Money.fromDouble.
+public final class OrderCodec {
+    static final int MENU_ITEM_VERSION = 3;
+    static final int CART_ITEM_VERSION = 2;
+    static final int ORDER_VERSION = 3;
+    static final int CATALOG_ENTRY_VERSION = 3;
+    static final int TABLE_SEATS_VERSION = 1;
+    static final int BOOKING_VERSION = 1;
+
+    // File header: magic "SDN1" followed by the kind of content; the body starts with the record count
+    static final int FILE_MAGIC = 0x53444E31;
+    static final byte KIND_MENU = 1;
+    static final byte KIND_ORDERS = 2;
+    static final byte KIND_STRINGS = 3;
+    static final byte KIND_COUNTER = 4;
+    static final byte KIND_CATALOG = 5;
+    static final byte KIND_RESERVATIONS = 6;
+    static final int FILE_HEADER_SIZE = Integer.BYTES + 1;
+    static final int ORDERS_COUNT_OFFSET = FILE_HEADER_SIZE; // Where an orders file keeps its record count
+    static final int RECORD_HEADER_SIZE = 1 + Integer.BYTES;
+
+    private OrderCodec() {
+    }
+
+    // ---- Single entities ----
+
+    public static byte[] encodeOrder(MainFrame.Order order) {
+        return encodeOrder(order, null);
+    }
+
+    public static byte[] encodeOrder(MainFrame.Order order, MenuCatalog catalog) {
+        Encoder out = new Encoder(128, catalog);
+        writeOrder(out, order);
+        return out.toByteArray();
+    }
+
+    public static MainFrame.Order decodeOrder(byte[] data) throws IOException {
+        return decodeOrder(data, null);
+    }
+
+    public static MainFrame.Order decodeOrder(byte[] data, MenuCatalog catalog) throws IOException {
+        return readOrder(new Decoder(data, 0, data.length, catalog));
+    }
+
+    static void writeMenuItem(Encoder out, String name, String category, long priceCents) {
+        int mark = out.beginRecord(MENU_ITEM_VERSION);
+        out.writeString(name);
+        out.writeString(category);
+        out.writeDouble(Money.toDouble(priceCents));
+        out.writeLong(priceCents);
+        out.endRecord(mark);
+    }
+
+    static MainFrame.MenuItem readMenuItem(Decoder in) throws IOException {
+        int end = in.beginRecord();
+        int version = in.version();
+        String name = in.readString();
+        String category = in.readString();
+        long priceCents = readAppendedCents(in, version, readCents(in, version));
+        in.skipTo(end);
+        return new MainFrame.MenuItem(name, category, priceCents);
+    }
+
+    static void writeCartItem(Encoder out, MainFrame.CartItem item) {
+        MainFrame.MenuItem menuItem = item.getMenuItem();
+        if (out.catalog != null) {
+            menuItem = out.catalog.intern(menuItem);
+        }
+        if (menuItem.getItemId() == 0) {
+            // No catalog, or the catalog entry could not be saved: embed the whole item
+            int mark = out.beginRecord(1);
+            writeMenuItem(out, menuItem.getName(), menuItem.getCategory(), menuItem.getPriceCents());
+            out.writeInt(item.getQuantity());
+            out.endRecord(mark);
+            return;
+        }
+        int mark = out.beginRecord(CART_ITEM_VERSION);
+        out.writeInt(menuItem.getItemId());
+        out.writeInt(menuItem.getPriceVersion());
+        out.writeInt(item.getQuantity());
+        out.endRecord(mark);
+    }
+
+    static MainFrame.CartItem readCartItem(Decoder in) throws IOException {
+        int end = in.beginRecord();
+        MainFrame.MenuItem menuItem;
+        if (in.version() >= 2) {
+            int itemId = in.readInt();
+            int priceVersion = in.readInt();
+            menuItem = in.catalog == null ? null : in.catalog.resolveOrNull(itemId, priceVersion);
+            if (menuItem == null) {
+                throw new IOException("Unknown menu catalog entry " + itemId + "/" + priceVersion);
+            }
+        } else {
+            menuItem = readMenuItem(in);
+            if (in.catalog != null) {
+                menuItem = in.catalog.intern(menuItem);
+            }
+        }
+        int quantity = in.readInt();
+        in.skipTo(end);
+        return new MainFrame.CartItem(menuItem, quantity);
+    }
+
+    // One price version of a menu item in the MenuCatalog file
+    static final class CatalogEntry {
+        final int itemId;
+        final int priceVersion;
+        final String name;
+        final String category;
+        final long priceCents;
+
+        CatalogEntry(int itemId, int priceVersion, String name, String category, long priceCents) {
+            this.itemId = itemId;
+            this.priceVersion = priceVersion;
+            this.name = name;
+            this.category = category;
+            this.priceCents = priceCents;
+        }
+    }
+
+    static void writeCatalogEntry(Encoder out, int itemId, int priceVersion, String name, String category, long priceCents) {
+        int mark = out.beginRecord(CATALOG_ENTRY_VERSION);
+        out.writeInt(itemId);
+        out.writeInt(priceVersion);
+        out.writeString(name);
+        out.writeString(category);
+        out.writeDouble(Money.toDouble(priceCents));
+        out.writeLong(priceCents);
+        out.endRecord(mark);
+    }
+
+    static CatalogEntry readCatalogEntry(Decoder in) throws IOException {
+        int end = in.beginRecord();
+        int version = in.version();
+        int itemId = in.readInt();
+        int priceVersion = in.readInt();
+        String name = in.readString();
+        String category = in.readString();
+        CatalogEntry entry = new CatalogEntry(itemId, priceVersion, name, category, readAppendedCents(in, version, readCents(in, version)));
+        in.skipTo(end);
+        return entry;
+    }
+
+    static void writeOrder(Encoder out, MainFrame.Order order) {
+        int mark = out.beginRecord(ORDER_VERSION);
+        out.writeInt(order.getOrderNumber());
+        out.writeString(order.getCustomerName());
+        out.writeString(order.getTableName());
+        out.writeDouble(Money.toDouble(order.getTotalCents()));
+        LocalDateTime dateTime = order.getOrderDateTime();
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+        List<MainFrame.CartItem> items = order.getItems();
+        out.writeInt(items.size());
+        for (MainFrame.CartItem item : items) {
+            writeCartItem(out, item);
+        }
+        out.writeLong(order.getTotalCents());
+        out.endRecord(mark);
+    }
+
+    static MainFrame.Order readOrder(Decoder in) throws IOException {
+        int end = in.beginRecord();
+        int version = in.version(); // Cart item records below change in.version()
+        int orderNumber = in.readInt();
+        String customerName = in.readString();
+        String tableName = in.catalog == null ? in.readString() : in.catalog.share(in.readString());
+        long totalCents = readCents(in, version);
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        int itemCount = in.readInt();
+        List<MainFrame.CartItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(readCartItem(in));
+        }
+        totalCents = readAppendedCents(in, version, totalCents);
+        in.skipTo(end);
+        return new MainFrame.Order(orderNumber, customerName, tableName, items, totalCents,
+                LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+    }
+
+    // The amount in the place version 1 had it: a double, or long cents in version 2 records.
+    // From version 3 on the double is only there for older readers; readAppendedCents reads the exact amount.
+    private static long readCents(Decoder in, int version) throws IOException {
+        if (version == 2) {
+            return in.readLong();
+        }
+        double amount = in.readDouble();
+        if (version >= 3) {
+            return 0;
+        }
+        try {
+            return Money.fromDouble(amount);
+        } catch (ArithmeticException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    // The long cents appended at the end of version 3 bodies, or the amount read in place for older records
+    private static long readAppendedCents(Decoder in, int version, long cents) throws IOException {
+        return version >= 3 ? in.readLong() : cents;
+    }
+
+    static void writeBooking(Encoder out, ReservationBook.Booking booking) {
+        int mark = out.beginRecord(BOOKING_VERSION);
+        out.writeLong(booking.getId());
+        out.writeString(booking.getTableName());
+        out.writeString(booking.getCustomerName());
+        out.writeInt(booking.getPartySize());
+        writeDateTime(out, booking.getStart());
+        writeDateTime(out, booking.getEnd());
+        out.endRecord(mark);
+    }
+
+    static ReservationBook.Booking readBooking(Decoder in) throws IOException {
+        int end = in.beginRecord();
+        ReservationBook.Booking booking = new ReservationBook.Booking(in.readLong(), in.readString(), in.readString(),
+                in.readInt(), readDateTime(in), readDateTime(in));
+        in.skipTo(end);
+        return booking;
+    }
+
+    // Local date and time as epoch seconds at UTC and nanos, like the order date
+    private static void writeDateTime(Encoder out, LocalDateTime dateTime) {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(Decoder in) throws IOException {
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+
+    // ---- Whole files ----
+
+    public static void writeMenu(List<MainFrame.MenuItem> items, OutputStream stream) throws IOException {
+        Encoder out = new Encoder(64 * Math.max(1, items.size()));
+        out.writeInt(items.size());
+        for (MainFrame.MenuItem item : items) {
+            writeMenuItem(out, item.getName(), item.getCategory(), item.getPriceCents());
+        }
+        writeFile(stream, KIND_MENU, out);
+    }
+
+    public static List<MainFrame.MenuItem> readMenu(InputStream stream) throws IOException {
+        Decoder in = readFile(stream, KIND_MENU);
+        int count = in.readInt();
+        List<MainFrame.MenuItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(readMenuItem(in));
+        }
+        return items;
+    }
+
+    // Orders are streamed record by record so a large history never needs one giant buffer
+    public static void writeOrders(Collection<MainFrame.Order> orders, OutputStream stream) throws IOException {
+        writeOrders(orders, stream, null);
+    }
+
+    // With a catalog, cart items are written as references into it
+    public static void writeOrders(Collection<MainFrame.Order> orders, OutputStream stream, MenuCatalog catalog) throws IOException {
+        DataOutputStream data = new DataOutputStream(stream);
+        data.writeInt(FILE_MAGIC);
+        data.writeByte(KIND_ORDERS);
+        data.writeInt(orders.size());
+        Encoder out = new Encoder(256, catalog);
+        for (MainFrame.Order order : orders) {
+            out.reset();
+            writeOrder(out, order);
+            out.writeTo(data);
+        }
+        data.flush();
+    }
+
+    public static List<MainFrame.Order> readOrders(InputStream stream) throws IOException {
+        return readOrders(stream, null);
+    }
+
+    public static List<MainFrame.Order> readOrders(InputStream stream, MenuCatalog catalog) throws IOException {
+        OrderReader reader = new OrderReader(stream, catalog);
+        List<MainFrame.Order> orders = new ArrayList<>(reader.getCount());
+        while (reader.hasNext()) {
+            orders.add(reader.next());
+        }
+        return orders;
+    }
+
+    // Streams the orders of an orders file one record at a time through a reusable buffer
+    public static final class OrderReader {
+        private final DataInputStream data;
+        private final MenuCatalog catalog;
+        private final int count;
+        private int read;
+        private long offset = FILE_HEADER_SIZE + Integer.BYTES; // File offset of the next record
+        private long recordOffset;
+        private byte[] buffer = new byte[256];
+        private int recordSize;
+
+        public OrderReader(InputStream stream) throws IOException {
+            this(stream, null);
+        }
+
+        // Catalog references in the orders are resolved against the catalog, which must be open
+        public OrderReader(InputStream stream, MenuCatalog catalog) throws IOException {
+            this.catalog = catalog;
+            data = new DataInputStream(stream);
+            checkHeader(data, KIND_ORDERS);
+            count = data.readInt();
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        public MainFrame.Order next() throws IOException {
+            readRecord();
+            return readOrder(new Decoder(buffer, 0, recordSize, catalog));
+        }
+
+        // Reads the next record but only decodes its order number
+        public int nextOrderNumber() throws IOException {
+            readRecord();
+            return new Decoder(buffer, RECORD_HEADER_SIZE, recordSize - RECORD_HEADER_SIZE).readInt();
+        }
+
+        // File offset of the record returned last
+        public long recordOffset() {
+            return recordOffset;
+        }
+
+        // Size of the record returned last, header included
+        public int recordSize() {
+            return recordSize;
+        }
+
+        // Reads one top-level record (version byte, length, body) into the buffer
+        private void readRecord() throws IOException {
+            if (!hasNext()) {
+                throw new EOFException("No more orders");
+            }
+            int version = data.readUnsignedByte();
+            int length = data.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupted order record length " + length);
+            }
+            recordSize = length + RECORD_HEADER_SIZE;
+            if (buffer.length < recordSize) {
+                buffer = Arrays.copyOf(buffer, Math.max(recordSize, buffer.length * 2));
+            }
+            buffer[0] = (byte) version;
+            buffer[1] = (byte) (length >>> 24);
+            buffer[2] = (byte) (length >>> 16);
+            buffer[3] = (byte) (length >>> 8);
+            buffer[4] = (byte) length;
+            data.readFully(buffer, RECORD_HEADER_SIZE, length);
+            recordOffset = offset;
+            offset += recordSize;
+            read++;
+        }
+    }
+
+    public static void writeStrings(Set<String> strings, OutputStream stream) throws IOException {
+        Encoder out = new Encoder(16 * Math.max(1, strings.size()));
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeString(s);
+        }
+        writeFile(stream, KIND_STRINGS, out);
+    }
+
+    public static Set<String> readStrings(InputStream stream) throws IOException {
+        Decoder in = readFile(stream, KIND_STRINGS);
+        int count = in.readInt();
+        Set<String> strings = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readString());
+        }
+        return strings;
+    }
+
+    // Seat counts of all tables followed by all bookings
+    public static void writeReservations(ReservationBook.Snapshot reservations, OutputStream stream) throws IOException {
+        Encoder out = new Encoder(32 * (1 + reservations.seats.size()) + 64 * reservations.bookings.size());
+        out.writeInt(reservations.seats.size());
+        for (Map.Entry<String, Integer> entry : reservations.seats.entrySet()) {
+            int mark = out.beginRecord(TABLE_SEATS_VERSION);
+            out.writeString(entry.getKey());
+            out.writeInt(entry.getValue());
+            out.endRecord(mark);
+        }
+        out.writeInt(reservations.bookings.size());
+        for (ReservationBook.Booking booking : reservations.bookings) {
+            writeBooking(out, booking);
+        }
+        writeFile(stream, KIND_RESERVATIONS, out);
+    }
+
+    public static ReservationBook.Snapshot readReservations(InputStream stream) throws IOException {
+        Decoder in = readFile(stream, KIND_RESERVATIONS);
+        int tableCount = in.readInt();
+        Map<String, Integer> seats = new HashMap<>();
+        for (int i = 0; i < tableCount; i++) {
+            int end = in.beginRecord();
+            seats.put(in.readString(), in.readInt());
+            in.skipTo(end);
+        }
+        int bookingCount = in.readInt();
+        List<ReservationBook.Booking> bookings = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            bookings.add(readBooking(in));
+        }
+        return new ReservationBook.Snapshot(seats, bookings);
+    }
+
+    public static void writeCounter(int value, OutputStream stream) throws IOException {
+        Encoder out = new Encoder(4);
+        out.writeInt(value);
+        writeFile(stream, KIND_COUNTER, out);
+    }
+
+    public static int readCounter(InputStream stream) throws IOException {
+        return readFile(stream, KIND_COUNTER).readInt();
+    }
+
+    private static void writeFile(OutputStream stream, byte kind, Encoder body) throws IOException {
+        DataOutputStream data = new DataOutputStream(stream);
+        data.writeInt(FILE_MAGIC);
+        data.writeByte(kind);
+        body.writeTo(data);
+        data.flush();
+    }
+
+    // Reads the body of a small file into memory
+    private static Decoder readFile(InputStream stream, byte kind) throws IOException {
+        DataInputStream data = new DataInputStream(stream);
+        checkHeader(data, kind);
+        byte[] body = data.readAllBytes();
+        return new Decoder(body, 0, body.length);
+    }
+
+    private static void checkHeader(DataInputStream data, byte kind) throws IOException {
+        int magic = data.readInt();
+        if (magic != FILE_MAGIC) {
+            throw new IOException("Not a SmartDine data file (magic " + Integer.toHexString(magic) + ")");
+        }
+        byte actualKind = data.readByte();
+        if (actualKind != kind) {
+            throw new IOException("Unexpected SmartDine file kind " + actualKind + ", expected " + kind);
+        }
+    }
+
+    // Growable big-endian byte buffer used for encoding
+    static final class Encoder {
+        final MenuCatalog catalog; // Null to embed menu items in cart items
+        private byte[] buf;
+        private int pos;
+
+        Encoder(int initialCapacity) {
+            this(initialCapacity, null);
+        }
+
+        Encoder(int initialCapacity, MenuCatalog catalog) {
+            this.catalog = catalog;
+            buf = new byte[Math.max(16, initialCapacity)];
+        }
+
+        void reset() { pos = 0; }
+        int size() { return pos; }
+        byte[] toByteArray() { return Arrays.copyOf(buf, pos); }
+
+        void writeTo(OutputStream stream) throws IOException {
+            stream.write(buf, 0, pos);
+        }
+
+        // Writes the record header and returns the position of the length slot, to be patched by endRecord
+        int beginRecord(int version) {
+            writeByte(version);
+            int mark = pos;
+            writeInt(0);
+            return mark;
+        }
+
+        void endRecord(int mark) {
+            int length = pos - mark - 4;
+            buf[mark] = (byte) (length >>> 24);
+            buf[mark + 1] = (byte) (length >>> 16);
+            buf[mark + 2] = (byte) (length >>> 8);
+            buf[mark + 3] = (byte) length;
+        }
+
+        void writeByte(int v) {
+            ensure(1);
+            buf[pos++] = (byte) v;
+        }
+
+        void writeInt(int v) {
+            ensure(4);
+            buf[pos++] = (byte) (v >>> 24);
+            buf[pos++] = (byte) (v >>> 16);
+            buf[pos++] = (byte) (v >>> 8);
+            buf[pos++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        void writeDouble(double v) {
+            writeLong(Double.doubleToLongBits(v));
+        }
+
+        // Strings are UTF-8 with an int length prefix; -1 encodes null
+        void writeString(String s) {
+            if (s == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(pos + extra, buf.length * 2));
+            }
+        }
+    }
+
+    // Bounds-checked big-endian reader over a byte array
+    static final class Decoder {
+        final MenuCatalog catalog; // Resolves cart item references, null if the data has none
+        private final byte[] buf;
+        private int pos;
+        private final int limit;
+        private int version; // Schema version of the record begun last
+
+        Decoder(byte[] buf, int offset, int length) {
+            this(buf, offset, length, null);
+        }
+
+        Decoder(byte[] buf, int offset, int length, MenuCatalog catalog) {
+            this.catalog = catalog;
+            this.buf = buf;
+            this.pos = offset;
+            this.limit = offset + length;
+        }
+
+        int version() { return version; }
+        int position() { return pos; }
+
+        // Reads a record header and returns the position where the record body ends
+        int beginRecord() throws IOException {
+            version = readByte() & 0xFF;
+            if (version == 0) {
+                throw new IOException("Invalid schema version 0");
+            }
+            int length = readInt();
+            if (length < 0 || pos + length > limit) {
+                throw new IOException("Truncated record (length " + length + ")");
+            }
+            return pos + length;
+        }
+
+        // Skips fields appended by newer schema versions
+        void skipTo(int end) throws IOException {
+            if (pos > end) {
+                throw new IOException("Record overran its declared length");
+            }
+            pos = end;
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buf[pos++];
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            int v = ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                    | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+            pos += 4;
+            return v;
+        }
+
+        long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        double readDouble() throws IOException {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid string length " + length);
+            }
+            require(length);
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        private void require(int n) throws IOException {
+            if (pos + n > limit) {
+                throw new EOFException("Unexpected end of record");
+            }
+        }
+    }
+}
@@ -0,0 +1,1138 @@
+package smartdine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Headless ordering engine shared by every terminal (MainFrame) in the process.
+// Holds the menu catalog, tables and their bookings, per-table carts, billing and the order history.
+// Table state and carts are guarded by striped locks keyed on the table name, so waiters working
+// on different tables never contend; only the final append to the order history is serialized.
+public final class OrderEngine {
+    private static final int LOCK_STRIPES = 64;
+    private static final int DEFAULT_TABLE_COUNT = 10; // Tables T1 to T10 always exist
+    private static final int FIRST_ORDER_NUMBER = 1000;
+    private static final int CLOSE_FLUSH_TIMEOUT_SECONDS = 10;
+    private static final int BOOKING_RETENTION_DAYS = 30; // Past bookings are dropped on load after this
+    private static final int KITCHEN_SUBMIT_TIMEOUT_MS = 1000; // Longest billing waits for a full kitchen station
+    // Group commit of bills: how long the spooler waits for more bills before one fsync, and how many it takes.
+    // No wait by default; bills billed during one fsync already share the next (see BillSpoolerThroughput).
+    private static final long BILL_BATCH_WINDOW_MICROS = Long.getLong("smartdine.bills.batchWindowMicros", 0);
+    private static final int BILL_BATCH_MAX = Integer.getInteger("smartdine.bills.maxBatch", 256);
+
+    // File paths for persistence
+    static final String MENU_FILE = "smartdine_menu.dat";
+    static final String TABLES_FILE = "smartdine_tables.dat";
+    static final String TABLE_LIST_FILE = "smartdine_table_list.dat"; // Every known table, reserved or not
+    static final String RESERVATIONS_FILE = "smartdine_reservations.dat"; // Seats per table and bookings for later
+    static final String CATALOG_FILE = "smartdine_catalog.dat"; // Every menu item and price ever sold, by ID
+    static final String ORDERS_FILE = "smartdine_orders.dat"; // Checkpointed order history, paged in on demand
+    static final String ORDERS_INDEX_FILE = "smartdine_orders.idx"; // Order number and file offset of every stored order
+    static final String ORDER_NUMBERS_FILE = "smartdine_order_numbers.dat"; // End of the last reserved block of order numbers
+    static final String ORDER_COUNTER_FILE = "smartdine_order_counter.dat"; // Counter saved by older versions
+    static final String ORDERS_JOURNAL_FILE = "smartdine_orders.journal"; // Orders appended since the last checkpoint
+    static final String ORDER_STORE_FILE_PREFIX = "smartdine_orders"; // Scratch files of mapped order stores
+    static final String ORDER_STORE_FILE_SUFFIX = ".offheap";
+    static final String ORDER_STORE_MAPPED_PROPERTY = "smartdine.orderStore.mapped"; // -D...=true maps the store to a file
+    static final String BILLS_DIRECTORY = "bills"; // Directory holding the bill archive segments and index
+    // Java-serialized files from older versions, read once when the binary files do not exist yet
+    static final String LEGACY_MENU_FILE = "smartdine_menu.ser";
+    static final String LEGACY_TABLES_FILE = "smartdine_tables.ser";
+    static final String LEGACY_ORDERS_FILE = "smartdine_orders.ser";
+    static final String LEGACY_ORDER_COUNTER_FILE = "smartdine_order_counter.ser";
+
+    // Latencies and counts of the operations, also visible over JMX
+    private static final Metrics.Histogram GENERATE_BILL_TIME = Metrics.histogram("generateBill");
+    private static final Metrics.Histogram JOURNAL_APPEND_TIME = Metrics.histogram("journalAppend");
+    private static final Metrics.Histogram SAVE_BILL_TIME = Metrics.histogram("saveBillToFile");
+    private static final Metrics.Histogram SAVE_ALL_DATA_TIME = Metrics.histogram("saveAllData");
+    private static final Metrics.Histogram LOAD_ALL_DATA_TIME = Metrics.histogram("loadAllData");
+    private static final Metrics.Counter ERRORS = Metrics.counter("errors");
+
+    private static OrderEngine shared;
+
+    private final ReentrantLock[] tableLocks = new ReentrantLock[LOCK_STRIPES];
+
+    // Current menu; readers take the snapshot without locking, writers publish a new one by compare-and-set
+    private final AtomicReference<MenuSnapshot> menu = new AtomicReference<>(MenuSnapshot.EMPTY);
+    private volatile MenuSearchIndex menuSearchIndex; // Built lazily for the current menu version
+
+    private final Set<String> tables = new ConcurrentSkipListSet<>(); // Sorted table names
+    private final Set<String> reservedTables = ConcurrentHashMap.newKeySet(); // Tables seated right now
+    private final ReservationBook reservationBook = new ReservationBook(); // Bookings for time slots
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>(); // Guarded by the table's lock
+
+    private final OrderNumberAllocator orderNumbers;
+    private final MenuCatalog catalog; // Shared MenuItem instances; orders on disk refer to them by ID
+
+    // Order history on disk; appends and the analytics target are guarded by historyLock
+    private final OrderHistory orderHistory;
+    private final Object historyLock = new Object();
+    // Sales totals are built from the history on first use, then kept up to date as orders are billed
+    private final Object analyticsLock = new Object();
+    private SalesAnalytics analyticsTarget; // Receives new orders once a build has started, guarded by historyLock
+    private volatile SalesAnalytics salesAnalytics; // Null until built, reset on reload
+    // Search indexes likewise; orders billed during the build wait in the backlog to keep positions in order
+    private final Object searchLock = new Object();
+    private List<MainFrame.Order> searchBacklog; // Guarded by historyLock
+    private OrderSearchIndex searchTarget; // Receives new orders once built, guarded by historyLock
+    private volatile OrderSearchIndex orderSearch; // Null until built, reset on reload
+    // Off-heap copy of the history for views, built and followed the same way
+    private final Object storeLock = new Object();
+    private List<MainFrame.Order> storeBacklog; // Guarded by historyLock
+    private OffHeapOrderStore storeTarget; // Receives new orders once built, guarded by historyLock
+    private volatile OffHeapOrderStore orderStore; // Null until built, reset on reload
+
+    private final File dataDirectory; // Where the data files live, null for the working directory
+    private final OrderJournal orderJournal;
+    private final BillArchive billArchive;
+    private final BillSpooler billSpooler; // Writes bills to the archive off the billing thread
+    private final KitchenPipeline kitchen = new KitchenPipeline(); // Tickets of billed orders, per station
+
+    private final PersistenceScheduler persistence; // Created last in the constructor, as it keeps the engine
+    private volatile CompletableFuture<Void> loading = CompletableFuture.completedFuture(null); // Latest background load
+
+    // Lines of one table's cart and their total, which is adjusted by every change instead of summed again
+    private static final class Cart {
+        final List<MainFrame.CartItem> items = new ArrayList<>();
+        long totalCents;
+
+        void adjust(long cents) {
+            totalCents = Money.plus(totalCents, cents);
+        }
+    }
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<ErrorListener> errorListeners = new CopyOnWriteArrayList<>();
+    private final Consumer<String> metricsErrorListener = message -> fireError("Monitoring Error", message); // Added last in the constructor, removed on close
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>(); // Registered in the constructor, removed on close
+
+    // Receives failures of background work with a short title, e.g. for a dialog, and a user-facing message
+    public interface ErrorListener {
+        void onError(String title, String message);
+    }
+
+    public OrderEngine() {
+        this(null);
+    }
+
+    // Keeps all data files in the given directory instead of the working directory
+    public OrderEngine(File dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        this.catalog = new MenuCatalog(dataFile(CATALOG_FILE));
+        this.orderHistory = new OrderHistory(dataFile(ORDERS_FILE), dataFile(ORDERS_INDEX_FILE), dataFile(LEGACY_ORDERS_FILE), catalog);
+        this.orderJournal = new OrderJournal(dataFile(ORDERS_JOURNAL_FILE), catalog);
+        this.orderNumbers = new OrderNumberAllocator(dataFile(ORDER_NUMBERS_FILE), FIRST_ORDER_NUMBER);
+        this.billArchive = new BillArchive(dataFile(BILLS_DIRECTORY));
+        this.billSpooler = new BillSpooler(billArchive, BILL_BATCH_WINDOW_MICROS, TimeUnit.MICROSECONDS, BILL_BATCH_MAX);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            tableLocks[i] = new ReentrantLock();
+        }
+        // The latest engine is the one JMX shows; in the application there is only one
+        gauge("tables", tables::size);
+        gauge("reservedTables", reservedTables::size);
+        gauge("openCarts", carts::size);
+        gauge("bookings", reservationBook::size);
+        gauge("kitchenQueuedTickets", () -> {
+            long queued = 0;
+            for (String station : kitchen.getStations()) {
+                queued += kitchen.getStats(station).getQueued();
+            }
+            return queued;
+        });
+        gauge("billSpoolQueueDepth", billSpooler::getQueueDepth);
+        gauge("orderStoreBytes", () -> {
+            OffHeapOrderStore store = orderStore;
+            return store == null ? 0 : store.offHeapBytes();
+        });
+        this.persistence = new PersistenceScheduler(this);
+        gauge("saveQueueDepth", persistence::getQueueDepth);
+        Metrics.addErrorListener(metricsErrorListener);
+    }
+
+    private void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+        Metrics.gauge(name, value);
+    }
+
+    // The engine shared by all terminals of this process, loaded from disk on first use
+    public static OrderEngine shared() {
+        OrderEngine engine = startShared();
+        engine.whenLoaded().join();
+        return engine;
+    }
+
+    // The shared engine at once, loading from disk in the background on first use; see whenLoaded()
+    public static synchronized OrderEngine startShared() {
+        if (shared == null) {
+            shared = new OrderEngine();
+            shared.loadAllDataAsync();
+        }
+        return shared;
+    }
+
+    // ---- Listeners ----
+
+    // Called (on the thread that made the change) whenever tables, carts, menu or history change
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    // Called when persistence, the kitchen or the metrics fail in the background of an operation
+    public void addErrorListener(ErrorListener listener) {
+        errorListeners.add(listener);
+    }
+
+    public void removeErrorListener(ErrorListener listener) {
+        errorListeners.remove(listener);
+    }
+
+    private void fireChange() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    // Fires the change and schedules a background save of menu, tables and reservations
+    private void fireStateChange() {
+        persistence.requestSave();
+        fireChange();
+    }
+
+    private void fireError(String title, String message) {
+        ERRORS.increment();
+        System.err.println(message);
+        for (ErrorListener listener : errorListeners) {
+            listener.onError(title, message);
+        }
+    }
+
+    // ---- Menu catalog ----
+
+    public List<MainFrame.MenuItem> getMenuItems() {
+        return menu.get().getItems();
+    }
+
+    // The current menu, consistent for as long as the caller holds on to it
+    public MenuSnapshot getMenu() {
+        return menu.get();
+    }
+
+    public MainFrame.MenuItem findMenuItem(String name) {
+        return menu.get().find(name);
+    }
+
+    // Returns false if an item with the same name (ignoring case) already exists
+    public boolean addMenuItem(MainFrame.MenuItem newItem) {
+        MainFrame.MenuItem item = null;
+        while (true) {
+            MenuSnapshot current = menu.get();
+            if (current.containsIgnoreCase(newItem.getName(), null)) {
+                return false;
+            }
+            if (item == null) {
+                item = catalog.intern(newItem);
+            }
+            if (menu.compareAndSet(current, current.with(item))) {
+                break;
+            }
+        }
+        fireStateChange();
+        return true;
+    }
+
+    // Returns false if the item does not exist or the new name is taken by another item.
+    // The item is replaced, never changed, so readers see either the old item or the new one.
+    public boolean updateMenuItem(String oldName, String newName, String newCategory, long newPriceCents) {
+        MainFrame.MenuItem item = null;
+        while (true) {
+            MenuSnapshot current = menu.get();
+            if (current.find(oldName) == null || current.containsIgnoreCase(newName, oldName)) {
+                return false;
+            }
+            if (item == null) {
+                item = catalog.intern(newName, newCategory, newPriceCents);
+            }
+            if (menu.compareAndSet(current, current.replacing(oldName, item))) {
+                break;
+            }
+        }
+        fireStateChange();
+        return true;
+    }
+
+    public boolean removeMenuItem(String name) {
+        while (true) {
+            MenuSnapshot current = menu.get();
+            MenuSnapshot next = current.without(name);
+            if (next == null) {
+                return false;
+            }
+            if (menu.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        fireStateChange();
+        return true;
+    }
+
+    public long getMenuVersion() {
+        return menu.get().getVersion();
+    }
+
+    // Search index over the current menu, rebuilt on first use after a menu change
+    public MenuSearchIndex getMenuSearchIndex() {
+        MenuSnapshot current = menu.get();
+        MenuSearchIndex index = menuSearchIndex;
+        if (index != null && index.getMenuVersion() == current.getVersion()) {
+            return index;
+        }
+        index = new MenuSearchIndex(current.getItems(), current.getVersion());
+        menuSearchIndex = index;
+        return index;
+    }
+
+    // ---- Tables ----
+
+    public List<String> getTables() {
+        return new ArrayList<>(tables);
+    }
+
+    public boolean addTable(String tableName) {
+        return addTable(tableName, ReservationBook.DEFAULT_SEATS);
+    }
+
+    // Returns false if the table exists. The reservation book takes the seats only for a table it does not know,
+    // so two terminals adding the same table cannot overwrite each other's seat count.
+    public boolean addTable(String tableName, int seats) {
+        reservationBook.addTable(tableName, seats); // Throws on a table without seats
+        boolean added = tables.add(tableName);
+        if (added) {
+            fireStateChange();
+        }
+        return added;
+    }
+
+    // Live read-only view of the reserved tables
+    public Set<String> getReservedTables() {
+        return Collections.unmodifiableSet(reservedTables);
+    }
+
+    public boolean isTable(String tableName) {
+        return tables.contains(tableName);
+    }
+
+    public boolean isReserved(String tableName) {
+        return reservedTables.contains(tableName);
+    }
+
+    // Returns false if the table is already reserved
+    public boolean reserveTable(String tableName) {
+        DiningEvents.TableEvent event = new DiningEvents.TableEvent();
+        event.begin();
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            if (!reservedTables.add(tableName)) {
+                commitTableEvent(event, tableName, "reserve", false);
+                return false;
+            }
+            if (tables.add(tableName)) {
+                reservationBook.addTable(tableName);
+            }
+        } finally {
+            lock.unlock();
+        }
+        fireStateChange();
+        commitTableEvent(event, tableName, "reserve", true);
+        return true;
+    }
+
+    // Returns false if the table was not reserved; any items left in its cart are discarded
+    public boolean freeTable(String tableName) {
+        DiningEvents.TableEvent event = new DiningEvents.TableEvent();
+        event.begin();
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            if (!reservedTables.remove(tableName)) {
+                commitTableEvent(event, tableName, "free", false);
+                return false;
+            }
+            carts.remove(tableName);
+        } finally {
+            lock.unlock();
+        }
+        fireStateChange();
+        commitTableEvent(event, tableName, "free", true);
+        return true;
+    }
+
+    private static void commitTableEvent(DiningEvents.TableEvent event, String tableName, String action, boolean changed) {
+        if (event.shouldCommit()) {
+            event.table = tableName;
+            event.action = action;
+            event.changed = changed;
+            event.commit();
+        }
+    }
+
+    // ---- Bookings ----
+
+    // Books a known table for [start, end); throws IllegalStateException if the slot is taken or too small
+    public ReservationBook.Booking bookTable(String tableName, String customerName, int partySize, LocalDateTime start, LocalDateTime end) {
+        if (!tables.contains(tableName)) {
+            throw new IllegalArgumentException(tableName + " is not a table.");
+        }
+        ReservationBook.Booking booking = reservationBook.book(tableName, customerName, partySize, start, end);
+        fireStateChange();
+        return booking;
+    }
+
+    public boolean cancelBooking(long bookingId) {
+        boolean cancelled = reservationBook.cancel(bookingId);
+        if (cancelled) {
+            fireStateChange();
+        }
+        return cancelled;
+    }
+
+    // Tables big enough for the party with no booking overlapping [start, end), smallest first.
+    // Only bookings are considered; a table seated now is free for a slot that starts later.
+    public List<String> findFreeTables(int partySize, LocalDateTime start, LocalDateTime end) {
+        return reservationBook.findFreeTables(partySize, start, end);
+    }
+
+    // Returns null if the table is not booked at that time
+    public ReservationBook.Booking getBookingAt(String tableName, LocalDateTime time) {
+        return reservationBook.bookingAt(tableName, time);
+    }
+
+    // Bookings of all tables starting in [from, to), in start order
+    public List<ReservationBook.Booking> getBookingsStarting(LocalDateTime from, LocalDateTime to) {
+        return reservationBook.getBookingsStarting(from, to);
+    }
+
+    // ---- Carts ----
+
+    // Returns a copy of the table's cart
+    public List<MainFrame.CartItem> getCart(String tableName) {
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            Cart cart = carts.get(tableName);
+            List<MainFrame.CartItem> copy = new ArrayList<>();
+            if (cart != null) {
+                for (MainFrame.CartItem item : cart.items) {
+                    copy.add(new MainFrame.CartItem(item.getMenuItem(), item.getQuantity()));
+                }
+            }
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds the item to the table's cart, merging with an existing line for the same item
+    public void addToCart(String tableName, MainFrame.MenuItem menuItem, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be a positive number.");
+        }
+        DiningEvents.AddToCartEvent event = new DiningEvents.AddToCartEvent();
+        event.begin();
+        menuItem = catalog.intern(menuItem); // Carts and orders share the catalog's instances
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            requireReserved(tableName);
+            Cart cart = carts.computeIfAbsent(tableName, t -> new Cart());
+            MainFrame.CartItem existingItem = findLine(cart, menuItem.getName());
+            if (existingItem != null) {
+                // A merged line keeps the price it was first added at
+                int newQuantity = Math.addExact(existingItem.getQuantity(), quantity);
+                cart.adjust(Money.times(existingItem.getMenuItem().getPriceCents(), quantity));
+                existingItem.setQuantity(newQuantity);
+            } else {
+                cart.adjust(Money.times(menuItem.getPriceCents(), quantity));
+                cart.items.add(new MainFrame.CartItem(menuItem, quantity));
+            }
+        } finally {
+            lock.unlock();
+        }
+        fireChange();
+        if (event.shouldCommit()) {
+            event.table = tableName;
+            event.item = menuItem.getName();
+            event.quantity = quantity;
+            event.commit();
+        }
+    }
+
+    // Sets the quantity of a cart line; a quantity of 0 removes the line
+    public void setCartQuantity(String tableName, int index, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be a positive number.");
+        }
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            Cart cart = cartLine(tableName, index);
+            MainFrame.CartItem item = cart.items.get(index);
+            long priceCents = item.getMenuItem().getPriceCents();
+            cart.adjust(Money.times(priceCents, quantity - item.getQuantity()));
+            if (quantity == 0) {
+                cart.items.remove(index);
+            } else {
+                item.setQuantity(quantity);
+            }
+        } finally {
+            lock.unlock();
+        }
+        fireChange();
+    }
+
+    public void removeFromCart(String tableName, int index) {
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            Cart cart = cartLine(tableName, index);
+            cart.adjust(-cart.items.remove(index).getTotalCents());
+        } finally {
+            lock.unlock();
+        }
+        fireChange();
+    }
+
+    // Total of the table's cart in cents, kept up to date as lines change
+    public long getCartTotal(String tableName) {
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            Cart cart = carts.get(tableName);
+            return cart == null ? 0 : cart.totalCents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The table's cart, if it has a line at the index; callers hold the table's lock
+    private Cart cartLine(String tableName, int index) {
+        Cart cart = carts.get(tableName);
+        if (cart == null || index < 0 || index >= cart.items.size()) {
+            throw new IllegalArgumentException("No cart item at position " + index + " for " + tableName + ".");
+        }
+        return cart;
+    }
+
+    private static MainFrame.CartItem findLine(Cart cart, String itemName) {
+        for (MainFrame.CartItem item : cart.items) {
+            if (item.getMenuItem().getName().equals(itemName)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    // ---- Billing ----
+
+    // Turns the table's cart into an order, frees the table, and persists the order and its bill
+    public MainFrame.Order generateBill(String tableName, String customerName) {
+        long start = System.nanoTime();
+        DiningEvents.GenerateBillEvent event = new DiningEvents.GenerateBillEvent();
+        event.begin();
+        MainFrame.Order order;
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            requireReserved(tableName);
+            Cart cart = carts.get(tableName);
+            if (cart == null || cart.items.isEmpty()) {
+                throw new IllegalStateException("Cart is empty.");
+            }
+            int orderNumber;
+            try {
+                orderNumber = orderNumbers.next(); // Only touches the disk once per block of numbers
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not reserve an order number: " + e.getMessage());
+            }
+            order = new MainFrame.Order(orderNumber, customerName, tableName, cart.items, cart.totalCents, LocalDateTime.now());
+            carts.remove(tableName);
+            reservedTables.remove(tableName); // Free the table after billing
+        } finally {
+            lock.unlock();
+        }
+
+        recordOrder(order);
+        fireStateChange();
+        GENERATE_BILL_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            int itemCount = 0;
+            for (MainFrame.CartItem item : order.getItems()) {
+                itemCount += item.getQuantity();
+            }
+            event.orderNumber = order.getOrderNumber();
+            event.table = tableName;
+            event.itemCount = itemCount;
+            event.totalCents = order.getTotalCents();
+            event.commit();
+        }
+        return order;
+    }
+
+    private void recordOrder(MainFrame.Order order) {
+        // Added to the history before it is journaled, so a checkpoint never misses a journaled order
+        SalesAnalytics analytics;
+        synchronized (historyLock) {
+            orderHistory.append(order);
+            analytics = analyticsTarget;
+            if (searchTarget != null) {
+                searchTarget.add(order); // Indexed at the position it was just appended at
+            } else if (searchBacklog != null) {
+                searchBacklog.add(order);
+            }
+            if (storeTarget != null) {
+                storeTarget.add(order);
+            } else if (storeBacklog != null) {
+                storeBacklog.add(order);
+            }
+        }
+        if (analytics != null) {
+            analytics.record(order);
+        }
+        try {
+            long start = System.nanoTime();
+            orderJournal.append(order);
+            JOURNAL_APPEND_TIME.recordSince(start);
+            if (orderJournal.isCheckpointDue()) {
+                orderJournal.checkpoint(orderHistory);
+            }
+        } catch (IOException e) {
+            fireError("Order Save Error", "Error saving order #" + order.getOrderNumber() + ": " + e.getMessage());
+        }
+        sendToKitchen(order);
+        // Only handed to the spooler here; it is written and forced to disk with the next batch
+        long start = System.nanoTime();
+        int orderNumber = order.getOrderNumber();
+        billSpooler.submit(orderNumber, BillRenderer.RECEIPT.encode(order)).whenComplete((written, e) -> {
+            if (e == null) {
+                System.out.println("Bill for order #" + orderNumber + " saved to the bill archive");
+            } else {
+                fireError("Bill Save Error", "Error saving bill to file: " + e.getMessage());
+            }
+        });
+        SAVE_BILL_TIME.recordSince(start);
+    }
+
+    // Completes once the bills of all orders billed so far are on disk, e.g. before printing a receipt
+    // that must survive a power loss. Bills that could not be written are reported to the error listeners.
+    public CompletableFuture<Void> syncBills() {
+        return billSpooler.sync();
+    }
+
+    // The order is billed and saved either way; a station that stays full only misses its ticket
+    private void sendToKitchen(MainFrame.Order order) {
+        try {
+            List<String> full = kitchen.submit(order, KITCHEN_SUBMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!full.isEmpty()) {
+                List<String> stations = new ArrayList<>(full.size());
+                for (String station : full) {
+                    stations.add(kitchen.isAttended(station) ? station : station + " (no display open)");
+                }
+                fireError("Kitchen Error", "Kitchen station " + String.join(", ", stations) + " is full; order #" + order.getOrderNumber()
+                        + " was not sent to it.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fireError("Kitchen Error", "Order #" + order.getOrderNumber() + " was not sent to the kitchen.");
+        }
+    }
+
+    public KitchenPipeline getKitchen() {
+        return kitchen;
+    }
+
+    // Builds the receipt text for an order
+    public static String buildBillText(MainFrame.Order order) {
+        return BillRenderer.RECEIPT.render(order);
+    }
+
+    // ---- Order history ----
+
+    public int getOrderCount() {
+        return orderHistory.size();
+    }
+
+    // Order at a position in billing order; the history only grows between reloads.
+    // Past orders are read from disk a page at a time, so call this for the rows actually shown.
+    public MainFrame.Order getOrderAt(int position) {
+        try {
+            return orderHistory.getOrderAt(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading order history", e);
+        }
+    }
+
+    // Returns null if the order does not exist or the history could not be read
+    public MainFrame.Order findOrder(int orderNumber) {
+        try {
+            return orderHistory.find(orderNumber);
+        } catch (IOException e) {
+            System.err.println("Error reading order history: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Streams every order of the history in billing order, without keeping them in memory
+    public void forEachOrder(Consumer<MainFrame.Order> action) throws IOException {
+        orderHistory.forEach(orderHistory.size(), action);
+    }
+
+    // Sales totals of the whole history, kept up to date as orders are billed.
+    // The first call reads the whole history, so call it off the EDT.
+    public SalesAnalytics getSalesAnalytics() throws IOException {
+        SalesAnalytics analytics = salesAnalytics;
+        if (analytics != null) {
+            return analytics;
+        }
+        synchronized (analyticsLock) {
+            if (salesAnalytics != null) {
+                return salesAnalytics;
+            }
+            analytics = new SalesAnalytics();
+            int end;
+            synchronized (historyLock) {
+                analyticsTarget = analytics; // Orders billed from now on are recorded by recordOrder
+                end = orderHistory.size();
+            }
+            orderHistory.forEachParallel(end, analytics::record);
+            synchronized (historyLock) {
+                if (analyticsTarget == analytics) { // Not replaced by a reload in the meantime
+                    salesAnalytics = analytics;
+                }
+            }
+            return analytics;
+        }
+    }
+
+    // Search indexes over the whole history, kept up to date as orders are billed.
+    // The first call reads the whole history, so call it off the EDT.
+    public OrderSearchIndex getOrderSearchIndex() throws IOException {
+        OrderSearchIndex index = orderSearch;
+        if (index != null) {
+            return index;
+        }
+        synchronized (searchLock) {
+            if (orderSearch != null) {
+                return orderSearch;
+            }
+            index = new OrderSearchIndex();
+            List<MainFrame.Order> backlog = new ArrayList<>();
+            int end;
+            synchronized (historyLock) {
+                searchBacklog = backlog; // Orders billed from now on wait until the history up to end is indexed
+                end = orderHistory.size();
+            }
+            orderHistory.forEach(end, index::add);
+            synchronized (historyLock) {
+                if (searchBacklog == backlog) { // Not replaced by a reload in the meantime
+                    for (MainFrame.Order order : backlog) {
+                        index.add(order);
+                    }
+                    searchBacklog = null;
+                    searchTarget = index;
+                    orderSearch = index;
+                }
+            }
+            return index;
+        }
+    }
+
+    // History positions of the orders matching all given criteria, newest first; see OrderSearchIndex.search
+    public int[] searchOrders(String customer, String table, String item, LocalDate from, LocalDate to, int limit) throws IOException {
+        return getOrderSearchIndex().search(customer, table, item, from, to, limit);
+    }
+
+    // History positions of the orders whose customer or table name contains the text, oldest first
+    public int[] searchOrdersByName(String text) throws IOException {
+        return getOrderSearchIndex().searchNames(text);
+    }
+
+    // Off-heap copy of the whole history, kept up to date as orders are billed; its views read orders without
+    // paging them in from disk or allocating them. The first call reads the whole history, so call it off the EDT.
+    public OffHeapOrderStore getOrderStore() throws IOException {
+        OffHeapOrderStore store = orderStore;
+        if (store != null) {
+            return store;
+        }
+        synchronized (storeLock) {
+            if (orderStore != null) {
+                return orderStore;
+            }
+            // Every mapped store gets its own scratch file, so one replaced by a reload can still be unmapped
+            store = Boolean.getBoolean(ORDER_STORE_MAPPED_PROPERTY)
+                    ? new OffHeapOrderStore(Files.createTempFile(dataDirectory == null ? Path.of("") : dataDirectory.toPath(),
+                            ORDER_STORE_FILE_PREFIX, ORDER_STORE_FILE_SUFFIX))
+                    : new OffHeapOrderStore();
+            List<MainFrame.Order> backlog = new ArrayList<>();
+            int end;
+            synchronized (historyLock) {
+                storeBacklog = backlog; // Orders billed from now on wait until the history up to end is copied
+                end = orderHistory.size();
+            }
+            orderHistory.forEach(end, store::add);
+            synchronized (historyLock) {
+                if (storeBacklog == backlog) { // Not replaced by a reload in the meantime
+                    for (MainFrame.Order order : backlog) {
+                        store.add(order);
+                    }
+                    storeBacklog = null;
+                    storeTarget = store;
+                    orderStore = store;
+                    return store;
+                }
+            }
+            closeOrderStore(store);
+            return getOrderStore();
+        }
+    }
+
+    // Returns the archived bill text, or null if the order has no archived bill
+    public String readArchivedBill(int orderNumber) throws IOException {
+        String spooled = billSpooler.readUnwritten(orderNumber);
+        return spooled != null ? spooled : billArchive.read(orderNumber);
+    }
+
+    // ---- Persistence ----
+
+    // Point-in-time copy of the state written by saveAllData
+    static final class StateSnapshot {
+        final List<MainFrame.MenuItem> menu;
+        final Set<String> tables;
+        final Set<String> reservedTables;
+        final ReservationBook.Snapshot reservations;
+
+        StateSnapshot(List<MainFrame.MenuItem> menu, Set<String> tables, Set<String> reservedTables, ReservationBook.Snapshot reservations) {
+            this.menu = menu;
+            this.tables = tables;
+            this.reservedTables = reservedTables;
+            this.reservations = reservations;
+        }
+    }
+
+    // Copies menu, tables and reservations without touching the disk.
+    // Holding every table stripe makes the tables and reservations agree with each other:
+    // no table can be half way between being added and being reserved.
+    StateSnapshot snapshotState() {
+        List<MainFrame.MenuItem> menu = this.menu.get().getItems(); // Immutable snapshot, already consistent
+        for (ReentrantLock lock : tableLocks) {
+            lock.lock();
+        }
+        try {
+            return new StateSnapshot(menu, new HashSet<>(tables), new HashSet<>(reservedTables), reservationBook.snapshot());
+        } finally {
+            for (ReentrantLock lock : tableLocks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Writes a snapshot to disk; returns false if any file could not be written
+    boolean writeState(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        boolean saved = MainFrame.FileManager.saveMenuToFile(snapshot.menu, dataFile(MENU_FILE));
+        saved &= MainFrame.FileManager.saveSetToFile(snapshot.reservedTables, dataFile(TABLES_FILE));
+        saved &= MainFrame.FileManager.saveSetToFile(snapshot.tables, dataFile(TABLE_LIST_FILE));
+        saved &= MainFrame.FileManager.saveReservationsToFile(snapshot.reservations, dataFile(RESERVATIONS_FILE));
+        // Orders are appended to the journal as they are billed, and order numbers are reserved by the allocator
+        SAVE_ALL_DATA_TIME.recordSince(start);
+        return saved;
+    }
+
+    // Saves on the calling thread; returns false if any file could not be written
+    public boolean saveAllData() {
+        return writeState(snapshotState());
+    }
+
+    // Schedules a save on the persistence thread; bursts of requests are written once
+    public void requestSave() {
+        persistence.requestSave();
+    }
+
+    public PersistenceScheduler getPersistenceScheduler() {
+        return persistence;
+    }
+
+    // Reloads menu, tables, reservations and bookings from disk and opens the order history without
+    // reading it; past orders are paged in when a view or report asks for them. Carts of reserved tables are kept.
+    public void loadAllData() {
+        long start = System.nanoTime();
+        try {
+            catalog.open(); // Before anything that decodes orders
+        } catch (IOException e) {
+            System.err.println("Error loading menu catalog: " + e.getMessage());
+        }
+        // The data files are independent of each other, so they are read at the same time: each on a
+        // virtual thread, the order history and journal on this one. All are read before any state changes.
+        Future<List<MainFrame.MenuItem>> menuFile;
+        Future<Set<String>> reservationsFile;
+        Future<AtomicInteger> counterFile;
+        Future<Set<String>> tableListFile;
+        Future<ReservationBook.Snapshot> bookingsFile;
+        List<MainFrame.Order> journaledOrders = new ArrayList<>();
+        int[] storedTail = new int[0];
+        try (ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor()) {
+            menuFile = loader.submit(() -> {
+                List<MainFrame.MenuItem> loaded = MainFrame.FileManager.loadMenuFromFile(dataFile(MENU_FILE), dataFile(LEGACY_MENU_FILE));
+                List<MainFrame.MenuItem> shared = new ArrayList<>(loaded.size());
+                for (MainFrame.MenuItem item : loaded) {
+                    shared.add(catalog.intern(item));
+                }
+                return shared;
+            });
+            reservationsFile = loader.submit(() -> MainFrame.FileManager.loadSetFromFile(dataFile(TABLES_FILE), dataFile(LEGACY_TABLES_FILE)));
+            counterFile = loader.submit(() -> MainFrame.FileManager.loadAtomicInteger(dataFile(ORDER_COUNTER_FILE),
+                    dataFile(LEGACY_ORDER_COUNTER_FILE), FIRST_ORDER_NUMBER));
+            // Null for data from before the table list was saved
+            tableListFile = loader.submit(() -> new File(dataFile(TABLE_LIST_FILE)).exists()
+                    ? MainFrame.FileManager.loadSetFromFile(dataFile(TABLE_LIST_FILE)) : null);
+            bookingsFile = loader.submit(() -> MainFrame.FileManager.loadReservationsFromFile(dataFile(RESERVATIONS_FILE)));
+            try {
+                orderHistory.open();
+                journaledOrders = orderJournal.replay(); // Orders billed since the last checkpoint
+                // Only orders of the last checkpoint can also be in the journal; a few extra are read to be safe
+                storedTail = orderHistory.tailNumbers(journaledOrders.size() + 2 * OrderJournal.CHECKPOINT_INTERVAL);
+                Arrays.sort(storedTail);
+            } catch (IOException e) {
+                System.err.println("Error loading orders: " + e.getMessage());
+            }
+        } // Waits for every file
+
+        List<MainFrame.MenuItem> loadedMenu = menuFile.resultNow();
+        if (loadedMenu.isEmpty()) {
+            loadedMenu = new ArrayList<>();
+            for (MainFrame.MenuItem item : defaultMenuItems()) { // Load default if no data was found
+                loadedMenu.add(catalog.intern(item));
+            }
+        }
+        List<MainFrame.MenuItem> sharedMenu = loadedMenu;
+        menu.updateAndGet(current -> current.replacingAll(sharedMenu));
+
+        Set<String> loadedReservations = reservationsFile.resultNow();
+        reservedTables.clear();
+        reservedTables.addAll(loadedReservations);
+        carts.keySet().retainAll(loadedReservations);
+
+        OffHeapOrderStore staleStore;
+        synchronized (historyLock) {
+            analyticsTarget = null;
+            salesAnalytics = null; // Rebuilt from the reloaded history on next use
+            searchBacklog = null;
+            searchTarget = null;
+            orderSearch = null;
+            staleStore = orderStore;
+            storeBacklog = null;
+            storeTarget = null;
+            orderStore = null;
+            for (MainFrame.Order order : journaledOrders) {
+                if (Arrays.binarySearch(storedTail, order.getOrderNumber()) < 0) {
+                    orderHistory.append(order);
+                }
+            }
+        }
+        closeOrderStore(staleStore);
+
+        // Counters of older versions and orders on disk may be ahead of the allocator file (e.g. on first
+        // start after an upgrade); never hand out their numbers again
+        int counter = counterFile.resultNow().get();
+        for (int orderNumber : storedTail) {
+            counter = Math.max(counter, orderNumber + 1);
+        }
+        for (MainFrame.Order order : journaledOrders) {
+            counter = Math.max(counter, order.getOrderNumber() + 1);
+        }
+        try {
+            orderNumbers.advanceTo(counter);
+        } catch (IOException e) {
+            System.err.println("Error reserving order numbers: " + e.getMessage());
+        }
+
+        // Default tables, reserved tables and every table added before
+        tables.clear();
+        for (int i = 1; i <= DEFAULT_TABLE_COUNT; i++) {
+            tables.add("T" + i);
+        }
+        tables.addAll(reservedTables);
+        Set<String> tableList = tableListFile.resultNow();
+        if (tableList != null) {
+            tables.addAll(tableList);
+        } else {
+            // Data from before the table list was saved: scan the past orders once, then save the list
+            try {
+                forEachOrder(order -> tables.add(order.getTableName()));
+            } catch (IOException e) {
+                System.err.println("Error reading tables from order history: " + e.getMessage());
+            }
+            persistence.requestSave();
+        }
+
+        reservationBook.restore(bookingsFile.resultNow());
+        for (String table : tables) {
+            reservationBook.addTable(table); // Tables from before seats were saved get the default
+        }
+        int ended = reservationBook.removeEndedBefore(LocalDateTime.now().minusDays(BOOKING_RETENTION_DAYS));
+        if (ended > 0) {
+            System.out.println("Dropped " + ended + " bookings older than " + BOOKING_RETENTION_DAYS + " days");
+            persistence.requestSave();
+        }
+
+        try {
+            billSpooler.sync().get(CLOSE_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Spooled bills go to the archive being reopened
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Error writing spooled bills: " + e.getMessage());
+        }
+        try {
+            billArchive.open();
+        } catch (IOException e) {
+            System.err.println("Error opening bill archive: " + e.getMessage());
+        }
+        LOAD_ALL_DATA_TIME.recordSince(start);
+        fireChange();
+    }
+
+    // Runs loadAllData() on a background thread; a load still running is returned instead of starting another
+    public synchronized CompletableFuture<Void> loadAllDataAsync() {
+        if (loading.isDone()) {
+            loading = CompletableFuture.runAsync(this::loadAllData, runnable -> {
+                Thread thread = new Thread(runnable, "smartdine-loader");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return loading;
+    }
+
+    // Completes when the latest background load is done, at once if there was none
+    public CompletableFuture<Void> whenLoaded() {
+        return loading;
+    }
+
+    // Writes any pending save, then closes the journal and the bill archive
+    public void close() {
+        Metrics.removeErrorListener(metricsErrorListener);
+        // The gauges read this engine's collections; a later engine may have taken the names over already
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            Metrics.removeGauge(gauge.getKey(), gauge.getValue());
+        }
+        try {
+            loading.join(); // A load still running would reopen the files
+        } catch (CompletionException e) {
+            System.err.println("Error loading data: " + e.getCause());
+        }
+        persistence.flush(CLOSE_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        persistence.shutdown();
+        try {
+            orderJournal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order journal: " + e.getMessage());
+        }
+        try {
+            orderNumbers.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order number file: " + e.getMessage());
+        }
+        try {
+            orderHistory.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order history: " + e.getMessage());
+        }
+        try {
+            catalog.close();
+        } catch (IOException e) {
+            System.err.println("Error closing menu catalog: " + e.getMessage());
+        }
+        try {
+            billSpooler.close(CLOSE_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Writes and forces the pending bills
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            billArchive.close();
+        } catch (IOException e) {
+            System.err.println("Error closing bill archive: " + e.getMessage());
+        }
+        closeOrderStore(orderStore);
+    }
+
+    // Deletes the scratch file of a mapped store; its views fail from then on
+    private static void closeOrderStore(OffHeapOrderStore store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order store: " + e.getMessage());
+        }
+    }
+
+    private static List<MainFrame.MenuItem> defaultMenuItems() {
+        List<MainFrame.MenuItem> items = new ArrayList<>();
+        items.add(new MainFrame.MenuItem("Burger", "Main Course", 599));
+        items.add(new MainFrame.MenuItem("Fries", "Appetizers", 299));
+        items.add(new MainFrame.MenuItem("Coke", "Drinks", 150));
+        items.add(new MainFrame.MenuItem("Ice Cream", "Dessert", 325));
+        items.add(new MainFrame.MenuItem("Pizza (Large)", "Main Course", 1250));
+        items.add(new MainFrame.MenuItem("Salad (Caesar)", "Appetizers", 475));
+        items.add(new MainFrame.MenuItem("Lemonade", "Drinks", 200));
+        items.add(new MainFrame.MenuItem("Cheesecake", "Dessert", 400));
+        return items;
+    }
+
+    private void requireReserved(String tableName) {
+        if (!reservedTables.contains(tableName)) {
+            throw new IllegalStateException(tableName + " is not currently reserved.");
+        }
+    }
+
+    private String dataFile(String name) {
+        return new File(dataDirectory, name).getPath();
+    }
+
+    private ReentrantLock lockFor(String tableName) {
+        return tableLocks[(tableName.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+}
@@ -0,0 +1,385 @@
+package smartdine;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Order history kept on disk and paged in on demand.
+// Checkpointed orders live in the orders file (OrderCodec orders format); a sidecar index of
+// [int orderNumber][long offset] entries locates every record, so opening the history only reads the
+// file header. Orders billed since the last checkpoint stay in memory until checkpoint() appends them
+// to the file and then bumps the record count in its header; a crash in between leaves a tail past
+// the count, which is cut off on the next open (the journal still holds those orders).
+public class OrderHistory implements Closeable {
+    static final int PAGE_SIZE = 256; // Orders decoded per page read
+    private static final int MAX_CACHED_PAGES = 64;
+    private static final int HEADER_SIZE = OrderCodec.ORDERS_COUNT_OFFSET + Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path ordersPath;
+    private final Path indexPath;
+    private final Path legacyPath;
+    private final MenuCatalog catalog; // Resolves the menu items of stored orders, null to embed them
+    private FileChannel orders;
+    private FileChannel index;
+    private int storedCount; // Orders in the file
+    private long storedEnd;  // Where the next checkpoint appends
+
+    // Sidecar index offsets, read on the first lookup by position or number
+    private long[] offsets;
+    // Order number to position: orders appended since open, and all stored orders once the sidecar is read
+    private final OrderIndex positions = new OrderIndex();
+
+    private final List<MainFrame.Order> recent = new ArrayList<>(); // Billed since the last checkpoint
+    private final Map<Integer, List<MainFrame.Order>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<MainFrame.Order>> eldest) {
+            return size() > MAX_CACHED_PAGES; // Least recently used page goes first
+        }
+    };
+
+    public OrderHistory(String ordersFile, String indexFile, String legacyOrdersFile, MenuCatalog catalog) {
+        this.catalog = catalog;
+        this.ordersPath = Paths.get(ordersFile);
+        this.indexPath = Paths.get(indexFile);
+        this.legacyPath = Paths.get(legacyOrdersFile);
+    }
+
+    // Opens the orders file without reading any order; the index is rebuilt if it is missing or short
+    public synchronized void open() throws IOException {
+        close();
+        if (!Files.exists(ordersPath)) {
+            createOrdersFile(readLegacyOrders());
+        }
+        orders = FileChannel.open(ordersPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (InputStream in = new BufferedInputStream(PositionalStreams.newInputStream(orders, 0), HEADER_SIZE)) {
+            storedCount = new OrderCodec.OrderReader(in).getCount();
+        }
+
+        long indexed = index.size() / INDEX_ENTRY_SIZE;
+        if (indexed < storedCount) {
+            rebuildIndex();
+        } else if (index.size() > (long) storedCount * INDEX_ENTRY_SIZE) {
+            index.truncate((long) storedCount * INDEX_ENTRY_SIZE); // Entries of an unfinished checkpoint
+            index.force(true);
+        }
+
+        storedEnd = HEADER_SIZE;
+        if (storedCount > 0) {
+            ByteBuffer entry = read(index, (long) (storedCount - 1) * INDEX_ENTRY_SIZE, INDEX_ENTRY_SIZE);
+            entry.getInt();
+            long lastOffset = entry.getLong();
+            ByteBuffer recordHeader = read(orders, lastOffset, OrderCodec.RECORD_HEADER_SIZE);
+            recordHeader.get();
+            storedEnd = lastOffset + OrderCodec.RECORD_HEADER_SIZE + recordHeader.getInt();
+        }
+        if (orders.size() > storedEnd) {
+            System.err.println("Discarding " + (orders.size() - storedEnd) + " unfinished bytes from " + ordersPath);
+            orders.truncate(storedEnd);
+            orders.force(true);
+        }
+        System.out.println("Opened order history " + ordersPath + " (" + storedCount + " orders)");
+    }
+
+    public synchronized int size() {
+        return storedCount + recent.size();
+    }
+
+    // Order at a position in billing order; stored orders are read a page at a time and cached
+    public synchronized MainFrame.Order getOrderAt(int position) throws IOException {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("No order at position " + position);
+        }
+        if (position >= storedCount) {
+            return recent.get(position - storedCount);
+        }
+        int page = position / PAGE_SIZE;
+        List<MainFrame.Order> cached = pages.get(page);
+        if (cached == null) {
+            loadIndex();
+            cached = readPage(orders, page, offsets, storedCount, storedEnd);
+            pages.put(page, cached);
+        }
+        return cached.get(position % PAGE_SIZE);
+    }
+
+    // Returns the order with the given number, or null if the history does not contain it
+    public synchronized MainFrame.Order find(int orderNumber) throws IOException {
+        int position = positions.get(orderNumber);
+        if (position < 0 && offsets == null) {
+            ensureOpen();
+            loadIndex();
+            position = positions.get(orderNumber);
+        }
+        return position < 0 ? null : getOrderAt(position);
+    }
+
+    // Numbers of the last stored orders, read from the end of the index
+    public synchronized int[] tailNumbers(int max) throws IOException {
+        ensureOpen();
+        int count = Math.min(max, storedCount);
+        ByteBuffer entries = read(index, (long) (storedCount - count) * INDEX_ENTRY_SIZE, count * INDEX_ENTRY_SIZE);
+        int[] tail = new int[count];
+        for (int i = 0; i < count; i++) {
+            tail[i] = entries.getInt();
+            entries.getLong();
+        }
+        return tail;
+    }
+
+    // Adds a billed order; it is written to the orders file by the next checkpoint
+    public synchronized void append(MainFrame.Order order) {
+        positions.put(order.getOrderNumber(), storedCount + recent.size()); // Kept by the checkpoint
+        recent.add(order);
+    }
+
+    // Streams the orders at positions [0, end) in billing order without caching them
+    public void forEach(int end, Consumer<MainFrame.Order> action) throws IOException {
+        int stored;
+        FileChannel channel;
+        synchronized (this) {
+            ensureOpen();
+            stored = Math.min(end, storedCount);
+            channel = orders;
+        }
+        // Positions never move, so the file can be read while new orders are being checkpointed
+        try (InputStream in = new BufferedInputStream(PositionalStreams.newInputStream(channel, 0), 1 << 16)) {
+            OrderCodec.OrderReader reader = new OrderCodec.OrderReader(in, catalog);
+            for (int i = 0; i < stored; i++) {
+                action.accept(reader.next());
+            }
+        }
+        for (int position = stored; position < end; position++) {
+            action.accept(getOrderAt(position));
+        }
+    }
+
+    // Visits the orders at positions [0, end) in no particular order, decoding pages on all cores
+    public void forEachParallel(int end, Consumer<MainFrame.Order> action) throws IOException {
+        int stored;
+        long storedEndSnapshot;
+        long[] offsetsSnapshot;
+        FileChannel channel;
+        synchronized (this) {
+            ensureOpen();
+            channel = orders;
+            loadIndex();
+            stored = Math.min(end, storedCount);
+            storedEndSnapshot = storedCount == stored ? storedEnd : offsets[stored];
+            offsetsSnapshot = offsets; // Only ever appended to, or replaced by a longer copy
+        }
+        try {
+            IntStream.range(0, (stored + PAGE_SIZE - 1) / PAGE_SIZE).parallel().forEach(page -> {
+                try {
+                    readPage(channel, page, offsetsSnapshot, stored, storedEndSnapshot).forEach(action);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (int position = stored; position < end; position++) {
+            action.accept(getOrderAt(position));
+        }
+    }
+
+    // Appends the recent orders to the orders file. Records and index entries are forced before the
+    // header count that makes them visible, so a crash never exposes a half-written order.
+    public synchronized void checkpoint() throws IOException {
+        ensureOpen();
+        if (recent.isEmpty()) {
+            return;
+        }
+        int count = recent.size();
+        long[] newOffsets = new long[count];
+        OrderCodec.Encoder records = new OrderCodec.Encoder(64 * count, catalog);
+        ByteBuffer entries = ByteBuffer.allocate(count * INDEX_ENTRY_SIZE);
+        for (int i = 0; i < count; i++) {
+            MainFrame.Order order = recent.get(i);
+            newOffsets[i] = storedEnd + records.size();
+            OrderCodec.writeOrder(records, order);
+            entries.putInt(order.getOrderNumber()).putLong(newOffsets[i]);
+        }
+        entries.flip();
+
+        write(orders, ByteBuffer.wrap(records.toByteArray()), storedEnd);
+        orders.force(false);
+        write(index, entries, (long) storedCount * INDEX_ENTRY_SIZE);
+        index.force(false);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(storedCount + count);
+        header.flip();
+        write(orders, header, OrderCodec.ORDERS_COUNT_OFFSET);
+        orders.force(false);
+
+        pages.remove(storedCount / PAGE_SIZE); // The last page may have been cached while it was partial
+        if (offsets != null) {
+            offsets = Arrays.copyOf(offsets, storedCount + count);
+            System.arraycopy(newOffsets, 0, offsets, storedCount, count);
+        }
+        storedCount += count;
+        storedEnd += records.size();
+        recent.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (orders != null) {
+            orders.close();
+            orders = null;
+        }
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        offsets = null;
+        positions.clear();
+        pages.clear();
+        recent.clear();
+        storedCount = 0;
+    }
+
+    // Decodes the stored orders of one page with a single positional read
+    private List<MainFrame.Order> readPage(FileChannel channel, int page, long[] pageOffsets, int count, long end) throws IOException {
+        int first = page * PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, count);
+        long start = pageOffsets[first];
+        long stop = last < count ? pageOffsets[last] : end;
+        ByteBuffer bytes = read(channel, start, (int) (stop - start));
+        OrderCodec.Decoder in = new OrderCodec.Decoder(bytes.array(), 0, bytes.limit(), catalog);
+        List<MainFrame.Order> pageOrders = new ArrayList<>(last - first);
+        for (int i = first; i < last; i++) {
+            pageOrders.add(OrderCodec.readOrder(in));
+        }
+        return pageOrders;
+    }
+
+    private void loadIndex() throws IOException {
+        if (offsets != null) {
+            return;
+        }
+        ByteBuffer entries = read(index, 0, storedCount * INDEX_ENTRY_SIZE);
+        long[] loadedOffsets = new long[storedCount];
+        for (int i = 0; i < storedCount; i++) {
+            positions.put(entries.getInt(), i);
+            loadedOffsets[i] = entries.getLong();
+        }
+        offsets = loadedOffsets;
+    }
+
+    // Scans the orders file once to recreate the sidecar index, e.g. for files written by older versions
+    private void rebuildIndex() throws IOException {
+        System.out.println("Rebuilding order index " + indexPath);
+        index.truncate(0);
+        try (InputStream in = new BufferedInputStream(PositionalStreams.newInputStream(orders, 0), 1 << 16);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(PositionalStreams.newOutputStream(index), 1 << 16))) {
+            OrderCodec.OrderReader reader = new OrderCodec.OrderReader(in);
+            while (reader.hasNext()) {
+                out.writeInt(reader.nextOrderNumber());
+                out.writeLong(reader.recordOffset());
+            }
+        }
+        index.force(true);
+    }
+
+    // Writes the orders file in one go, through a temporary file so a crash never leaves half of it
+    private void createOrdersFile(List<MainFrame.Order> initialOrders) throws IOException {
+        Path tempPath = ordersPath.resolveSibling(ordersPath.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16)) {
+            OrderCodec.writeOrders(initialOrders, out, catalog);
+        }
+        Files.move(tempPath, ordersPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(indexPath);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MainFrame.Order> readLegacyOrders() throws IOException {
+        if (!Files.exists(legacyPath)) {
+            return new ArrayList<>();
+        }
+        System.out.println("Migrating order history from " + legacyPath);
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacyPath)))) {
+            return (List<MainFrame.Order>) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable order history " + legacyPath, e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (orders == null) {
+            throw new IOException("Order history " + ordersPath + " has not been opened");
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of order history");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // Positional streams, so reading never moves a channel position another thread relies on
+    private static final class PositionalStreams {
+        static InputStream newInputStream(FileChannel channel, long start) {
+            return new InputStream() {
+                private long position = start;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+                    if (n > 0) {
+                        position += n;
+                    }
+                    return n;
+                }
+            };
+        }
+
+        static OutputStream newOutputStream(FileChannel channel) {
+            return new OutputStream() {
+                private long position = 0;
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                    OrderHistory.write(channel, buffer, position);
+                    position += len;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package smartdine;
+
+import java.time.format.DateTimeFormatter;
+
+// Order history table model reading orders from the engine by position on demand.
+// Nothing is copied when the table opens; only the rendered cells are formatted.
+// Once the engine's off-heap order store is attached, cells, sorting and filters read its views instead of
+// paging orders in from disk, so sorting a large history allocates no orders.
+public class OrderHistoryTableModel extends IndexedTableModel {
+    private static final String[] COLUMNS = {"Order #", "Customer", "Table", "Total", "Date/Time"};
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final OrderEngine engine;
+    private int orderCount; // History size when the model was last refreshed
+    private OffHeapOrderStore store; // Null until attached
+    private OffHeapOrderStore.OrderView cellView; // Flyweights of the store, used on the EDT only
+    private OffHeapOrderStore.OrderView otherView;
+
+    public OrderHistoryTableModel(OrderEngine engine) {
+        super(COLUMNS);
+        this.engine = engine;
+        this.orderCount = engine.getOrderCount();
+    }
+
+    // Picks up orders added since the model was created, clearing any filter
+    public void refresh() {
+        orderCount = engine.getOrderCount();
+        showAll();
+    }
+
+    // Shows only the given history positions, e.g. search results, picking up orders added since the last refresh
+    public void showOrders(int[] positions) {
+        orderCount = engine.getOrderCount();
+        showPositions(positions);
+    }
+
+    // Without the store every comparison would page orders in from disk on the EDT
+    @Override
+    public boolean canSort() {
+        return store != null;
+    }
+
+    // Reads orders from the store from now on; call on the EDT
+    public void setStore(OffHeapOrderStore store) {
+        this.store = store;
+        this.cellView = store.view();
+        this.otherView = store.view();
+        fireTableDataChanged();
+    }
+
+    public OffHeapOrderStore getStore() {
+        return store;
+    }
+
+    public MainFrame.Order getOrderAt(int row) {
+        int position = positionAt(row);
+        return inStore(position) ? store.view(position).toOrder() : engine.getOrderAt(position);
+    }
+
+    @Override
+    protected int backingSize() {
+        return orderCount;
+    }
+
+    @Override
+    protected Object valueAt(int position, int column) {
+        if (inStore(position)) {
+            OffHeapOrderStore.OrderView order = cellView.moveTo(position);
+            switch (column) {
+                case 0: return order.getOrderNumber();
+                case 1: return order.getCustomerName();
+                case 2: return order.getTableName();
+                case 3: return Money.format(order.getTotalCents());
+                default: return order.getOrderDateTime().format(DATE_FORMAT);
+            }
+        }
+        MainFrame.Order order = engine.getOrderAt(position);
+        switch (column) {
+            case 0: return order.getOrderNumber();
+            case 1: return order.getCustomerName();
+            case 2: return order.getTableName();
+            case 3: return Money.format(order.getTotalCents());
+            default: return order.getOrderDateTime().format(DATE_FORMAT);
+        }
+    }
+
+    @Override
+    protected int compare(int positionA, int positionB, int column) {
+        if (inStore(positionA) && inStore(positionB)) {
+            OffHeapOrderStore.OrderView a = cellView.moveTo(positionA);
+            OffHeapOrderStore.OrderView b = otherView.moveTo(positionB);
+            switch (column) {
+                case 0: return Integer.compare(a.getOrderNumber(), b.getOrderNumber());
+                case 1: return a.getCustomerName().compareToIgnoreCase(b.getCustomerName());
+                case 2: return a.getTableName().compareTo(b.getTableName());
+                case 3: return Long.compare(a.getTotalCents(), b.getTotalCents());
+                default: return a.getOrderDateTime().compareTo(b.getOrderDateTime());
+            }
+        }
+        MainFrame.Order a = engine.getOrderAt(positionA);
+        MainFrame.Order b = engine.getOrderAt(positionB);
+        switch (column) {
+            case 0: return Integer.compare(a.getOrderNumber(), b.getOrderNumber());
+            case 1: return a.getCustomerName().compareToIgnoreCase(b.getCustomerName());
+            case 2: return a.getTableName().compareTo(b.getTableName());
+            case 3: return Long.compare(a.getTotalCents(), b.getTotalCents());
+            default: return a.getOrderDateTime().compareTo(b.getOrderDateTime());
+        }
+    }
+
+    // Orders billed after the store was built are read from the engine
+    private boolean inStore(int position) {
+        return store != null && position < store.size();
+    }
+}
@@ -0,0 +1,104 @@
+package smartdine;
+
+import java.util.Arrays;
+
+// Index from order number to a non-negative int, e.g. the order's position in the history or the slot
+// of its entry in another primitive array. Shared by OrderHistory and BillArchive.
+// Open addressing with linear probing over primitive int[] arrays, so lookups never box the key
+// and cost the same whether the history holds a hundred orders or a million.
+public class OrderIndex {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values; // Value + 1, so 0 marks an empty slot
+    private int size;
+
+    public OrderIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public OrderIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    // Adds or replaces the value stored under an order number
+    public void put(int orderNumber, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value + " for order " + orderNumber);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(orderNumber) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == orderNumber) {
+                values[slot] = value + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = orderNumber;
+        values[slot] = value + 1;
+        size++;
+    }
+
+    // Returns the value stored under the order number, or -1 if it is not indexed
+    public int get(int orderNumber) {
+        int mask = keys.length - 1;
+        int slot = mix(orderNumber) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == orderNumber) {
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    // Keeps the load factor at or below one half
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Order numbers are sequential, so spread them before masking
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,148 @@
+package smartdine;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only journal of completed orders.
+// Every record is framed as [int length][long crc32][payload], so appending an order costs the same
+// no matter how large the history is, and a torn write at the tail is detected and dropped on replay.
+// Every CHECKPOINT_INTERVAL records the orders are checkpointed into the OrderHistory file, after
+// which the journal is truncated; startup only replays the journal tail.
+// Records use OrderCodec; Java-serialized records from older versions are still read.
+public class OrderJournal implements Closeable {
+    static final int CHECKPOINT_INTERVAL = 1000; // Records appended between two checkpoints
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path journalPath;
+    private final MenuCatalog catalog; // Resolves the menu items of records, null to embed them
+    private FileChannel channel;
+    private int recordsSinceCheckpoint;
+
+    public OrderJournal(String journalFile, MenuCatalog catalog) {
+        this.journalPath = Paths.get(journalFile);
+        this.catalog = catalog;
+    }
+
+    // Reads the orders journaled since the last checkpoint, then opens the journal for appending.
+    // A crash between a checkpoint and the truncation leaves orders that are in the history as well.
+    public synchronized List<MainFrame.Order> replay() throws IOException {
+        List<MainFrame.Order> orders = new ArrayList<>();
+        close();
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recordsSinceCheckpoint = 0;
+
+        long validEnd = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long size = channel.size();
+        while (validEnd + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, validEnd);
+            header.flip();
+            int length = header.getInt();
+            long checksum = header.getLong();
+            if (length < 0 || validEnd + HEADER_SIZE + length > size) {
+                break; // Torn record at the tail
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, validEnd + HEADER_SIZE);
+            if (crc(payload.array(), length) != checksum) {
+                break; // Corrupted record, everything after it is untrusted
+            }
+            orders.add(decode(payload.array()));
+            recordsSinceCheckpoint++;
+            validEnd += HEADER_SIZE + length;
+        }
+
+        if (validEnd < size) {
+            System.err.println("Discarding " + (size - validEnd) + " trailing bytes from " + journalPath);
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        System.out.println("Replayed " + recordsSinceCheckpoint + " journaled orders from " + journalPath);
+        return orders;
+    }
+
+    // Appends a single order and forces it to disk before returning
+    public synchronized void append(MainFrame.Order order) throws IOException {
+        ensureOpen();
+        byte[] payload = encode(order);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putLong(crc(payload, payload.length));
+        record.put(payload);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        recordsSinceCheckpoint++;
+    }
+
+    public synchronized boolean isCheckpointDue() {
+        return recordsSinceCheckpoint >= CHECKPOINT_INTERVAL;
+    }
+
+    // Appends the orders billed since the last checkpoint to the history file and starts an empty journal.
+    // Orders are added to the history before they are journaled, so every record about to be truncated is written.
+    public synchronized void checkpoint(OrderHistory history) throws IOException {
+        ensureOpen();
+        history.checkpoint();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        System.out.println("Order history checkpointed, " + recordsSinceCheckpoint + " journaled orders written");
+        recordsSinceCheckpoint = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Order journal " + journalPath + " has not been opened");
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + journalPath);
+            }
+        }
+    }
+
+    private static long crc(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return crc.getValue();
+    }
+
+    private byte[] encode(MainFrame.Order order) {
+        return OrderCodec.encodeOrder(order, catalog);
+    }
+
+    private MainFrame.Order decode(byte[] payload) throws IOException {
+        // Records journaled before the binary codec start with the Java serialization stream magic
+        if (payload.length < 2 || payload[0] != (byte) 0xAC || payload[1] != (byte) 0xED) {
+            return OrderCodec.decodeOrder(payload, catalog);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (MainFrame.Order) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable journal record in " + journalPath, e);
+        }
+    }
+}
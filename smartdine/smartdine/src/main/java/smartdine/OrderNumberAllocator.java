@@ -0,0 +1,121 @@
+package smartdine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands out order numbers from blocks reserved durably in a shared file (hi/lo allocation).
+// The file holds the first number no process has reserved yet; reserving a block moves it forward by
+// BLOCK_SIZE under an exclusive file lock and forces it to disk before any number of the block is used.
+// Numbers within a block are handed out with a single atomic increment, so billing does not touch the
+// disk except once per block. Several processes (terminals) sharing the data directory get disjoint
+// blocks, and after a crash the unused rest of a block is skipped, never handed out again.
+public class OrderNumberAllocator implements Closeable {
+    static final int BLOCK_SIZE = 100;
+    private static final int FILE_SIZE = OrderCodec.FILE_HEADER_SIZE + Integer.BYTES;
+
+    private final Path path;
+    private final int firstNumber; // Where numbering starts in a new file
+    private final SharedFileLock fileLock;
+    private FileChannel channel;
+    private volatile Block block = new Block(0, 0); // Empty until the first reservation
+
+    // Numbers [next, end) of one reserved block
+    private static final class Block {
+        final AtomicInteger next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+
+    public OrderNumberAllocator(String file, int firstNumber) {
+        this.path = Paths.get(file).toAbsolutePath().normalize();
+        this.firstNumber = firstNumber;
+        this.fileLock = new SharedFileLock(path);
+    }
+
+    // Returns a number that was never returned before by any allocator sharing the file
+    public int next() throws IOException {
+        while (true) {
+            Block current = block;
+            int number = current.next.getAndIncrement();
+            if (number < current.end) {
+                return number;
+            }
+            synchronized (this) {
+                if (block == current) { // Not refilled by another thread in the meantime
+                    block = reserve(0);
+                }
+            }
+        }
+    }
+
+    // Makes sure no number below the given one is handed out, e.g. numbers of orders already on disk
+    public synchronized void advanceTo(int minimum) throws IOException {
+        if (block.next.get() < minimum) {
+            block = reserve(minimum);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        block = new Block(0, 0);
+    }
+
+    // Moves the shared counter forward by one block, starting no lower than minimum
+    private Block reserve(int minimum) throws IOException {
+        ensureOpen();
+        return fileLock.run(channel, () -> {
+            int start = Math.max(readNext(), Math.max(firstNumber, minimum));
+            int end = Math.addExact(start, BLOCK_SIZE);
+            writeNext(end);
+            return new Block(start, end);
+        });
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    // Same layout as OrderCodec.writeCounter; an empty file starts at 0
+    private int readNext() throws IOException {
+        if (channel.size() < FILE_SIZE) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.getInt() != OrderCodec.FILE_MAGIC || buffer.get() != OrderCodec.KIND_COUNTER) {
+            throw new IOException("Not an order number file: " + path);
+        }
+        return buffer.getInt();
+    }
+
+    private void writeNext(int next) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE);
+        buffer.putInt(OrderCodec.FILE_MAGIC).put(OrderCodec.KIND_COUNTER).putInt(next);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false); // Durable before any number of the block is used
+    }
+}
@@ -0,0 +1,237 @@
+package smartdine;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted indexes over the order history: customer, table and menu item each map to the history positions
+// of their orders, and every billing day is a partition holding the positions billed that day.
+// Positions are added in billing order, so every posting list is sorted and a combined query walks the
+// shortest list while the others follow with galloping cursors. The orders themselves are not kept here;
+// the caller pages in only the results it shows.
+public class OrderSearchIndex {
+    private static final int MIN_CAPACITY = 4;
+
+    // Growable sorted list of history positions
+    private static final class Postings {
+        int[] positions = new int[MIN_CAPACITY];
+        int size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        // Index of the last position <= the given one at or below index, or -1. Gallops down from index,
+        // so a walk from the newest position to the oldest reads each list once, close to sequentially.
+        int seekDown(int position, int index) {
+            if (index < 0 || positions[index] <= position) {
+                return index;
+            }
+            int step = 1;
+            int high = index; // positions[high] > position
+            int low = index - step;
+            while (low >= 0 && positions[low] > position) {
+                high = low;
+                step <<= 1;
+                low = index - step;
+            }
+            if (low < 0) {
+                low = -1;
+            }
+            // positions[low] <= position < positions[high], with positions[-1] standing for minus infinity
+            while (high - low > 1) {
+                int middle = (low + high) >>> 1;
+                if (positions[middle] <= position) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // Index of the first position >= the given one
+        int lowerBound(int position) {
+            int i = Arrays.binarySearch(positions, 0, size, position);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    private static final Postings EMPTY = new Postings();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> byCustomer = new HashMap<>();
+    private final Map<String, Postings> byTable = new HashMap<>();
+    private final Map<String, Postings> byItem = new HashMap<>();
+    private final TreeMap<Long, Postings> byDay = new TreeMap<>(); // Epoch day to the orders billed that day
+    private int[] days = new int[1024]; // Epoch day of every position, for checking the date of a candidate
+    private int size;
+
+    // Indexes the order at the next history position
+    public void add(MainFrame.Order order) {
+        lock.writeLock().lock();
+        try {
+            int position = size;
+            if (position == days.length) {
+                days = Arrays.copyOf(days, position * 2);
+            }
+            long day = order.getOrderDateTime().toLocalDate().toEpochDay();
+            days[position] = (int) day;
+            byDay.computeIfAbsent(day, d -> new Postings()).add(position);
+            postingsFor(byCustomer, order.getCustomerName()).add(position);
+            postingsFor(byTable, order.getTableName()).add(position);
+            for (MainFrame.CartItem item : order.getItems()) {
+                Postings postings = postingsFor(byItem, item.getMenuItem().getName());
+                if (postings.size == 0 || postings.positions[postings.size - 1] != position) {
+                    postings.add(position); // An item on two lines of one order is listed once
+                }
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // History positions of the orders matching every given criterion, newest first, at most limit of them.
+    // Null or blank criteria match everything; names match ignoring case; from and to are inclusive days.
+    public int[] search(String customer, String table, String item, LocalDate from, LocalDate to, int limit) {
+        lock.readLock().lock();
+        try {
+            Postings[] terms = new Postings[3];
+            int termCount = addTerm(terms, 0, byCustomer, customer);
+            termCount = addTerm(terms, termCount, byTable, table);
+            termCount = addTerm(terms, termCount, byItem, item);
+            long firstDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+            long lastDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+            if (firstDay > lastDay) {
+                return new int[0];
+            }
+            boolean allDays = from == null && to == null;
+            NavigableMap<Long, Postings> dayRange = allDays ? byDay : byDay.subMap(firstDay, true, lastDay, true);
+
+            // Positions billed in the date range lie between the first and last position of its partitions
+            int low = 0;
+            int high = size - 1;
+            if (!allDays) {
+                low = Integer.MAX_VALUE;
+                high = -1;
+                for (Postings day : dayRange.values()) {
+                    low = Math.min(low, day.positions[0]);
+                    high = Math.max(high, day.positions[day.size - 1]);
+                }
+            }
+
+            int[] found = new int[Math.max(0, Math.min(limit, high - low + 1))];
+            int count = 0;
+            if (termCount == 0) {
+                // Only a date range: walk positions from the newest, skipping those of other days
+                for (int position = high; position >= low && count < found.length; position--) {
+                    if (allDays || (days[position] >= firstDay && days[position] <= lastDay)) {
+                        found[count++] = position;
+                    }
+                }
+                return Arrays.copyOf(found, count);
+            }
+
+            // Walk the shortest list backwards within [low, high]; a cursor per other list follows along
+            int shortest = 0;
+            for (int i = 1; i < termCount; i++) {
+                if (terms[i].size < terms[shortest].size) {
+                    shortest = i;
+                }
+            }
+            int[] cursors = new int[termCount];
+            for (int t = 0; t < termCount; t++) {
+                cursors[t] = terms[t].lowerBound(high + 1) - 1;
+            }
+            Postings walk = terms[shortest];
+            int start = walk.lowerBound(low);
+            for (int i = cursors[shortest]; i >= start && count < found.length; i--) {
+                int position = walk.positions[i];
+                if (!allDays && (days[position] < firstDay || days[position] > lastDay)) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int t = 0; t < termCount && matches; t++) {
+                    if (t != shortest) {
+                        cursors[t] = terms[t].seekDown(position, cursors[t]);
+                        matches = cursors[t] >= 0 && terms[t].positions[cursors[t]] == position;
+                    }
+                }
+                if (matches) {
+                    found[count++] = position;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // History positions of the orders whose customer or table name contains the text ignoring case, oldest first.
+    // Only the distinct names are scanned; the posting lists of those that match are merged.
+    public int[] searchNames(String text) {
+        String part = key(text);
+        lock.readLock().lock();
+        try {
+            int[] found = new int[0];
+            int count = 0;
+            for (Map<String, Postings> index : List.of(byCustomer, byTable)) {
+                for (Map.Entry<String, Postings> entry : index.entrySet()) {
+                    if (entry.getKey().contains(part)) {
+                        Postings postings = entry.getValue();
+                        if (count + postings.size > found.length) {
+                            found = Arrays.copyOf(found, Math.max(count + postings.size, found.length * 2));
+                        }
+                        System.arraycopy(postings.positions, 0, found, count, postings.size);
+                        count += postings.size;
+                    }
+                }
+            }
+            Arrays.sort(found, 0, count);
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (unique == 0 || found[unique - 1] != found[i]) {
+                    found[unique++] = found[i]; // An order may match by both customer and table
+                }
+            }
+            return Arrays.copyOf(found, unique);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int addTerm(Postings[] terms, int termCount, Map<String, Postings> index, String name) {
+        if (name == null || name.isBlank()) {
+            return termCount;
+        }
+        terms[termCount] = index.getOrDefault(key(name), EMPTY);
+        return termCount + 1;
+    }
+
+    private static Postings postingsFor(Map<String, Postings> index, String name) {
+        return index.computeIfAbsent(key(name == null ? "" : name), k -> new Postings());
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,189 @@
+package smartdine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local network HTTP server exposing the OrderEngine to the restaurant's tablets.
+// Every exchange runs on its own virtual thread; blocking on the engine's table locks or on disk
+// parks only that virtual thread. Responses are plain UTF-8 text, one record per line, tab separated.
+//
+//   GET  /menu                                  name, category, price per line
+//   GET  /tables                                name, reserved|free per line
+//   POST /tables/reserve?table=T1
+//   POST /tables/free?table=T1
+//   GET  /cart?table=T1                         name, quantity, line total per line
+//   POST /cart/add?table=T1&item=Burger&qty=2
+//   POST /bill?table=T1&customer=Alice          the bill text
+public class OrderServer {
+    static final int DEFAULT_PORT = 8085;
+
+    private final OrderEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OrderServer(OrderEngine engine, int port) throws IOException {
+        this.engine = engine;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/menu", exchange -> handle(exchange, "GET", this::menu));
+        server.createContext("/tables", exchange -> handle(exchange, "GET", this::tables));
+        server.createContext("/tables/reserve", exchange -> handle(exchange, "POST", this::reserve));
+        server.createContext("/tables/free", exchange -> handle(exchange, "POST", this::free));
+        server.createContext("/cart", exchange -> handle(exchange, "GET", this::cart));
+        server.createContext("/cart/add", exchange -> handle(exchange, "POST", this::addToCart));
+        server.createContext("/bill", exchange -> handle(exchange, "POST", this::bill));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("SmartDine order server listening on port " + getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private String menu(Map<String, String> params) {
+        StringBuilder body = new StringBuilder();
+        for (MainFrame.MenuItem item : engine.getMenuItems()) {
+            body.append(item.getName()).append('\t').append(item.getCategory()).append('\t')
+                    .append(Money.format(item.getPriceCents())).append('\n');
+        }
+        return body.toString();
+    }
+
+    private String tables(Map<String, String> params) {
+        StringBuilder body = new StringBuilder();
+        for (String table : engine.getTables()) {
+            body.append(table).append('\t').append(engine.isReserved(table) ? "reserved" : "free").append('\n');
+        }
+        return body.toString();
+    }
+
+    private String reserve(Map<String, String> params) {
+        String table = required(params, "table");
+        if (!engine.isTable(table)) {
+            throw new IllegalArgumentException(table + " is not a table."); // Tablets never create tables
+        }
+        if (!engine.reserveTable(table)) {
+            throw new IllegalStateException(table + " is already reserved.");
+        }
+        return table + " is now reserved.\n";
+    }
+
+    private String free(Map<String, String> params) {
+        String table = required(params, "table");
+        if (!engine.freeTable(table)) {
+            throw new IllegalStateException(table + " is not currently reserved.");
+        }
+        return table + " reservation has been cancelled.\n";
+    }
+
+    private String cart(Map<String, String> params) {
+        StringBuilder body = new StringBuilder();
+        for (MainFrame.CartItem item : engine.getCart(required(params, "table"))) {
+            body.append(item.getMenuItem().getName()).append('\t').append(item.getQuantity()).append('\t')
+                    .append(Money.format(item.getTotalCents())).append('\n');
+        }
+        return body.toString();
+    }
+
+    private String addToCart(Map<String, String> params) {
+        String table = required(params, "table");
+        String itemName = required(params, "item");
+        int quantity;
+        try {
+            quantity = Integer.parseInt(params.getOrDefault("qty", "1"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantity. Please enter a number.");
+        }
+        MainFrame.MenuItem item = engine.findMenuItem(itemName);
+        if (item == null) {
+            throw new IllegalArgumentException(itemName + " is not on the menu.");
+        }
+        engine.addToCart(table, item, quantity);
+        return "Total: $" + Money.format(engine.getCartTotal(table)) + "\n";
+    }
+
+    private String bill(Map<String, String> params) {
+        String table = required(params, "table");
+        String customer = required(params, "customer");
+        return OrderEngine.buildBillText(engine.generateBill(table, customer));
+    }
+
+    // Dispatches one exchange; IllegalArgumentException maps to 400 and IllegalStateException to 409
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                status = 405;
+                body = "Use " + method + " for " + exchange.getRequestURI().getPath() + "\n";
+            } else if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                status = 404;
+                body = "Not found\n";
+            } else {
+                body = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = e.getMessage() + "\n";
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = e.getMessage() + "\n";
+        } catch (RuntimeException e) {
+            status = 500;
+            body = "Internal error: " + e.getMessage() + "\n";
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value.trim();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        String handle(Map<String, String> params);
+    }
+}
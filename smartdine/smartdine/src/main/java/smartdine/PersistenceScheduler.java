@@ -0,0 +1,153 @@
+package smartdine;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Saves the engine's menu, tables and reservations on a background thread.
+// Save requests only bump a counter; at most one write is queued at a time, and that write covers
+// every request made before it started, so a burst of changes at rush hour becomes a single write.
+// The state is snapshotted on the writer thread right before writing.
+public class PersistenceScheduler {
+    private final OrderEngine engine;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "smartdine-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean writeQueued = new AtomicBoolean();
+    private final AtomicInteger pendingRequests = new AtomicInteger(); // Requests not yet covered by a write
+    private final List<Consumer<SaveResult>> listeners = new CopyOnWriteArrayList<>();
+
+    // Metrics
+    private final AtomicLong completedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final AtomicLong lastWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+
+    // Outcome of one background write, reported to listeners on the writer thread
+    public static final class SaveResult {
+        private final boolean success;
+        private final int requestsCovered;
+        private final long latencyNanos;
+
+        SaveResult(boolean success, int requestsCovered, long latencyNanos) {
+            this.success = success;
+            this.requestsCovered = requestsCovered;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getRequestsCovered() { return requestsCovered; }
+        public long getLatencyNanos() { return latencyNanos; }
+    }
+
+    public PersistenceScheduler(OrderEngine engine) {
+        this.engine = engine;
+    }
+
+    public void addListener(Consumer<SaveResult> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<SaveResult> listener) {
+        listeners.remove(listener);
+    }
+
+    // Cheap and non-blocking; safe to call from the EDT on every change
+    public void requestSave() {
+        pendingRequests.incrementAndGet();
+        if (writeQueued.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::write);
+            } catch (RejectedExecutionException e) {
+                writeQueued.set(false); // Shut down; close() has already written the final state
+            }
+        }
+    }
+
+    // Requests a save and waits until it has been written, e.g. before the application exits
+    public boolean flush(long timeout, TimeUnit unit) {
+        pendingRequests.incrementAndGet();
+        try {
+            writer.submit(this::write).get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            System.err.println("Error flushing data: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    private void write() {
+        writeQueued.set(false); // Requests from now on need another write
+        int covered = pendingRequests.getAndSet(0);
+        if (covered == 0) {
+            return; // Already written by an earlier write
+        }
+        long start = System.nanoTime();
+        boolean success = engine.writeState(engine.snapshotState());
+        long latency = System.nanoTime() - start;
+
+        (success ? completedWrites : failedWrites).incrementAndGet();
+        coalescedRequests.addAndGet(covered - 1);
+        lastWriteNanos.set(latency);
+        totalWriteNanos.addAndGet(latency);
+        maxWriteNanos.accumulateAndGet(latency, Math::max);
+
+        SaveResult result = new SaveResult(success, covered, latency);
+        for (Consumer<SaveResult> listener : listeners) {
+            listener.accept(result);
+        }
+    }
+
+    // ---- Metrics ----
+
+    // Save requests waiting for the next write
+    public int getQueueDepth() {
+        return pendingRequests.get();
+    }
+
+    public long getCompletedWrites() {
+        return completedWrites.get();
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    // Requests that were absorbed into another request's write
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    public long getLastWriteNanos() {
+        return lastWriteNanos.get();
+    }
+
+    public long getMaxWriteNanos() {
+        return maxWriteNanos.get();
+    }
+
+    public long getAverageWriteNanos() {
+        long writes = completedWrites.get() + failedWrites.get();
+        return writes == 0 ? 0 : totalWriteNanos.get() / writes;
+    }
+}
@@ -0,0 +1,320 @@
+package smartdine;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Bookings of tables for time slots [start, end), and the number of seats at every table.
+// Each table keeps its bookings in a TreeMap keyed by start time. Bookings of one table never overlap,
+// so the only booking that can conflict with a new slot is the last one starting before the slot ends:
+// conflict checks and "who has this table at 20:15" are one O(log n) lookup however many months are booked.
+// Tables are also indexed by seat count, so a search for a party only looks at tables big enough for it.
+public class ReservationBook {
+    public static final int DEFAULT_SEATS = 4;
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    // One booking; immutable, so snapshots and the UI can hold on to it
+    public static final class Booking {
+        private final long id;
+        private final String tableName;
+        private final String customerName;
+        private final int partySize;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Booking(long id, String tableName, String customerName, int partySize, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.tableName = tableName;
+            this.customerName = customerName;
+            this.partySize = partySize;
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getId() { return id; }
+        public String getTableName() { return tableName; }
+        public String getCustomerName() { return customerName; }
+        public int getPartySize() { return partySize; }
+        public LocalDateTime getStart() { return start; }
+        public LocalDateTime getEnd() { return end; }
+
+        public boolean covers(LocalDateTime time) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+
+        @Override
+        public String toString() {
+            return tableName + " " + start.toLocalDate() + " " + TIME_FORMAT.format(start) + "-" + TIME_FORMAT.format(end)
+                    + " " + customerName + " (" + partySize + ")";
+        }
+    }
+
+    // Seats and bookings as written to and read from disk
+    public static final class Snapshot {
+        final Map<String, Integer> seats;
+        final List<Booking> bookings;
+
+        Snapshot(Map<String, Integer> seats, List<Booking> bookings) {
+            this.seats = seats;
+            this.bookings = bookings;
+        }
+    }
+
+    private static final Comparator<Booking> BY_START = Comparator.comparing(Booking::getStart).thenComparingLong(Booking::getId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, TreeMap<LocalDateTime, Booking>> byTable = new HashMap<>();
+    private final Map<Long, Booking> byId = new HashMap<>();
+    private final NavigableSet<Booking> byStart = new TreeSet<>(BY_START); // All bookings, for listing a period
+    private final Map<String, Integer> seats = new HashMap<>();
+    private final TreeMap<Integer, Set<String>> tablesBySeats = new TreeMap<>();
+    private long nextId = 1;
+
+    // ---- Tables ----
+
+    // Adds a table with the default seat count; tables already known keep theirs
+    public boolean addTable(String tableName) {
+        return addTable(tableName, DEFAULT_SEATS);
+    }
+
+    // Adds a table unless it is known, checked and inserted under one lock; returns false for a known table
+    public boolean addTable(String tableName, int seatCount) {
+        if (seatCount <= 0) {
+            throw new IllegalArgumentException("A table needs at least one seat.");
+        }
+        lock.writeLock().lock();
+        try {
+            if (seats.containsKey(tableName)) {
+                return false;
+            }
+            putSeats(tableName, seatCount);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Bookings ----
+
+    // Books the table for [start, end); throws IllegalStateException if the slot overlaps another booking
+    public Booking book(String tableName, String customerName, int partySize, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("A booking must end after it starts.");
+        }
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Party size must be a positive number.");
+        }
+        lock.writeLock().lock();
+        try {
+            int seatCount = seats.getOrDefault(tableName, DEFAULT_SEATS);
+            if (partySize > seatCount) {
+                throw new IllegalStateException(tableName + " only seats " + seatCount + ".");
+            }
+            Booking conflict = conflictOrNull(tableName, start, end);
+            if (conflict != null) {
+                throw new IllegalStateException(tableName + " is already booked from " + TIME_FORMAT.format(conflict.getStart())
+                        + " to " + TIME_FORMAT.format(conflict.getEnd()) + " by " + conflict.getCustomerName() + ".");
+            }
+            Booking booking = new Booking(nextId++, tableName, customerName, partySize, start, end);
+            add(booking);
+            return booking;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns false if there is no booking with this ID
+    public boolean cancel(long bookingId) {
+        lock.writeLock().lock();
+        try {
+            Booking booking = byId.remove(bookingId);
+            if (booking == null) {
+                return false;
+            }
+            TreeMap<LocalDateTime, Booking> table = byTable.get(booking.getTableName());
+            table.remove(booking.getStart());
+            if (table.isEmpty()) {
+                byTable.remove(booking.getTableName());
+            }
+            byStart.remove(booking);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The booking of the table at that time, or null if the table is not booked then
+    public Booking bookingAt(String tableName, LocalDateTime time) {
+        lock.readLock().lock();
+        try {
+            TreeMap<LocalDateTime, Booking> table = byTable.get(tableName);
+            Map.Entry<LocalDateTime, Booking> entry = table == null ? null : table.floorEntry(time);
+            return entry != null && entry.getValue().covers(time) ? entry.getValue() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A booking of the table overlapping [start, end), or null if the slot is free
+    public Booking findConflict(String tableName, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return conflictOrNull(tableName, start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tables with enough seats for the party and no booking overlapping [start, end), smallest tables first
+    public List<String> findFreeTables(int partySize, LocalDateTime start, LocalDateTime end) {
+        List<String> free = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Set<String> tables : tablesBySeats.tailMap(partySize, true).values()) {
+                for (String tableName : tables) {
+                    if (conflictOrNull(tableName, start, end) == null) {
+                        free.add(tableName);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    // Bookings of all tables starting in [from, to), in start order
+    public List<Booking> getBookingsStarting(LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            List<Booking> bookings = new ArrayList<>();
+            for (Booking booking : byStart.tailSet(probe(from), true)) {
+                if (!booking.getStart().isBefore(to)) {
+                    break;
+                }
+                bookings.add(booking);
+            }
+            return bookings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drops bookings that ended before the cutoff; returns how many were dropped
+    public int removeEndedBefore(LocalDateTime cutoff) {
+        lock.writeLock().lock();
+        try {
+            List<Booking> ended = new ArrayList<>();
+            for (Booking booking : byStart.headSet(probe(cutoff), false)) {
+                if (booking.getEnd().isBefore(cutoff)) {
+                    ended.add(booking);
+                }
+            }
+            for (Booking booking : ended) {
+                byId.remove(booking.getId());
+                TreeMap<LocalDateTime, Booking> table = byTable.get(booking.getTableName());
+                table.remove(booking.getStart());
+                if (table.isEmpty()) {
+                    byTable.remove(booking.getTableName());
+                }
+                byStart.remove(booking);
+            }
+            return ended.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Persistence ----
+
+    Snapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            return new Snapshot(new HashMap<>(seats), new ArrayList<>(byStart));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Replaces all seats and bookings; bookings that overlap an earlier one of the same table are dropped
+    void restore(Snapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            seats.clear();
+            tablesBySeats.clear();
+            byTable.clear();
+            byId.clear();
+            byStart.clear();
+            nextId = 1;
+            for (Map.Entry<String, Integer> entry : snapshot.seats.entrySet()) {
+                putSeats(entry.getKey(), entry.getValue());
+            }
+            for (Booking booking : snapshot.bookings) {
+                if (conflictOrNull(booking.getTableName(), booking.getStart(), booking.getEnd()) != null) {
+                    System.err.println("Dropping overlapping booking " + booking);
+                    continue;
+                }
+                add(booking);
+                nextId = Math.max(nextId, booking.getId() + 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Callers hold the lock ----
+
+    private Booking conflictOrNull(String tableName, LocalDateTime start, LocalDateTime end) {
+        TreeMap<LocalDateTime, Booking> table = byTable.get(tableName);
+        if (table == null) {
+            return null;
+        }
+        // Earlier bookings end before this one starts, so it is the only candidate
+        Map.Entry<LocalDateTime, Booking> last = table.lowerEntry(end);
+        return last != null && last.getValue().getEnd().isAfter(start) ? last.getValue() : null;
+    }
+
+    private void add(Booking booking) {
+        byTable.computeIfAbsent(booking.getTableName(), t -> new TreeMap<>()).put(booking.getStart(), booking);
+        byId.put(booking.getId(), booking);
+        byStart.add(booking);
+        if (!seats.containsKey(booking.getTableName())) {
+            putSeats(booking.getTableName(), DEFAULT_SEATS);
+        }
+    }
+
+    private void putSeats(String tableName, int seatCount) {
+        Integer old = seats.put(tableName, seatCount);
+        if (old != null) {
+            Set<String> tables = tablesBySeats.get(old);
+            tables.remove(tableName);
+            if (tables.isEmpty()) {
+                tablesBySeats.remove(old);
+            }
+        }
+        tablesBySeats.computeIfAbsent(seatCount, s -> new TreeSet<>()).add(tableName);
+    }
+
+    // Sorts before every booking starting at the given time
+    private static Booking probe(LocalDateTime start) {
+        return new Booking(Long.MIN_VALUE, null, null, 0, start, start);
+    }
+}
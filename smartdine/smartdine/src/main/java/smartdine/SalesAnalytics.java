@@ -0,0 +1,125 @@
+package smartdine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running sales totals per menu item, category, table and hour of day.
+// Every billed order is added once as it is recorded, so a report never rescans the history:
+// each lookup is one hash probe (or array index for hours) plus summing a LongAdder.
+// LongAdders let concurrent terminals record bills without contending, and let the history be
+// replayed in parallel when the report is first opened.
+public class SalesAnalytics {
+    public static final int HOURS_PER_DAY = 24;
+
+    private final Map<String, Totals> byItem = new ConcurrentHashMap<>();
+    private final Map<String, Totals> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, Totals> byTable = new ConcurrentHashMap<>();
+    private final Totals[] byHour = new Totals[HOURS_PER_DAY];
+    private final Totals overall = new Totals();
+
+    // Revenue in cents, units sold and number of orders for one key
+    public static final class Totals {
+        private final LongAdder revenueCents = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder orders = new LongAdder();
+
+        public long getRevenueCents() { return revenueCents.sum(); }
+        public long getUnits() { return units.sum(); }
+        public long getOrders() { return orders.sum(); }
+
+        private void add(long cents, long quantity) {
+            revenueCents.add(cents);
+            units.add(quantity);
+        }
+    }
+
+    public SalesAnalytics() {
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            byHour[hour] = new Totals();
+        }
+    }
+
+    // Builds the totals for a whole history, spreading the orders over all cores
+    public static SalesAnalytics rebuild(List<MainFrame.Order> orders) {
+        SalesAnalytics analytics = new SalesAnalytics();
+        orders.parallelStream().forEach(analytics::record);
+        return analytics;
+    }
+
+    // Adds one billed order to every aggregate; safe to call from any thread
+    public void record(MainFrame.Order order) {
+        Totals table = byTable.computeIfAbsent(order.getTableName(), k -> new Totals());
+        Totals hour = byHour[order.getOrderDateTime().getHour()];
+        List<String> categoriesInOrder = new ArrayList<>(4);
+        long orderCents = 0;
+        long orderUnits = 0;
+
+        for (MainFrame.CartItem item : order.getItems()) {
+            long cents = item.getTotalCents();
+            int quantity = item.getQuantity();
+            MainFrame.MenuItem menuItem = item.getMenuItem();
+
+            // Carts merge repeated items into one line, so every line is a distinct item of the order
+            Totals itemTotals = byItem.computeIfAbsent(menuItem.getName(), k -> new Totals());
+            itemTotals.add(cents, quantity);
+            itemTotals.orders.increment();
+
+            Totals categoryTotals = byCategory.computeIfAbsent(menuItem.getCategory(), k -> new Totals());
+            categoryTotals.add(cents, quantity);
+            if (!categoriesInOrder.contains(menuItem.getCategory())) {
+                categoriesInOrder.add(menuItem.getCategory());
+                categoryTotals.orders.increment();
+            }
+
+            orderCents += cents;
+            orderUnits += quantity;
+        }
+
+        addOrder(table, orderCents, orderUnits);
+        addOrder(hour, orderCents, orderUnits);
+        addOrder(overall, orderCents, orderUnits);
+    }
+
+    private static void addOrder(Totals totals, long cents, long units) {
+        totals.add(cents, units);
+        totals.orders.increment();
+    }
+
+    // ---- Queries; item, category and table lookups return null when nothing was sold for the key ----
+
+    public Totals getItem(String itemName) {
+        return byItem.get(itemName);
+    }
+
+    public Totals getCategory(String category) {
+        return byCategory.get(category);
+    }
+
+    public Totals getTable(String tableName) {
+        return byTable.get(tableName);
+    }
+
+    public Totals getHour(int hourOfDay) {
+        return byHour[hourOfDay];
+    }
+
+    public Totals getOverall() {
+        return overall;
+    }
+
+    // Keys with at least one sale, in no particular order
+    public List<String> getItemNames() {
+        return new ArrayList<>(byItem.keySet());
+    }
+
+    public List<String> getCategories() {
+        return new ArrayList<>(byCategory.keySet());
+    }
+
+    public List<String> getTableNames() {
+        return new ArrayList<>(byTable.keySet());
+    }
+}
@@ -0,0 +1,105 @@
+package smartdine;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Sales report rows for one dimension (item, category, table or hour of day).
+// Only the key list is copied when the dimension changes; totals are read from the analytics
+// as cells are rendered, so the report always shows the latest bills. Shows no rows until the
+// analytics have been built and handed over with setAnalytics.
+public class SalesTableModel extends IndexedTableModel {
+    public static final String[] DIMENSIONS = {"Item", "Category", "Table", "Hour"};
+    private static final String[] COLUMNS = {"Key", "Orders", "Units", "Revenue", "Share"};
+
+    private SalesAnalytics analytics;
+    private String dimension = DIMENSIONS[0];
+    private String[] keys = new String[0];
+
+    public SalesTableModel() {
+        super(COLUMNS);
+    }
+
+    public void setAnalytics(SalesAnalytics analytics) {
+        this.analytics = analytics;
+        refresh();
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+        refresh();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return column == 0 ? dimension : super.getColumnName(column);
+    }
+
+    // Picks up keys sold for the first time since the last refresh
+    public void refresh() {
+        switch (analytics == null ? "" : dimension) {
+            case "": keys = new String[0]; break;
+            case "Category": keys = sorted(analytics.getCategories()); break;
+            case "Table": keys = sorted(analytics.getTableNames()); break;
+            case "Hour":
+                keys = new String[SalesAnalytics.HOURS_PER_DAY];
+                for (int hour = 0; hour < keys.length; hour++) {
+                    keys[hour] = String.format("%02d:00", hour);
+                }
+                break;
+            default: keys = sorted(analytics.getItemNames()); break;
+        }
+        fireTableStructureChanged(); // The first column is renamed after the dimension
+        showAll();
+    }
+
+    @Override
+    protected int backingSize() {
+        return keys.length;
+    }
+
+    @Override
+    protected Object valueAt(int position, int column) {
+        if (column == 0) {
+            return keys[position];
+        }
+        SalesAnalytics.Totals totals = totalsAt(position);
+        long revenue = totals == null ? 0 : totals.getRevenueCents();
+        switch (column) {
+            case 1: return totals == null ? 0L : totals.getOrders();
+            case 2: return totals == null ? 0L : totals.getUnits();
+            case 3: return Money.format(revenue);
+            default:
+                long overall = analytics.getOverall().getRevenueCents();
+                return String.format("%.1f%%", overall == 0 ? 0.0 : revenue * 100.0 / overall);
+        }
+    }
+
+    @Override
+    protected int compare(int positionA, int positionB, int column) {
+        if (column == 0) {
+            return positionA - positionB; // Keys are kept in natural order
+        }
+        SalesAnalytics.Totals a = totalsAt(positionA);
+        SalesAnalytics.Totals b = totalsAt(positionB);
+        switch (column) {
+            case 1: return Long.compare(a == null ? 0 : a.getOrders(), b == null ? 0 : b.getOrders());
+            case 2: return Long.compare(a == null ? 0 : a.getUnits(), b == null ? 0 : b.getUnits());
+            default: return Long.compare(a == null ? 0 : a.getRevenueCents(), b == null ? 0 : b.getRevenueCents());
+        }
+    }
+
+    private SalesAnalytics.Totals totalsAt(int position) {
+        switch (dimension) {
+            case "Category": return analytics.getCategory(keys[position]);
+            case "Table": return analytics.getTable(keys[position]);
+            case "Hour": return analytics.getHour(position);
+            default: return analytics.getItem(keys[position]);
+        }
+    }
+
+    private static String[] sorted(List<String> values) {
+        String[] array = values.toArray(new String[0]);
+        Arrays.sort(array, String.CASE_INSENSITIVE_ORDER);
+        return array;
+    }
+}
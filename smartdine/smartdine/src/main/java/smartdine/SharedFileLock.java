@@ -0,0 +1,39 @@
+package smartdine;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exclusive lock on a file shared by several processes (terminals) and by several objects of one process.
+// A FileLock only excludes other processes: the JVM holds it for the whole process, and a second lock()
+// on the same file from this process throws OverlappingFileLockException instead of waiting. So every
+// holder first takes a monitor shared by all SharedFileLocks on the same path in this process, then the
+// FileLock on its own channel. Used by OrderNumberAllocator and MenuCatalog.
+final class SharedFileLock {
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Object processLock;
+
+    interface Action<T> {
+        T run() throws IOException;
+    }
+
+    SharedFileLock(Path path) {
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), p -> new Object());
+    }
+
+    // Runs the action holding the file exclusively; channel must be open on the path of this lock
+    <T> T run(FileChannel channel, Action<T> action) throws IOException {
+        synchronized (processLock) {
+            FileLock lock = channel.lock();
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bills must survive a crash mid-append, a lost index, and both at once
+class BillArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void billsRoundTripThroughAReopen() throws IOException {
+        try (BillArchive archive = open()) {
+            for (int i = 0; i < 5; i++) {
+                archive.append(i, bill(i));
+            }
+            archive.append(2, "reprinted"); // A later bill for the same order replaces the earlier one
+        }
+        try (BillArchive archive = open()) {
+            assertEquals(5, archive.size());
+            assertEquals("reprinted", archive.read(2));
+            assertEquals(bill(4), archive.read(4));
+            assertNull(archive.read(5));
+        }
+    }
+
+    @Test
+    void tornAppendIsDroppedBeforeNewBills() throws IOException {
+        try (BillArchive archive = open()) {
+            for (int i = 0; i < 5; i++) {
+                archive.append(i, bill(i));
+            }
+        }
+        cutSegment(3); // Crash while bill 4 was being written
+        try (BillArchive archive = open()) {
+            assertEquals(4, archive.size());
+            assertNull(archive.read(4));
+            archive.append(5, bill(5));
+            archive.append(6, bill(6));
+        }
+        assertBills();
+
+        // The segments alone must give the same bills, so no garbage may be left between records
+        Files.delete(directory.resolve("bills.idx"));
+        assertBills();
+    }
+
+    @Test
+    void lostIndexIsRebuiltFromATornSegment() throws IOException {
+        try (BillArchive archive = open()) {
+            for (int i = 0; i < 5; i++) {
+                archive.append(i, bill(i));
+            }
+        }
+        cutSegment(3);
+        Files.delete(directory.resolve("bills.idx"));
+        try (BillArchive archive = open()) {
+            assertEquals(4, archive.size());
+            archive.append(5, bill(5));
+            archive.append(6, bill(6));
+        }
+        assertBills();
+    }
+
+    private void assertBills() throws IOException {
+        try (BillArchive archive = open()) {
+            assertEquals(6, archive.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(bill(i), archive.read(i));
+            }
+            assertNull(archive.read(4));
+            assertEquals(bill(5), archive.read(5));
+            assertEquals(bill(6), archive.read(6));
+        }
+    }
+
+    private void cutSegment(int bytes) throws IOException {
+        try (FileChannel segment = FileChannel.open(directory.resolve("segment_00000.dat"), StandardOpenOption.WRITE)) {
+            segment.truncate(segment.size() - bytes);
+        }
+    }
+
+    private BillArchive open() throws IOException {
+        BillArchive archive = new BillArchive(directory.toString());
+        archive.open();
+        return archive;
+    }
+
+    private static String bill(int orderNumber) {
+        return "Order #" + orderNumber + "\nBurger x2\nTotal: " + (orderNumber + 10) + ".00\n";
+    }
+}
@@ -0,0 +1,123 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A bill's future completes only once the bill is on disk, and fails when the batch holding it could not be written
+class BillSpoolerTest {
+    @TempDir
+    Path directory;
+
+    // Archive whose fsync fails while failing is set
+    private static final class FailingArchive extends BillArchive {
+        volatile boolean failing;
+
+        FailingArchive(String directory) {
+            super(directory);
+        }
+
+        @Override
+        public synchronized void force() throws IOException {
+            if (failing) {
+                throw new IOException("Disk full");
+            }
+            super.force();
+        }
+    }
+
+    @Test
+    void spooledBillsAreWrittenInBatches() throws Exception {
+        try (BillArchive archive = open()) {
+            List<CompletableFuture<Void>> durable = new ArrayList<>();
+            try (BillSpooler spooler = new BillSpooler(archive, 20, TimeUnit.MILLISECONDS, 64)) {
+                for (int i = 0; i < 200; i++) {
+                    durable.add(spooler.submit(i, encode(bill(i))));
+                }
+                spooler.sync().get(10, TimeUnit.SECONDS);
+                for (CompletableFuture<Void> future : durable) {
+                    assertTrue(future.isDone() && !future.isCompletedExceptionally());
+                }
+                assertEquals(200, spooler.getSpooledBills());
+                assertTrue(spooler.getBatches() < 200, "batches: " + spooler.getBatches());
+                assertEquals(0, spooler.getFailedBatches());
+                assertNull(spooler.readUnwritten(7));
+            }
+            for (int i = 0; i < 200; i++) {
+                assertEquals(bill(i), archive.read(i));
+            }
+        }
+    }
+
+    @Test
+    void failedForceFailsEveryBillOfTheBatch() throws Exception {
+        try (FailingArchive archive = new FailingArchive(directory.toString())) {
+            archive.open();
+            try (BillSpooler spooler = new BillSpooler(archive, 50, TimeUnit.MILLISECONDS, 16)) {
+                archive.failing = true;
+                List<CompletableFuture<Void>> durable = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    durable.add(spooler.submit(i, encode(bill(i))));
+                }
+                for (CompletableFuture<Void> future : durable) {
+                    ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+                    assertEquals("Disk full", e.getCause().getMessage());
+                }
+                assertTrue(spooler.getFailedBatches() > 0);
+                assertNull(spooler.readUnwritten(0)); // A failed bill is not served from the spool either
+
+                // The spooler keeps going once the disk recovers
+                archive.failing = false;
+                spooler.submit(5, encode(bill(5))).get(10, TimeUnit.SECONDS);
+                spooler.sync().get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(bill(5), archive.read(5));
+        }
+    }
+
+    @Test
+    void closeWritesPendingBills() throws Exception {
+        try (BillArchive archive = open()) {
+            BillSpooler spooler = new BillSpooler(archive, 1, TimeUnit.SECONDS, 1000);
+            CompletableFuture<Void> durable = spooler.submit(1, encode(bill(1)));
+            assertEquals(bill(1), spooler.readUnwritten(1)); // Readable while the window is still open
+            spooler.close(10, TimeUnit.SECONDS);
+            assertTrue(durable.isDone() && !durable.isCompletedExceptionally());
+            assertEquals(bill(1), archive.read(1));
+            assertThrows(IllegalStateException.class, () -> spooler.submit(2, encode(bill(2))));
+            spooler.sync().get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void batchHoldsAtLeastOneBill() throws IOException {
+        try (BillArchive archive = open()) {
+            assertThrows(IllegalArgumentException.class, () -> new BillSpooler(archive, 0, TimeUnit.MILLISECONDS, 0));
+        }
+    }
+
+    private BillArchive open() throws IOException {
+        BillArchive archive = new BillArchive(directory.toString());
+        archive.open();
+        return archive;
+    }
+
+    private static ByteBuffer encode(String bill) {
+        return ByteBuffer.wrap(bill.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String bill(int orderNumber) {
+        return "Order #" + orderNumber + "\nBurger x2\nTotal: " + (orderNumber + 10) + ".00\n";
+    }
+}
@@ -0,0 +1,90 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Terminals sharing one catalog file, each with its own MenuCatalog, as separate processes would have
+class MenuCatalogTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void catalogsSharingTheFileAgreeOnIds() throws IOException {
+        try (MenuCatalog first = open(); MenuCatalog second = open()) {
+            MainFrame.MenuItem burger = first.intern("Burger", "Main Course", 899);
+            MainFrame.MenuItem fries = second.intern("Fries", "Appetizers", 349);
+            assertNotEquals(burger.getItemId(), fries.getItemId());
+
+            // The second catalog finds the entry the first one appended instead of adding its own
+            MainFrame.MenuItem sameBurger = second.intern("Burger", "Main Course", 899);
+            assertEquals(burger.getItemId(), sameBurger.getItemId());
+            assertEquals(burger.getPriceVersion(), sameBurger.getPriceVersion());
+
+            MainFrame.MenuItem dearerBurger = second.intern("Burger", "Main Course", 999);
+            assertEquals(burger.getItemId(), dearerBurger.getItemId());
+            assertEquals(2, dearerBurger.getPriceVersion());
+            assertEquals(dearerBurger.getPriceCents(), first.intern("Burger", "Main Course", 999).getPriceCents());
+            assertEquals(2, first.resolveOrNull(burger.getItemId(), 2).getPriceVersion());
+        }
+        try (MenuCatalog reopened = open()) {
+            assertEquals(2, reopened.size());
+        }
+    }
+
+    @Test
+    void concurrentAddsFromSeveralCatalogsGetUniqueEntries() throws Exception {
+        int terminals = 4;
+        int itemsPerTerminal = 50;
+        List<MenuCatalog> catalogs = new ArrayList<>();
+        for (int i = 0; i < terminals; i++) {
+            catalogs.add(open());
+        }
+        try {
+            List<List<MainFrame.MenuItem>> results = TestTerminals.collect(terminals, terminal -> {
+                MenuCatalog catalog = catalogs.get(terminal);
+                List<MainFrame.MenuItem> items = new ArrayList<>();
+                for (int i = 0; i < itemsPerTerminal; i++) {
+                    items.add(catalog.intern("Special " + terminal + "-" + i, "Kitchen", 100 + i));
+                    items.add(catalog.intern("Daily soup", "Appetizers", 450)); // Added by whoever comes first
+                }
+                return items;
+            });
+            Set<Integer> ids = new HashSet<>();
+            Set<Integer> soupIds = new HashSet<>();
+            for (List<MainFrame.MenuItem> result : results) {
+                for (MainFrame.MenuItem item : result) {
+                    assertNotEquals(0, item.getItemId(), "entry could not be written");
+                    if (item.getName().equals("Daily soup")) {
+                        soupIds.add(item.getItemId());
+                    } else {
+                        assertTrue(ids.add(item.getItemId()), "item ID " + item.getItemId() + " given to two items");
+                    }
+                }
+            }
+            assertEquals(1, soupIds.size());
+            assertFalse(ids.contains(soupIds.iterator().next()));
+        } finally {
+            for (MenuCatalog catalog : catalogs) {
+                catalog.close();
+            }
+        }
+        try (MenuCatalog reopened = open()) {
+            assertEquals(terminals * itemsPerTerminal + 1, reopened.size());
+        }
+    }
+
+    private MenuCatalog open() throws IOException {
+        MenuCatalog catalog = new MenuCatalog(new File(directory, "smartdine_catalog.dat").getPath());
+        catalog.open();
+        return catalog;
+    }
+}
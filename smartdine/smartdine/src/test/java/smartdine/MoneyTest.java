@@ -0,0 +1,94 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    @Test
+    void sumsAreExactToTheCent() {
+        long cents = 0;
+        double amount = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            cents = Money.plus(cents, 10);
+            amount += 0.10;
+        }
+        assertEquals(10_000_000, cents);
+        assertNotEquals(100_000.0, amount); // What doubles make of the same sum
+        assertEquals(1_234_567 * 37L, Money.times(1_234_567, 37));
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+    }
+
+    @Test
+    void fromDoubleMatchesTheAmountShownWithTwoDecimals() {
+        assertEquals(101, Money.fromDouble(1.005));
+        assertEquals(30, Money.fromDouble(0.1 + 0.2));
+        assertEquals(-75, Money.fromDouble(-0.75));
+        assertEquals(0, Money.fromDouble(0.004));
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double amount = (random.nextInt(2_000_000) - 1_000_000) / 1000.0;
+            assertEquals(String.format("%.2f", amount), Money.format(Money.fromDouble(amount)), "amount " + amount);
+        }
+    }
+
+    @Test
+    void fromDoubleRejectsWhatIsNotMoney() {
+        assertThrows(ArithmeticException.class, () -> Money.fromDouble(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.fromDouble(Double.POSITIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> Money.fromDouble(1e18));
+    }
+
+    @Test
+    void parsesExactly() {
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1250, Money.parse("$12.50"));
+        assertEquals(-75, Money.parse("-0.75"));
+        assertEquals(7, Money.parse(" .07 "));
+        assertEquals(101, Money.parse("1.01"));
+    }
+
+    @Test
+    void parseRejectsMalformedAmounts() {
+        for (String text : new String[]{"", "$", "1.005", "1.2.3", "12a", "--1", "1,50", "99999999999999999999"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(text), text);
+        }
+    }
+
+    @Test
+    void parseRejectsAmountsPastTheLongRange() {
+        // Long.MAX_VALUE / 100 units pass a units-only bound, then overflow once the cents are added
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.99"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547759"));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-92233720368547758.09"));
+    }
+
+    @Test
+    void formatsWithTwoDecimals() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("12.30", Money.format(1230));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    void formatAndParseRoundTrip() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long cents = random.nextLong() / 1000;
+            assertEquals(cents, Money.parse(Money.format(cents)));
+        }
+    }
+}
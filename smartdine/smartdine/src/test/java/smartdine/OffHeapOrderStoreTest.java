@@ -0,0 +1,138 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Orders read back from the store must equal the orders added, across chunk boundaries and while it grows
+class OffHeapOrderStoreTest {
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2026, 3, 14, 19, 30, 15, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ordersRoundTripAcrossChunks() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        int count = OffHeapOrderStore.ORDERS_PER_CHUNK + 100;
+        for (int i = 0; i < count; i++) {
+            store.add(order(i));
+        }
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i += 97) {
+            assertOrder(order(i), store.view(i).toOrder());
+        }
+        assertOrder(order(count - 1), store.view(count - 1).toOrder());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(count));
+    }
+
+    @Test
+    void orderLargerThanALineChunkKeepsItsLines() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        store.add(order(1));
+        List<MainFrame.CartItem> lines = new ArrayList<>();
+        for (int i = 0; i <= OffHeapOrderStore.LINES_PER_CHUNK; i++) {
+            lines.add(new MainFrame.CartItem(new MainFrame.MenuItem("Item " + i % 10, "Main Course", 100 + i % 10), 1 + i % 3));
+        }
+        MainFrame.Order large = new MainFrame.Order(2, "Banquet", "Hall", lines, 0, ORDER_TIME);
+        store.add(large);
+        store.add(order(3));
+
+        assertOrder(large, store.view(1).toOrder());
+        assertOrder(order(1), store.view(0).toOrder());
+        assertOrder(order(3), store.view(2).toOrder());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(0).getItem(2));
+    }
+
+    @Test
+    void namesAndItemsAreStoredOnce() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        store.add(order(1));
+        store.add(order(11));
+        OffHeapOrderStore.OrderView first = store.view(0);
+        OffHeapOrderStore.OrderView second = store.view(1);
+        assertSame(first.getTableName(), second.getTableName());
+        assertSame(first.getItem(0), second.getItem(0));
+        assertNotSame(first.getCustomerName(), second.getCustomerName());
+    }
+
+    @Test
+    void mappedStoreDeletesItsFileOnClose() throws IOException {
+        Path scratch = directory.resolve("orders.offheap");
+        try (OffHeapOrderStore store = new OffHeapOrderStore(scratch)) {
+            for (int i = 0; i < 1000; i++) {
+                store.add(order(i));
+            }
+            AtomicInteger visited = new AtomicInteger();
+            store.forEach(store.size(), view -> {
+                assertEquals(visited.getAndIncrement(), view.getOrderNumber());
+                assertEquals(599L * 2 + 150L * (view.getOrderNumber() % 4 + 1), view.getTotalCents());
+            });
+            assertEquals(1000, visited.get());
+            assertOrder(order(999), store.view(999).toOrder());
+        }
+        assertFalse(Files.exists(scratch));
+    }
+
+    @Test
+    void readersSeeOnlyCompleteOrders() throws Exception {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        int count = 2 * OffHeapOrderStore.ORDERS_PER_CHUNK;
+        // One terminal bills while the others page through whatever has been published so far
+        TestTerminals.run(3, terminal -> {
+            if (terminal == 0) {
+                for (int i = 0; i < count; i++) {
+                    store.add(order(i));
+                }
+                return;
+            }
+            OffHeapOrderStore.OrderView view = store.view();
+            while (store.size() < count) {
+                int size = store.size();
+                if (size > 0) {
+                    int position = size - 1;
+                    view.moveTo(position);
+                    assertEquals(position, view.getOrderNumber());
+                    assertEquals("Customer " + position, view.getCustomerName());
+                    assertEquals(2, view.getLineCount());
+                    assertEquals("Coke", view.getItem(1).getName());
+                }
+            }
+        });
+        assertEquals(count, store.size());
+    }
+
+    private static void assertOrder(MainFrame.Order expected, MainFrame.Order actual) {
+        assertEquals(expected.getOrderNumber(), actual.getOrderNumber());
+        assertEquals(expected.getCustomerName(), actual.getCustomerName());
+        assertEquals(expected.getTableName(), actual.getTableName());
+        assertEquals(expected.getTotalCents(), actual.getTotalCents());
+        assertEquals(expected.getOrderDateTime(), actual.getOrderDateTime());
+        assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            MainFrame.CartItem expectedLine = expected.getItems().get(i);
+            MainFrame.CartItem actualLine = actual.getItems().get(i);
+            assertEquals(expectedLine.getMenuItem().getName(), actualLine.getMenuItem().getName());
+            assertEquals(expectedLine.getMenuItem().getPriceCents(), actualLine.getMenuItem().getPriceCents());
+            assertEquals(expectedLine.getQuantity(), actualLine.getQuantity());
+        }
+    }
+
+    private static MainFrame.Order order(int orderNumber) {
+        MainFrame.MenuItem burger = new MainFrame.MenuItem("Burger", "Main Course", 599);
+        MainFrame.MenuItem coke = new MainFrame.MenuItem("Coke", "Drinks", 150);
+        int cokes = orderNumber % 4 + 1;
+        List<MainFrame.CartItem> items = List.of(new MainFrame.CartItem(burger, 2), new MainFrame.CartItem(coke, cokes));
+        return new MainFrame.Order(orderNumber, "Customer " + orderNumber, "T" + orderNumber % 10, items,
+                599L * 2 + 150L * cokes, ORDER_TIME.plusMinutes(orderNumber));
+    }
+}
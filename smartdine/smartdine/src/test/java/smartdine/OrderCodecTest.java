@@ -0,0 +1,202 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCodecTest {
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2026, 3, 14, 19, 30, 15, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void menuRoundTrip() throws IOException {
+        List<MainFrame.MenuItem> menu = List.of(
+                new MainFrame.MenuItem("Burger", "Main Course", 599),
+                new MainFrame.MenuItem("Crème brûlée", "Dessert", 1),
+                new MainFrame.MenuItem("Tasting menu", "Main Course", 123_456_789_01L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderCodec.writeMenu(menu, out);
+
+        List<MainFrame.MenuItem> read = OrderCodec.readMenu(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(menu.size(), read.size());
+        for (int i = 0; i < menu.size(); i++) {
+            assertMenuItem(menu.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void orderRoundTrip() throws IOException {
+        MainFrame.Order order = order(1042);
+        assertOrder(order, OrderCodec.decodeOrder(OrderCodec.encodeOrder(order)));
+    }
+
+    @Test
+    void orderRoundTripThroughCatalog() throws IOException {
+        try (MenuCatalog catalog = new MenuCatalog(directory.resolve("catalog.dat").toString())) {
+            catalog.open();
+            MainFrame.Order order = order(1043);
+            MainFrame.Order read = OrderCodec.decodeOrder(OrderCodec.encodeOrder(order, catalog), catalog);
+            assertOrder(order, read);
+            assertSame(catalog.intern(order.getItems().get(0).getMenuItem()), read.getItems().get(0).getMenuItem());
+        }
+    }
+
+    @Test
+    void ordersFileRoundTrip() throws IOException {
+        List<MainFrame.Order> orders = List.of(order(1000), order(1001), order(1002));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderCodec.writeOrders(orders, out);
+
+        List<MainFrame.Order> read = OrderCodec.readOrders(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(orders.size(), read.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertOrder(orders.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void stringsCounterAndReservationsRoundTrip() throws IOException {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        OrderCodec.writeStrings(Set.of("T1", "Patio", ""), strings);
+        assertEquals(Set.of("T1", "Patio", ""), OrderCodec.readStrings(new ByteArrayInputStream(strings.toByteArray())));
+
+        ByteArrayOutputStream counter = new ByteArrayOutputStream();
+        OrderCodec.writeCounter(123_456, counter);
+        assertEquals(123_456, OrderCodec.readCounter(new ByteArrayInputStream(counter.toByteArray())));
+
+        ReservationBook.Booking booking = new ReservationBook.Booking(7, "T2", "Smith", 4, ORDER_TIME, ORDER_TIME.plusHours(2));
+        ByteArrayOutputStream reservations = new ByteArrayOutputStream();
+        OrderCodec.writeReservations(new ReservationBook.Snapshot(Map.of("T2", 4), List.of(booking)), reservations);
+        ReservationBook.Snapshot read = OrderCodec.readReservations(new ByteArrayInputStream(reservations.toByteArray()));
+        assertEquals(Map.of("T2", 4), read.seats);
+        ReservationBook.Booking readBooking = read.bookings.get(0);
+        assertEquals(booking.getId(), readBooking.getId());
+        assertEquals(booking.getTableName(), readBooking.getTableName());
+        assertEquals(booking.getCustomerName(), readBooking.getCustomerName());
+        assertEquals(booking.getPartySize(), readBooking.getPartySize());
+        assertEquals(booking.getStart(), readBooking.getStart());
+        assertEquals(booking.getEnd(), readBooking.getEnd());
+    }
+
+    // A record of a future version with fields this version does not know: they are skipped
+    @Test
+    void readsRecordsOfNewerVersions() throws IOException {
+        OrderCodec.Encoder out = new OrderCodec.Encoder(64);
+        int mark = out.beginRecord(OrderCodec.MENU_ITEM_VERSION + 1);
+        out.writeString("Burger");
+        out.writeString("Main Course");
+        out.writeDouble(5.99);
+        out.writeLong(599);
+        out.writeInt(42); // Appended by the future version
+        out.writeString("gluten free");
+        out.endRecord(mark);
+        out.writeInt(0xCAFE); // Whatever follows the record
+
+        OrderCodec.Decoder in = decoder(out);
+        assertMenuItem(new MainFrame.MenuItem("Burger", "Main Course", 599), OrderCodec.readMenuItem(in));
+        assertEquals(0xCAFE, in.readInt());
+    }
+
+    @Test
+    void readsVersion1Records() throws IOException {
+        OrderCodec.Encoder out = new OrderCodec.Encoder(64);
+        int mark = out.beginRecord(1);
+        out.writeString("Fries");
+        out.writeString("Appetizers");
+        out.writeDouble(2.99);
+        out.endRecord(mark);
+        assertEquals(299, OrderCodec.readMenuItem(decoder(out)).getPriceCents());
+    }
+
+    // Version 2 put the cents where the double was; files written by it stay readable
+    @Test
+    void readsVersion2Records() throws IOException {
+        OrderCodec.Encoder out = new OrderCodec.Encoder(64);
+        int mark = out.beginRecord(2);
+        out.writeString("Fries");
+        out.writeString("Appetizers");
+        out.writeLong(299);
+        out.endRecord(mark);
+        assertEquals(299, OrderCodec.readMenuItem(decoder(out)).getPriceCents());
+    }
+
+    // What a reader that only knows version 1 (double prices) sees of records written now
+    @Test
+    void version1ReaderReadsCurrentRecords() throws IOException {
+        MainFrame.Order order = order(1044);
+        byte[] data = OrderCodec.encodeOrder(order);
+        OrderCodec.Decoder in = new OrderCodec.Decoder(data, 0, data.length);
+
+        int end = in.beginRecord();
+        assertEquals(order.getOrderNumber(), in.readInt());
+        assertEquals(order.getCustomerName(), in.readString());
+        assertEquals(order.getTableName(), in.readString());
+        assertEquals(Money.toDouble(order.getTotalCents()), in.readDouble());
+        in.readLong(); // Date and time
+        in.readInt();
+        int itemCount = in.readInt();
+        assertEquals(order.getItems().size(), itemCount);
+        for (MainFrame.CartItem item : order.getItems()) {
+            int itemEnd = in.beginRecord();
+            int menuItemEnd = in.beginRecord();
+            assertEquals(item.getMenuItem().getName(), in.readString());
+            assertEquals(item.getMenuItem().getCategory(), in.readString());
+            assertEquals(Money.toDouble(item.getMenuItem().getPriceCents()), in.readDouble());
+            in.skipTo(menuItemEnd);
+            assertEquals(item.getQuantity(), in.readInt());
+            in.skipTo(itemEnd);
+        }
+        in.skipTo(end);
+        assertEquals(data.length, in.position());
+    }
+
+    @Test
+    void rejectsTruncatedRecords() {
+        byte[] data = OrderCodec.encodeOrder(order(1045));
+        assertThrows(IOException.class, () -> OrderCodec.decodeOrder(Arrays.copyOf(data, data.length - 1)));
+    }
+
+    private static MainFrame.Order order(int orderNumber) {
+        MainFrame.MenuItem burger = new MainFrame.MenuItem("Burger", "Main Course", 599);
+        MainFrame.MenuItem coke = new MainFrame.MenuItem("Coke", "Drinks", 150);
+        List<MainFrame.CartItem> items = List.of(new MainFrame.CartItem(burger, 2), new MainFrame.CartItem(coke, 3));
+        return new MainFrame.Order(orderNumber, "Customer " + orderNumber, "T" + orderNumber % 10, items, 2 * 599 + 3 * 150, ORDER_TIME);
+    }
+
+    private static OrderCodec.Decoder decoder(OrderCodec.Encoder out) {
+        byte[] data = out.toByteArray();
+        return new OrderCodec.Decoder(data, 0, data.length);
+    }
+
+    private static void assertMenuItem(MainFrame.MenuItem expected, MainFrame.MenuItem actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getPriceCents(), actual.getPriceCents());
+    }
+
+    private static void assertOrder(MainFrame.Order expected, MainFrame.Order actual) {
+        assertEquals(expected.getOrderNumber(), actual.getOrderNumber());
+        assertEquals(expected.getCustomerName(), actual.getCustomerName());
+        assertEquals(expected.getTableName(), actual.getTableName());
+        assertEquals(expected.getTotalCents(), actual.getTotalCents());
+        assertEquals(expected.getOrderDateTime(), actual.getOrderDateTime());
+        assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertMenuItem(expected.getItems().get(i).getMenuItem(), actual.getItems().get(i).getMenuItem());
+            assertEquals(expected.getItems().get(i).getQuantity(), actual.getItems().get(i).getQuantity());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package smartdine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Simulated waiter terminals sharing one engine, each on its own thread
+class OrderEngineConcurrencyTest {
+    private static final int TERMINALS = 8;
+
+    @TempDir
+    File directory;
+
+    private OrderEngine engine;
+    private MainFrame.MenuItem burger;
+    private MainFrame.MenuItem coke;
+
+    @BeforeEach
+    void setUp() {
+        engine = new OrderEngine(directory);
+        engine.loadAllData();
+        burger = engine.findMenuItem("Burger");
+        coke = engine.findMenuItem("Coke");
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void terminalsBillUniqueOrdersWithExactTotals() throws Exception {
+        int billsPerTerminal = 50;
+        long expectedTotal = 2 * burger.getPriceCents() + 3 * coke.getPriceCents();
+        ConcurrentLinkedQueue<MainFrame.Order> orders = new ConcurrentLinkedQueue<>();
+        TestTerminals.run(TERMINALS, terminal -> {
+            String table = "Terminal" + terminal;
+            for (int i = 0; i < billsPerTerminal; i++) {
+                assertTrue(engine.reserveTable(table));
+                engine.addToCart(table, burger, 1);
+                engine.addToCart(table, coke, 3);
+                engine.addToCart(table, burger, 1); // Merged into the first line
+                assertEquals(expectedTotal, engine.getCartTotal(table));
+                orders.add(engine.generateBill(table, "Guest " + terminal + "/" + i));
+                assertFalse(engine.isReserved(table));
+            }
+        });
+
+        Set<Integer> numbers = new HashSet<>();
+        for (MainFrame.Order order : orders) {
+            assertTrue(numbers.add(order.getOrderNumber()), "order number " + order.getOrderNumber() + " handed out twice");
+            assertEquals(expectedTotal, order.getTotalCents());
+        }
+        assertEquals(TERMINALS * billsPerTerminal, numbers.size());
+        assertEquals(TERMINALS * billsPerTerminal, engine.getOrderCount());
+    }
+
+    @Test
+    void aTableIsReservedByOneTerminalOnly() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        TestTerminals.run(4 * TERMINALS, terminal -> {
+            if (engine.reserveTable("T1")) {
+                reserved.incrementAndGet();
+            }
+        });
+        assertEquals(1, reserved.get());
+    }
+
+    @Test
+    void cartUpdatesOnOneTableAreNeverLost() throws Exception {
+        int additions = 2_000;
+        assertTrue(engine.reserveTable("T2"));
+        TestTerminals.run(TERMINALS, terminal -> {
+            for (int i = 0; i < additions; i++) {
+                engine.addToCart("T2", i % 2 == 0 ? burger : coke, 1);
+            }
+        });
+        long expected = (long) TERMINALS * additions / 2 * (burger.getPriceCents() + coke.getPriceCents());
+        assertEquals(expected, engine.getCartTotal("T2"));
+        int units = 0;
+        for (MainFrame.CartItem item : engine.getCart("T2")) {
+            units += item.getQuantity();
+        }
+        assertEquals(TERMINALS * additions, units);
+    }
+}
@@ -0,0 +1,124 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Orders are found by number and position across checkpoints, reopens, a lost index and an unfinished checkpoint
+class OrderHistoryTest {
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2026, 3, 14, 19, 30);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ordersAreFoundAcrossCheckpoints() throws IOException {
+        int count = 2 * OrderHistory.PAGE_SIZE + 10;
+        try (OrderHistory history = open()) {
+            for (int i = 0; i < count; i++) {
+                history.append(order(1000 + i));
+                if (i == OrderHistory.PAGE_SIZE + 3) {
+                    history.checkpoint(); // Leaves a partial page that later orders complete
+                }
+            }
+            assertEquals(count, history.size());
+            assertOrder(1000 + OrderHistory.PAGE_SIZE + 20, history.find(1000 + OrderHistory.PAGE_SIZE + 20));
+            history.checkpoint();
+            assertOrder(1000 + OrderHistory.PAGE_SIZE + 20, history.getOrderAt(OrderHistory.PAGE_SIZE + 20));
+        }
+        try (OrderHistory history = open()) {
+            assertEquals(count, history.size());
+            for (int i = 0; i < count; i += 37) {
+                assertOrder(1000 + i, history.find(1000 + i));
+                assertOrder(1000 + i, history.getOrderAt(i));
+            }
+            assertNull(history.find(999));
+            assertArrayEquals(new int[] {1000 + count - 2, 1000 + count - 1}, history.tailNumbers(2));
+        }
+    }
+
+    @Test
+    void unfinishedCheckpointIsCutOff() throws IOException {
+        long checkpointedSize;
+        try (OrderHistory history = open()) {
+            history.append(order(1));
+            history.append(order(2));
+            history.checkpoint();
+            checkpointedSize = Files.size(directory.resolve("orders.dat"));
+            history.append(order(3));
+            history.append(order(4));
+            history.checkpoint();
+        }
+        // Crash after the records and index entries of orders 3 and 4 were forced, before the count was bumped
+        try (FileChannel orders = FileChannel.open(directory.resolve("orders.dat"), StandardOpenOption.WRITE)) {
+            orders.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 2), OrderCodec.ORDERS_COUNT_OFFSET);
+        }
+        try (OrderHistory history = open()) {
+            assertEquals(2, history.size());
+            assertNull(history.find(3));
+            assertEquals(checkpointedSize, Files.size(directory.resolve("orders.dat")));
+            // The journal still holds orders 3 and 4; replaying them appends them again
+            history.append(order(3));
+            history.append(order(4));
+            history.checkpoint();
+        }
+        try (OrderHistory history = open()) {
+            assertEquals(4, history.size());
+            for (int i = 1; i <= 4; i++) {
+                assertOrder(i, history.getOrderAt(i - 1));
+                assertOrder(i, history.find(i));
+            }
+        }
+        assertEquals(4L * (Integer.BYTES + Long.BYTES), Files.size(directory.resolve("orders.idx")));
+    }
+
+    @Test
+    void lostIndexIsRebuilt() throws IOException {
+        try (OrderHistory history = open()) {
+            for (int i = 1; i <= 5; i++) {
+                history.append(order(i));
+            }
+            history.checkpoint();
+        }
+        Files.delete(directory.resolve("orders.idx"));
+        try (OrderHistory history = open()) {
+            assertEquals(5, history.size());
+            assertOrder(4, history.find(4));
+            List<Integer> numbers = new ArrayList<>();
+            history.forEach(history.size(), order -> numbers.add(order.getOrderNumber()));
+            assertEquals(List.of(1, 2, 3, 4, 5), numbers);
+        }
+    }
+
+    private OrderHistory open() throws IOException {
+        OrderHistory history = new OrderHistory(directory.resolve("orders.dat").toString(),
+                directory.resolve("orders.idx").toString(), directory.resolve("orders.ser").toString(), null);
+        history.open();
+        return history;
+    }
+
+    private static void assertOrder(int orderNumber, MainFrame.Order order) {
+        assertNotNull(order, "order #" + orderNumber);
+        assertEquals(orderNumber, order.getOrderNumber());
+        assertEquals("Customer " + orderNumber, order.getCustomerName());
+        assertEquals(599L * (orderNumber % 5 + 1), order.getTotalCents());
+    }
+
+    private static MainFrame.Order order(int orderNumber) {
+        MainFrame.MenuItem burger = new MainFrame.MenuItem("Burger", "Main Course", 599);
+        int quantity = orderNumber % 5 + 1;
+        List<MainFrame.CartItem> items = List.of(new MainFrame.CartItem(burger, quantity));
+        return new MainFrame.Order(orderNumber, "Customer " + orderNumber, "T1", items, 599L * quantity, ORDER_TIME);
+    }
+}
@@ -0,0 +1,146 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A crash mid-append must cost at most the order being written, never the ones before or after it
+class OrderJournalTest {
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2026, 3, 14, 19, 30);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void journaledOrdersAreReplayed() throws IOException {
+        try (OrderJournal journal = open()) {
+            assertTrue(journal.replay().isEmpty());
+            for (int i = 1; i <= 3; i++) {
+                journal.append(order(i));
+            }
+        }
+        try (OrderJournal journal = open()) {
+            assertOrderNumbers(journal.replay(), 1, 2, 3);
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedBeforeNewOrders() throws IOException {
+        try (OrderJournal journal = open()) {
+            journal.replay();
+            for (int i = 1; i <= 3; i++) {
+                journal.append(order(i));
+            }
+        }
+        long size = Files.size(journalPath());
+        cut(size - 5); // Crash while order 3 was being written
+        try (OrderJournal journal = open()) {
+            assertOrderNumbers(journal.replay(), 1, 2);
+            journal.append(order(4));
+        }
+        try (OrderJournal journal = open()) {
+            assertOrderNumbers(journal.replay(), 1, 2, 4);
+        }
+    }
+
+    @Test
+    void tornHeaderIsDropped() throws IOException {
+        try (OrderJournal journal = open()) {
+            journal.replay();
+            journal.append(order(1));
+            journal.append(order(2));
+        }
+        long firstRecordEnd;
+        try (FileChannel channel = FileChannel.open(journalPath(), StandardOpenOption.READ)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            firstRecordEnd = Integer.BYTES + Long.BYTES + length.flip().getInt();
+        }
+        cut(firstRecordEnd + 3); // Only part of the length of order 2 reached the disk
+        try (OrderJournal journal = open()) {
+            assertOrderNumbers(journal.replay(), 1);
+        }
+        assertEquals(firstRecordEnd, Files.size(journalPath()));
+    }
+
+    @Test
+    void corruptRecordEndsTheReplay() throws IOException {
+        try (OrderJournal journal = open()) {
+            journal.replay();
+            for (int i = 1; i <= 3; i++) {
+                journal.append(order(i));
+            }
+        }
+        long size = Files.size(journalPath());
+        try (FileChannel channel = FileChannel.open(journalPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Flip the last byte of order 3, whose checksum no longer matches
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            last.put(0, (byte) ~last.get(0));
+            channel.write(last.rewind(), size - 1);
+        }
+        try (OrderJournal journal = open()) {
+            assertOrderNumbers(journal.replay(), 1, 2);
+        }
+    }
+
+    @Test
+    void checkpointMovesOrdersToTheHistory() throws IOException {
+        try (OrderJournal journal = open(); OrderHistory history = history()) {
+            journal.replay();
+            history.open();
+            for (int i = 1; i <= 3; i++) {
+                history.append(order(i));
+                journal.append(order(i));
+            }
+            journal.checkpoint(history);
+            assertFalse(journal.isCheckpointDue());
+            assertEquals(0, Files.size(journalPath()));
+        }
+        try (OrderJournal journal = open(); OrderHistory history = history()) {
+            assertTrue(journal.replay().isEmpty());
+            history.open();
+            assertEquals(3, history.size());
+            assertEquals("Customer 2", history.find(2).getCustomerName());
+        }
+    }
+
+    private void cut(long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private Path journalPath() {
+        return directory.resolve("orders.journal");
+    }
+
+    private OrderJournal open() {
+        return new OrderJournal(journalPath().toString(), null);
+    }
+
+    private OrderHistory history() {
+        return new OrderHistory(directory.resolve("orders.dat").toString(), directory.resolve("orders.idx").toString(),
+                directory.resolve("orders.ser").toString(), null);
+    }
+
+    private static void assertOrderNumbers(List<MainFrame.Order> orders, int... expected) {
+        assertArrayEquals(expected, orders.stream().mapToInt(MainFrame.Order::getOrderNumber).toArray());
+    }
+
+    private static MainFrame.Order order(int orderNumber) {
+        MainFrame.MenuItem burger = new MainFrame.MenuItem("Burger", "Main Course", 599);
+        List<MainFrame.CartItem> items = List.of(new MainFrame.CartItem(burger, orderNumber));
+        return new MainFrame.Order(orderNumber, "Customer " + orderNumber, "T1", items, 599L * orderNumber, ORDER_TIME);
+    }
+}
@@ -0,0 +1,160 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Order numbers must never repeat: not between threads, not between allocators or processes sharing
+// the file, and not after a crash that lost the allocator's in-memory block
+class OrderNumberAllocatorTest {
+    private static final int FIRST = 1000;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void threadsSharingAnAllocatorGetUniqueNumbers() throws Exception {
+        try (OrderNumberAllocator allocator = new OrderNumberAllocator(file(), FIRST)) {
+            List<Integer> numbers = allocate(8, 5 * OrderNumberAllocator.BLOCK_SIZE, terminal -> allocator);
+            assertUnique(numbers);
+            assertEquals(FIRST, numbers.stream().mapToInt(Integer::intValue).min().orElseThrow());
+        }
+    }
+
+    @Test
+    void allocatorsSharingTheFileGetDisjointNumbers() throws Exception {
+        List<OrderNumberAllocator> allocators = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            allocators.add(new OrderNumberAllocator(file(), FIRST));
+        }
+        try {
+            assertUnique(allocate(8, 3 * OrderNumberAllocator.BLOCK_SIZE + 7, terminal -> allocators.get(terminal % 4)));
+        } finally {
+            for (OrderNumberAllocator allocator : allocators) {
+                allocator.close();
+            }
+        }
+    }
+
+    @Test
+    void numbersAreNotReusedAfterACrash() throws IOException {
+        Set<Integer> numbers = new HashSet<>();
+        for (int run = 0; run < 3; run++) {
+            // Never closed, as if the process died with most of its block unused
+            OrderNumberAllocator crashed = new OrderNumberAllocator(file(), FIRST);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(numbers.add(crashed.next()));
+            }
+        }
+        try (OrderNumberAllocator restarted = new OrderNumberAllocator(file(), FIRST)) {
+            int number = restarted.next();
+            assertFalse(numbers.contains(number));
+            assertTrue(number >= FIRST + 3 * OrderNumberAllocator.BLOCK_SIZE, "unused rest of each block is skipped");
+        }
+    }
+
+    @Test
+    void advanceToSkipsNumbersAlreadyOnDisk() throws IOException {
+        try (OrderNumberAllocator allocator = new OrderNumberAllocator(file(), FIRST)) {
+            allocator.advanceTo(5000);
+            assertEquals(5000, allocator.next());
+        }
+        try (OrderNumberAllocator restarted = new OrderNumberAllocator(file(), FIRST)) {
+            assertTrue(restarted.next() > 5000);
+        }
+    }
+
+    @Test
+    void processesSharingTheFileGetDisjointNumbers() throws Exception {
+        int processes = 3;
+        int count = 2 * OrderNumberAllocator.BLOCK_SIZE + 30;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        // The child only needs the main and test classes, wherever the test runner loaded them from
+        String classPath = location(OrderNumberAllocator.class) + File.pathSeparator + location(Child.class);
+        List<String> command = new ArrayList<>(List.of(java, "-cp", classPath));
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview");
+        }
+        command.addAll(List.of(Child.class.getName(), file(), Integer.toString(count)));
+        List<Process> children = new ArrayList<>();
+        for (int i = 0; i < processes; i++) {
+            children.add(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        }
+        List<Integer> numbers = new ArrayList<>();
+        for (Process child : children) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    numbers.add(Integer.parseInt(line));
+                }
+            }
+            assertTrue(child.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, child.exitValue());
+        }
+        assertEquals(processes * count, numbers.size());
+        assertUnique(numbers);
+    }
+
+    // Allocates count numbers from a separate JVM and prints them one per line
+    static final class Child {
+        public static void main(String[] args) throws IOException {
+            try (OrderNumberAllocator allocator = new OrderNumberAllocator(args[0], FIRST)) {
+                StringBuilder out = new StringBuilder();
+                for (int i = Integer.parseInt(args[1]); i > 0; i--) {
+                    out.append(allocator.next()).append('\n');
+                }
+                System.out.print(out);
+            }
+        }
+    }
+
+    private static String location(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private String file() {
+        return new File(directory, "smartdine_order_numbers.dat").getPath();
+    }
+
+    // Starts the given number of terminals at once, each taking perTerminal numbers from its allocator
+    private static List<Integer> allocate(int terminals, int perTerminal, AllocatorFor allocatorFor) throws Exception {
+        List<Integer> numbers = new ArrayList<>();
+        for (List<Integer> taken : TestTerminals.collect(terminals, terminal -> {
+            OrderNumberAllocator allocator = allocatorFor.get(terminal);
+            List<Integer> terminalNumbers = new ArrayList<>(perTerminal);
+            for (int i = 0; i < perTerminal; i++) {
+                terminalNumbers.add(allocator.next());
+            }
+            return terminalNumbers;
+        })) {
+            numbers.addAll(taken);
+        }
+        assertEquals(terminals * perTerminal, numbers.size());
+        return numbers;
+    }
+
+    private static void assertUnique(List<Integer> numbers) {
+        Set<Integer> seen = new HashSet<>();
+        for (int number : numbers) {
+            assertTrue(seen.add(number), "order number " + number + " handed out twice");
+        }
+    }
+
+    @FunctionalInterface
+    private interface AllocatorFor {
+        OrderNumberAllocator get(int terminal);
+    }
+}
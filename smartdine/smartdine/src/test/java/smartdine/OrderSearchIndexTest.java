@@ -0,0 +1,112 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every query must return exactly what a scan of all orders returns, newest first
+class OrderSearchIndexTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+    private static final String[] CUSTOMERS = {"Smith", "smith ", "Jones", "Lee", "Garcia", "Walk-in"};
+    private static final String[] TABLES = {"T1", "T2", "Patio", "Bar"};
+    private static final String[] ITEMS = {"Burger", "Coke", "Fries", "Salad", "Pie", "Truffle"};
+
+    @Test
+    void searchMatchesAScan() {
+        List<MainFrame.Order> orders = orders(3000, new Random(42));
+        OrderSearchIndex index = new OrderSearchIndex();
+        orders.forEach(index::add);
+        assertEquals(orders.size(), index.size());
+
+        Random random = new Random(7);
+        for (int query = 0; query < 500; query++) {
+            String customer = random.nextInt(3) == 0 ? null : CUSTOMERS[random.nextInt(CUSTOMERS.length)];
+            String table = random.nextInt(2) == 0 ? null : TABLES[random.nextInt(TABLES.length)];
+            String item = random.nextInt(2) == 0 ? null : ITEMS[random.nextInt(ITEMS.length)];
+            LocalDate from = random.nextInt(2) == 0 ? null : FIRST_DAY.plusDays(random.nextInt(60));
+            LocalDate to = random.nextInt(2) == 0 ? null : FIRST_DAY.plusDays(random.nextInt(60));
+            int limit = random.nextInt(4) == 0 ? 5 : Integer.MAX_VALUE;
+
+            int[] expected = scan(orders, customer, table, item, from, to, limit);
+            int[] found = index.search(customer, table, item, from, to, limit);
+            assertArrayEquals(expected, found, () -> customer + "/" + table + "/" + item + "/" + from + "/" + to + "/" + limit);
+        }
+    }
+
+    @Test
+    void rareTermIsFoundAmongFrequentOnes() {
+        // One matching order deep inside long lists makes the cursors gallop over most of them
+        OrderSearchIndex index = new OrderSearchIndex();
+        for (int i = 0; i < 10_000; i++) {
+            String item = i == 1234 ? "Truffle" : "Burger";
+            index.add(order(i, "Smith", "T1", FIRST_DAY.atTime(12, 0), item, "Coke"));
+        }
+        assertArrayEquals(new int[] {1234}, index.search("smith", "t1", "Truffle", null, null, 10));
+        assertArrayEquals(new int[] {1234}, index.search(null, null, "truffle", FIRST_DAY, FIRST_DAY, 10));
+        assertArrayEquals(new int[0], index.search("Smith", "T2", "Truffle", null, null, 10));
+        assertArrayEquals(new int[0], index.search("Smith", null, null, FIRST_DAY.plusDays(1), FIRST_DAY, 10));
+    }
+
+    @Test
+    void searchNamesMatchesCustomerOrTableParts() {
+        OrderSearchIndex index = new OrderSearchIndex();
+        index.add(order(0, "Smith", "Patio", FIRST_DAY.atTime(12, 0), "Burger"));
+        index.add(order(1, "Jones", "T1", FIRST_DAY.atTime(12, 0), "Burger"));
+        index.add(order(2, "Patton", "Bar", FIRST_DAY.atTime(12, 0), "Burger"));
+        index.add(order(3, "Garcia", "Patio", FIRST_DAY.atTime(12, 0), "Burger"));
+
+        assertArrayEquals(new int[] {0, 2, 3}, index.searchNames("PAT"));
+        assertArrayEquals(new int[] {1}, index.searchNames("one"));
+        assertArrayEquals(new int[0], index.searchNames("Burger")); // Items are not names
+        assertArrayEquals(new int[] {0, 1, 2, 3}, index.searchNames(""));
+    }
+
+    private static int[] scan(List<MainFrame.Order> orders, String customer, String table, String item,
+                              LocalDate from, LocalDate to, int limit) {
+        List<Integer> found = new ArrayList<>();
+        for (int position = orders.size() - 1; position >= 0 && found.size() < limit; position--) {
+            MainFrame.Order order = orders.get(position);
+            LocalDate day = order.getOrderDateTime().toLocalDate();
+            if (matches(customer, order.getCustomerName()) && matches(table, order.getTableName())
+                    && (item == null || order.getItems().stream().anyMatch(line -> matches(item, line.getMenuItem().getName())))
+                    && (from == null || !day.isBefore(from)) && (to == null || !day.isAfter(to))) {
+                found.add(position);
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean matches(String criterion, String name) {
+        return criterion == null || criterion.trim().toLowerCase(Locale.ROOT).equals(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static List<MainFrame.Order> orders(int count, Random random) {
+        List<MainFrame.Order> orders = new ArrayList<>(count);
+        LocalDateTime time = FIRST_DAY.atTime(11, 0);
+        for (int i = 0; i < count; i++) {
+            time = time.plusMinutes(random.nextInt(60)); // Billing order is date order
+            String[] items = new String[1 + random.nextInt(3)];
+            for (int j = 0; j < items.length; j++) {
+                // Truffle is rare, so its list is much shorter than the others
+                items[j] = random.nextInt(50) == 0 ? "Truffle" : ITEMS[random.nextInt(ITEMS.length - 1)];
+            }
+            orders.add(order(i, CUSTOMERS[random.nextInt(CUSTOMERS.length)], TABLES[random.nextInt(TABLES.length)], time, items));
+        }
+        return orders;
+    }
+
+    private static MainFrame.Order order(int orderNumber, String customer, String table, LocalDateTime time, String... items) {
+        List<MainFrame.CartItem> lines = new ArrayList<>();
+        for (String item : items) {
+            lines.add(new MainFrame.CartItem(new MainFrame.MenuItem(item, "Main Course", 500), 1));
+        }
+        return new MainFrame.Order(orderNumber, customer, table, lines, 500L * items.length, time);
+    }
+}
@@ -0,0 +1,109 @@
+package smartdine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A table is never booked twice for overlapping slots, however the bookings are made or restored
+class ReservationBookTest {
+    private static final LocalDateTime EVENING = LocalDateTime.of(2026, 3, 14, 18, 0);
+
+    @Test
+    void overlappingBookingsConflict() {
+        ReservationBook book = new ReservationBook();
+        book.addTable("T1");
+        ReservationBook.Booking first = book.book("T1", "Smith", 2, EVENING, EVENING.plusHours(2));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> book.book("T1", "Jones", 2, EVENING.plusMinutes(90), EVENING.plusHours(3)));
+        assertTrue(e.getMessage().contains("Smith"), e.getMessage());
+        assertThrows(IllegalStateException.class, () -> book.book("T1", "Jones", 2, EVENING.minusHours(1), EVENING.plusMinutes(1)));
+        assertThrows(IllegalStateException.class, () -> book.book("T1", "Jones", 2, EVENING.plusMinutes(30), EVENING.plusMinutes(60)));
+
+        // Slots that only touch do not overlap
+        book.book("T1", "Jones", 2, EVENING.plusHours(2), EVENING.plusHours(3));
+        book.book("T1", "Lee", 2, EVENING.minusHours(1), EVENING);
+        assertEquals(3, book.size());
+        assertSame(first, book.findConflict("T1", EVENING.plusMinutes(10), EVENING.plusMinutes(20)));
+        assertNull(book.findConflict("T1", EVENING.plusHours(3), EVENING.plusHours(4)));
+        assertSame(first, book.bookingAt("T1", EVENING));
+        assertNull(book.bookingAt("T1", EVENING.plusHours(3)));
+
+        assertTrue(book.cancel(first.getId()));
+        assertFalse(book.cancel(first.getId()));
+        book.book("T1", "Garcia", 4, EVENING.plusMinutes(30), EVENING.plusMinutes(90));
+    }
+
+    @Test
+    void partiesOnlyGetTablesWithEnoughSeats() {
+        ReservationBook book = new ReservationBook();
+        book.addTable("Bar", 2);
+        book.addTable("T1");
+        book.addTable("Hall", 10);
+        assertFalse(book.addTable("Hall", 12)); // A known table keeps its seats
+        assertThrows(IllegalArgumentException.class, () -> book.addTable("Patio", 0));
+
+        assertThrows(IllegalStateException.class, () -> book.book("Bar", "Smith", 3, EVENING, EVENING.plusHours(1)));
+        assertEquals(List.of("Bar", "T1", "Hall"), book.findFreeTables(2, EVENING, EVENING.plusHours(1)));
+        assertEquals(List.of("Hall"), book.findFreeTables(5, EVENING, EVENING.plusHours(1)));
+        assertEquals(List.of(), book.findFreeTables(11, EVENING, EVENING.plusHours(1)));
+
+        book.book("T1", "Smith", 4, EVENING, EVENING.plusHours(2));
+        assertEquals(List.of("Hall"), book.findFreeTables(3, EVENING.plusHours(1), EVENING.plusHours(3)));
+        assertEquals(List.of("T1", "Hall"), book.findFreeTables(3, EVENING.plusHours(2), EVENING.plusHours(3)));
+    }
+
+    @Test
+    void invalidBookingsAreRejected() {
+        ReservationBook book = new ReservationBook();
+        book.addTable("T1");
+        assertThrows(IllegalArgumentException.class, () -> book.book("T1", "Smith", 2, EVENING, EVENING));
+        assertThrows(IllegalArgumentException.class, () -> book.book("T1", "Smith", 0, EVENING, EVENING.plusHours(1)));
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void restoreDropsOverlappingBookings() {
+        ReservationBook book = new ReservationBook();
+        book.addTable("T1", 6);
+        ReservationBook.Booking kept = book.book("T1", "Smith", 2, EVENING, EVENING.plusHours(2));
+        ReservationBook.Booking overlapping = new ReservationBook.Booking(kept.getId() + 1, "T1", "Jones", 2,
+                EVENING.plusHours(1), EVENING.plusHours(3));
+        ReservationBook.Snapshot snapshot = book.snapshot();
+        snapshot.bookings.add(overlapping);
+
+        ReservationBook restored = new ReservationBook();
+        restored.restore(snapshot);
+        assertEquals(1, restored.size());
+        assertEquals("Smith", restored.bookingAt("T1", EVENING.plusMinutes(90)).getCustomerName());
+        assertEquals(List.of("T1"), restored.findFreeTables(6, EVENING.plusHours(2), EVENING.plusHours(3)));
+        // New bookings continue after the restored IDs
+        assertTrue(restored.book("T1", "Lee", 2, EVENING.plusHours(4), EVENING.plusHours(5)).getId() > kept.getId());
+    }
+
+    @Test
+    void oldBookingsAreRemoved() {
+        ReservationBook book = new ReservationBook();
+        book.addTable("T1");
+        book.book("T1", "Smith", 2, EVENING.minusDays(10), EVENING.minusDays(10).plusHours(2));
+        book.book("T1", "Jones", 2, EVENING, EVENING.plusHours(2));
+        assertEquals(1, book.removeEndedBefore(EVENING.minusDays(1)));
+        assertEquals(1, book.getBookingsStarting(EVENING.minusDays(30), EVENING.plusDays(1)).size());
+    }
+
+    @Test
+    void concurrentAddsOfOneTableKeepOneSeatCount() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            ReservationBook book = new ReservationBook();
+            List<Boolean> added = TestTerminals.collect(4, terminal -> book.addTable("Patio", 2 + terminal));
+            assertEquals(1, added.stream().filter(a -> a).count());
+            int seats = 2 + added.indexOf(true);
+            // The winner's seat count is the one kept
+            assertEquals(List.of("Patio"), book.findFreeTables(seats, EVENING, EVENING.plusHours(1)));
+            assertEquals(List.of(), book.findFreeTables(seats + 1, EVENING, EVENING.plusHours(1)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package smartdine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Simulated terminals for the concurrency tests: each runs on its own thread, and a barrier starts them
+// together so they really overlap. The first failure of any terminal is rethrown.
+final class TestTerminals {
+    interface Task {
+        void run(int terminal) throws Exception;
+    }
+
+    interface Producer<T> {
+        T run(int terminal) throws Exception;
+    }
+
+    private TestTerminals() {
+    }
+
+    static void run(int count, Task task) throws Exception {
+        collect(count, terminal -> {
+            task.run(terminal);
+            return null;
+        });
+    }
+
+    // Results in terminal order
+    static <T> List<T> collect(int count, Producer<T> producer) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(count);
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<T>> futures = new ArrayList<>(count);
+            for (int t = 0; t < count; t++) {
+                int terminal = t;
+                futures.add(executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    return producer.run(terminal);
+                }));
+            }
+            List<T> results = new ArrayList<>(count);
+            for (Future<T> future : futures) {
+                results.add(future.get(2, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}